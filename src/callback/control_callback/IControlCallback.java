@@ -21,6 +21,15 @@ public interface IControlCallback extends VariableValueProvider{
 	 */
 	public double getValuePublic(IloNumVar var) throws IloException;
 
+	/**
+	 * Public method which enables to get the values of several variables in a callback with a single call
+	 * Implementation should look like this: this.getValues(vars);
+	 * @param vars The variables
+	 * @return The variable values
+	 * @throws IloException
+	 */
+	public double[] getValuesPublic(IloNumVar[] vars) throws IloException;
+
 	/**
 	 * Public method which enables to get the objective value of the best relaxed solution 
 	 * Implementation should look like this: this.getBestObjValue();
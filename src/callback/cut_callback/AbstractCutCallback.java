@@ -116,6 +116,11 @@ public abstract class AbstractCutCallback extends UserCutCallback implements ICo
 	public double getValuePublic(IloNumVar var) throws IloException{
 		return this.getValue(var);
 	}
+	
+	@Override
+	public double[] getValuesPublic(IloNumVar[] vars) throws IloException{
+		return this.getValues(vars);
+	}
 
 	@Override
 	public VariableGetter variableGetter() {
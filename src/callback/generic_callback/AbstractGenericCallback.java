@@ -0,0 +1,169 @@
+package callback.generic_callback;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import formulation.AbstractFormulation;
+import ilog.concert.IloException;
+import ilog.concert.IloRange;
+import ilog.cplex.IloCplex;
+import ilog.cplex.IloCplex.CutManagement;
+import inequality_family.AbstractInequality;
+import inequality_family.CutKey;
+import inequality_family.Range;
+import separation.AbstractSeparation;
+import variable.ContextVariableGetter;
+import variable.VariableGetter;
+
+
+/**
+ * Callback based on the generic callback API of cplex (IloCplex.Callback.Function).
+ *
+ * Unlike the legacy control callbacks, a generic callback does not disable the dynamic search
+ *  and it is called in parallel by the threads of cplex. Thus, each thread has its own separation
+ *  algorithms and variable getter (i.e. its own snapshot of the edge values). They are created
+ *  when the thread starts (ThreadUp context) and freed when it ends (ThreadDown context).
+ *
+ * In the candidate context, the violated inequalities reject the integer solution (lazy constraints).
+ * In the relaxation context, they are added as user cuts.
+ * All the added inequalities are also registered without duplicates (see getAddedCuts()).
+ */
+public abstract class AbstractGenericCallback implements IloCplex.Callback.Function {
+
+	public AbstractFormulation formulation = null;
+	public int iterations = 0;
+
+	/** Time spent in the callback (sum over the threads) */
+	public double time = 0.0;
+
+	/** Separation algorithms of the current thread */
+	ThreadLocal<ThreadSeparation> threadSeparation;
+
+	/** Added cuts, in the order of their first addition */
+	ConcurrentHashMap<CutKey, Boolean> addedKeys;
+	ConcurrentLinkedQueue<AbstractInequality<? extends AbstractFormulation>> addedCuts;
+
+	public AbstractGenericCallback(AbstractFormulation formulation){
+		this.formulation = formulation;
+
+		threadSeparation = new ThreadLocal<ThreadSeparation>(){
+			@Override
+			protected ThreadSeparation initialValue() {
+				return new ThreadSeparation();
+			}
+		};
+
+		addedKeys = new ConcurrentHashMap<>();
+		addedCuts = new ConcurrentLinkedQueue<>();
+	}
+
+	/**
+	 * Separation algorithms of one thread and the variable getter they use
+	 */
+	class ThreadSeparation{
+		ContextVariableGetter vg = new ContextVariableGetter(formulation.getCplex());
+		ArrayList<AbstractSeparation<?>> sep = createSeparations(vg);
+	}
+
+	/**
+	 * Create the separation algorithms of a thread
+	 *
+	 * @param vg  variable getter of the thread, which must be used by the separation algorithms
+	 */
+	protected abstract ArrayList<AbstractSeparation<?>> createSeparations(VariableGetter vg);
+
+	/**
+	 * @return the contexts in which the inequalities are separated
+	 *  (IloCplex.Callback.Context.Id.Candidate and/or IloCplex.Callback.Context.Id.Relaxation)
+	 */
+	protected abstract long separationContexts();
+
+	/**
+	 * Register the callback in the cplex object of the formulation (see Cplex.use())
+	 */
+	public void use() throws IloException {
+		formulation.getCplex().use(this, separationContexts()
+				| IloCplex.Callback.Context.Id.ThreadUp
+				| IloCplex.Callback.Context.Id.ThreadDown);
+	}
+
+
+	@Override
+	public void invoke(IloCplex.Callback.Context context) throws IloException {
+
+		if(context.inThreadUp()){
+			threadSeparation.get();
+			return;
+		}
+
+		if(context.inThreadDown()){
+			threadSeparation.remove();
+			return;
+		}
+
+		/* The variables are bounded, so there is no unbounded ray to cut */
+		if(context.inCandidate() && !context.isCandidatePoint())
+			return;
+
+		double start = formulation.getCplex().getCplexTime();
+
+		ThreadSeparation ts = threadSeparation.get();
+		ArrayList<AbstractInequality<? extends AbstractFormulation>> found = new ArrayList<>();
+
+		ts.vg.setContext(context);
+		ts.vg.takeEdgeSnapshot(formulation);
+
+		try {
+			for(AbstractSeparation<?> algo : ts.sep){
+				ArrayList<AbstractInequality<? extends AbstractFormulation>> ineq = algo.separate();
+				algo.added_cuts += ineq.size();
+				found.addAll(ineq);
+
+				/* A single family is enough to reject a candidate solution */
+				if(context.inCandidate() && found.size() > 0)
+					break;
+			}
+		}
+		finally {
+			ts.vg.releaseEdgeSnapshot();
+			ts.vg.setContext(null);
+		}
+
+		if(found.size() > 0){
+
+			IloRange[] ranges = new IloRange[found.size()];
+			for(int c = 0 ; c < ranges.length ; ++c){
+				Range r = found.get(c).getRange();
+				ranges[c] = formulation.getCplex().range(r.lbound, r.expr, r.ubound);
+			}
+
+			if(context.inCandidate())
+				context.rejectCandidate(ranges);
+			else{
+				int[] cutManagement = new int[ranges.length];
+				Arrays.fill(cutManagement, CutManagement.UseCutFilter);
+				context.addUserCuts(ranges, cutManagement, new boolean[ranges.length]);
+			}
+
+			for(AbstractInequality<? extends AbstractFormulation> i : found)
+				if(addedKeys.putIfAbsent(i.getCutKey(), Boolean.TRUE) == null)
+					addedCuts.add(i);
+		}
+
+		synchronized(this){
+			iterations++;
+			time += formulation.getCplex().getCplexTime() - start;
+		}
+	}
+
+
+	/**
+	 * @return the cuts added by the callback so far, without duplicates
+	 */
+	public ArrayList<AbstractInequality<? extends AbstractFormulation>> getAddedCuts() {
+		return new ArrayList<>(addedCuts);
+	}
+
+}
@@ -0,0 +1,47 @@
+package callback.generic_callback;
+
+import java.util.ArrayList;
+
+import formulation.AbstractFormulation;
+import formulation.FormulationEdge;
+import ilog.cplex.IloCplex;
+import separation.AbstractSeparation;
+import separation.SeparationCycleBFS;
+import separation.SeparationSTKL;
+import separation.SeparationTCCKLFixedSize;
+import variable.VariableGetter;
+
+/**
+ * Generic callback which adds user cuts in the relaxation context.
+ * The families are those kept for the branch and cut by the cutting plane method:
+ *  cycle inequalities for the edge formulation, ST and TCC inequalities otherwise.
+ */
+public class GenericCutCallback extends AbstractGenericCallback{
+
+	public int MAX_CUT;
+
+	public GenericCutCallback(AbstractFormulation formulation, int MAX_CUT) {
+		super(formulation);
+		this.MAX_CUT = MAX_CUT;
+	}
+
+	@Override
+	protected ArrayList<AbstractSeparation<?>> createSeparations(VariableGetter vg) {
+		ArrayList<AbstractSeparation<?>> sep = new ArrayList<AbstractSeparation<?>>();
+
+		if(formulation instanceof FormulationEdge)
+			sep.add(new SeparationCycleBFS(formulation, vg, MAX_CUT));
+		else{
+			sep.add(new SeparationSTKL(formulation, vg, 5, true));
+			sep.add(new SeparationTCCKLFixedSize(formulation, vg, 2, null, true));
+		}
+
+		return sep;
+	}
+
+	@Override
+	protected long separationContexts() {
+		return IloCplex.Callback.Context.Id.Relaxation;
+	}
+
+}
@@ -0,0 +1,36 @@
+package callback.generic_callback;
+
+import java.util.ArrayList;
+
+import formulation.AbstractFormulation;
+import ilog.cplex.IloCplex;
+import separation.AbstractSeparation;
+import separation.SeparationCycleBFS;
+import variable.VariableGetter;
+
+/**
+ * Generic callback version of LazyCBCycle: the candidate solutions which violate
+ *  a cycle inequality are rejected.
+ */
+public class GenericLazyCBCycle extends AbstractGenericCallback{
+
+	int MAX_CUT;
+
+	public GenericLazyCBCycle(AbstractFormulation formulation, int MAX_CUT) {
+		super(formulation);
+		this.MAX_CUT = MAX_CUT;
+	}
+
+	@Override
+	protected ArrayList<AbstractSeparation<?>> createSeparations(VariableGetter vg) {
+		ArrayList<AbstractSeparation<?>> sep = new ArrayList<AbstractSeparation<?>>();
+		sep.add(new SeparationCycleBFS(formulation, vg, MAX_CUT));
+		return sep;
+	}
+
+	@Override
+	protected long separationContexts() {
+		return IloCplex.Callback.Context.Id.Candidate;
+	}
+
+}
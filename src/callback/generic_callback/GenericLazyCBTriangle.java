@@ -0,0 +1,38 @@
+package callback.generic_callback;
+
+import java.util.ArrayList;
+
+import formulation.AbstractFormulation;
+import ilog.cplex.IloCplex;
+import separation.AbstractSeparation;
+import separation.SeparationTriangle;
+import variable.VariableGetter;
+
+/**
+ * Generic callback version of LazyCBTriangle: the candidate solutions which violate
+ *  a triangle inequality are rejected.
+ */
+public class GenericLazyCBTriangle extends AbstractGenericCallback{
+
+	int MAX_CUT;
+	boolean triangleIneqReducedForm;
+
+	public GenericLazyCBTriangle(AbstractFormulation formulation, int MAX_CUT, boolean triangleIneqReducedForm) {
+		super(formulation);
+		this.MAX_CUT = MAX_CUT;
+		this.triangleIneqReducedForm = triangleIneqReducedForm;
+	}
+
+	@Override
+	protected ArrayList<AbstractSeparation<?>> createSeparations(VariableGetter vg) {
+		ArrayList<AbstractSeparation<?>> sep = new ArrayList<AbstractSeparation<?>>();
+		sep.add(new SeparationTriangle(formulation, vg, MAX_CUT, triangleIneqReducedForm));
+		return sep;
+	}
+
+	@Override
+	protected long separationContexts() {
+		return IloCplex.Callback.Context.Id.Candidate;
+	}
+
+}
@@ -0,0 +1,71 @@
+package callback.generic_callback;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import formulation.AbstractFormulation;
+import ilog.concert.IloException;
+import ilog.cplex.IloCplex;
+import mipstart.MultiStartHeuristic;
+import mipstart.PartitionValues;
+
+
+/**
+ * Generic callback version of MultiStartHeuristicCallback: the best partition found by the
+ *  multi-start heuristic is posted to cplex in the relaxation context.
+ */
+public class GenericMultiStartHeuristicCallback implements IloCplex.Callback.Function {
+
+	AbstractFormulation formulation;
+	MultiStartHeuristic heuristic;
+	PartitionValues partitionValues;
+
+	/* Version of the last partition of the heuristic which has been considered */
+	AtomicInteger lastVersion = new AtomicInteger();
+
+	/** Number of partitions posted to cplex */
+	public int injectedNb = 0;
+
+	public GenericMultiStartHeuristicCallback(AbstractFormulation formulation, MultiStartHeuristic heuristic){
+		this.formulation = formulation;
+		this.heuristic = heuristic;
+		this.partitionValues = new PartitionValues(formulation);
+	}
+
+	/**
+	 * Register the callback in the cplex object of the formulation (see Cplex.use())
+	 */
+	public void use() throws IloException {
+		formulation.getCplex().use(this, IloCplex.Callback.Context.Id.Relaxation);
+	}
+
+
+	@Override
+	public void invoke(IloCplex.Callback.Context context) throws IloException {
+
+		int version = heuristic.getBestVersion();
+		int last = lastVersion.get();
+
+		/* The partition is considered by a single thread */
+		if(version == last || !lastVersion.compareAndSet(last, version))
+			return;
+
+		int[] membership;
+		double cost;
+		synchronized(heuristic){
+			membership = heuristic.getBestMembership();
+			cost = heuristic.getBestCost();
+		}
+
+		/* The incumbent objective is +infinity if there is no incumbent */
+		if(membership == null || cost >= context.getIncumbentObjective() - 1E-6)
+			return;
+
+		context.postHeuristicSolution(partitionValues.variables(), partitionValues.values(membership), cost,
+				IloCplex.Callback.Context.SolutionStrategy.CheckFeasible);
+
+		synchronized(this){
+			injectedNb++;
+		}
+	}
+
+}
@@ -1,7 +1,7 @@
 package callback.heuristic_callback;
 import java.util.ArrayList;
 
-import formulation.FormulationEdge;
+import formulation.AbstractFormulation;
 import ilog.concert.IloException;
 import ilog.cplex.IloCplex.HeuristicCallback;
 import separation.AbstractSeparation;
@@ -9,12 +9,12 @@ import separation.AbstractSeparation;
 
 public abstract class AbstractHeuristicCallback extends HeuristicCallback{
 
-	public FormulationEdge rep = null;
+	public AbstractFormulation rep = null;
 	public int iterations = 0;
 	public ArrayList<AbstractSeparation<?>> sep = new ArrayList<AbstractSeparation<?>>();
 
 
-	public AbstractHeuristicCallback(FormulationEdge p){
+	public AbstractHeuristicCallback(AbstractFormulation p){
 		rep = p;
 	}
 
@@ -0,0 +1,63 @@
+package callback.heuristic_callback;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import formulation.AbstractFormulation;
+import ilog.concert.IloException;
+import ilog.cplex.IloCplex.HeuristicCallback;
+import mipstart.MultiStartHeuristic;
+import mipstart.PartitionValues;
+
+
+/**
+ * Heuristic callback which gives to cplex the best partition found by a multi-start heuristic
+ *  running alongside the branch and bound (see MultiStartHeuristic).
+ *
+ * A partition is given once (at the first node processed after it is found), and only if it is
+ *  better than the incumbent of cplex.
+ */
+public class MultiStartHeuristicCallback extends HeuristicCallback{
+
+	MultiStartHeuristic heuristic;
+	PartitionValues partitionValues;
+
+	/* Version of the last partition of the heuristic which has been considered */
+	AtomicInteger lastVersion = new AtomicInteger();
+
+	/** Number of partitions given to cplex */
+	public int injectedNb = 0;
+
+	public MultiStartHeuristicCallback(AbstractFormulation formulation, MultiStartHeuristic heuristic){
+		this.heuristic = heuristic;
+		this.partitionValues = new PartitionValues(formulation);
+	}
+
+
+	@Override
+	protected void main() throws IloException {
+
+		int version = heuristic.getBestVersion();
+		int last = lastVersion.get();
+
+		/* The partition is considered by a single thread */
+		if(version == last || !lastVersion.compareAndSet(last, version))
+			return;
+
+		int[] membership;
+		double cost;
+		synchronized(heuristic){
+			membership = heuristic.getBestMembership();
+			cost = heuristic.getBestCost();
+		}
+
+		if(membership == null || (hasIncumbent() && cost >= getIncumbentObjValue() - 1E-6))
+			return;
+
+		setSolution(partitionValues.variables(), partitionValues.values(membership), cost);
+
+		synchronized(this){
+			injectedNb++;
+		}
+	}
+
+}
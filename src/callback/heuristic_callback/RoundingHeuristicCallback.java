@@ -0,0 +1,151 @@
+package callback.heuristic_callback;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import formulation.AbstractFormulation;
+import ilog.concert.IloException;
+import mipstart.LocalSearchImprover;
+import mipstart.MultiStartHeuristic;
+import mipstart.PartitionValues;
+import mipstart.UnionFindRounding;
+
+
+/**
+ * Heuristic callback which rounds the relaxation of the nodes of the branch and bound into a
+ *  partition (greedy rounding of UnionFindRounding followed by LocalSearchImprover, as in
+ *  PrimalHeuristicRounding) and gives it to cplex if it is better than the incumbent.
+ *
+ * The rounding is done at one node out of 'frequency' and is no longer done once the time
+ *  spent in the callback reaches 'timeLimit'.
+ * Cplex may call the callback from several threads at the same time. Thus, each thread has its own
+ *  rounding engine, local search and working arrays (created at its first call).
+ *
+ * Since cplex only uses one heuristic callback, the best partition of a multi-start heuristic
+ *  can also be given by this callback (see 'heuristic' and MultiStartHeuristicCallback).
+ */
+public class RoundingHeuristicCallback extends AbstractHeuristicCallback{
+
+	/** Default share of the time limit of the branch and bound given to the callback */
+	public static final double TIME_SHARE = 0.1;
+
+	/** Number of calls between two roundings */
+	int frequency;
+
+	/** Maximal time spent in the callback (-1 for no limit) */
+	double timeLimit;
+
+	PartitionValues partitionValues;
+
+	/** Multi-start heuristic whose best partition is also given to cplex (null if none) */
+	public MultiStartHeuristic heuristic = null;
+
+	/* Version of the last partition of the heuristic which has been considered */
+	AtomicInteger lastVersion = new AtomicInteger();
+
+	AtomicLong calls = new AtomicLong();
+
+	/** Number of partitions given to cplex */
+	public int injectedNb = 0;
+
+	/** Working arrays of the current thread */
+	ThreadLocal<ThreadRounding> threadRounding;
+
+	public RoundingHeuristicCallback(AbstractFormulation p, int frequency, double timeLimit){
+		super(p);
+		this.frequency = Math.max(1, frequency);
+		this.timeLimit = timeLimit;
+		this.partitionValues = new PartitionValues(p);
+
+		threadRounding = new ThreadLocal<ThreadRounding>(){
+			@Override
+			protected ThreadRounding initialValue() {
+				return new ThreadRounding();
+			}
+		};
+	}
+
+	/**
+	 * Rounding engine, local search and working arrays of one thread
+	 */
+	class ThreadRounding{
+		UnionFindRounding rounding = new UnionFindRounding(rep.graph);
+		LocalSearchImprover improver = new LocalSearchImprover(rep.graph);
+		double[] value = new double[rep.graph.m()];
+		int[] membership = new int[rep.n()];
+		double cost;
+	}
+
+
+	@Override
+	protected void main() throws IloException {
+
+		boolean isRoundingTime = calls.getAndIncrement() % frequency == 0
+				&& (timeLimit < 0 || time < timeLimit);
+
+		int[] best = null;
+		double bestCost = hasIncumbent() ? getIncumbentObjValue() - 1E-6 : Double.MAX_VALUE;
+
+		if(isRoundingTime){
+			double start = rep.getCplex().getCplexTime();
+
+			ThreadRounding tr = threadRounding.get();
+			separates();
+
+			if(tr.cost < bestCost){
+				best = tr.membership;
+				bestCost = tr.cost;
+			}
+
+			/* The threads of the heuristic can restart from this partition */
+			if(heuristic != null && tr.cost < Double.MAX_VALUE)
+				heuristic.offer(tr.membership, tr.cost);
+
+			synchronized(this){
+				iterations++;
+				time += rep.getCplex().getCplexTime() - start;
+			}
+		}
+
+		if(heuristic != null){
+			int version = heuristic.getBestVersion();
+			int last = lastVersion.get();
+
+			/* The partition of the heuristic is considered by a single thread */
+			if(version != last && lastVersion.compareAndSet(last, version)){
+				synchronized(heuristic){
+					if(heuristic.getBestCost() < bestCost){
+						best = heuristic.getBestMembership();
+						bestCost = heuristic.getBestCost();
+					}
+				}
+			}
+		}
+
+		if(best != null){
+			setSolution(partitionValues.variables(), partitionValues.values(best), bestCost);
+
+			synchronized(this){
+				injectedNb++;
+			}
+		}
+	}
+
+
+	/**
+	 * Round the relaxation of the current node into the partition of the current thread
+	 *  (its cost is Double.MAX_VALUE if no edge has a value greater than 0.5)
+	 */
+	@Override
+	public void separates() throws IloException {
+
+		ThreadRounding tr = threadRounding.get();
+		tr.cost = Double.MAX_VALUE;
+
+		partitionValues.edgeValues(getValues(partitionValues.variables()), tr.value);
+
+		if(tr.rounding.round(tr.value, tr.membership))
+			tr.cost = tr.improver.improve(tr.membership);
+	}
+
+}
@@ -84,6 +84,11 @@ public abstract class AbstractLazyCallback extends LazyConstraintCallback implem
 	public double getValuePublic(IloNumVar var) throws IloException{
 		return this.getValue(var);
 	}
+	
+	@Override
+	public double[] getValuesPublic(IloNumVar[] vars) throws IloException{
+		return this.getValues(vars);
+	}
 
 	@Override
 	public VariableGetter variableGetter() {
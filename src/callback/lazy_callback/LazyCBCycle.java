@@ -1,57 +1,77 @@
 package callback.lazy_callback;
 
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import formulation.AbstractFormulation;
-import formulation.FormulationEdge;
 import ilog.concert.IloException;
 import ilog.cplex.IloCplex;
 import inequality_family.AbstractInequality;
+import inequality_family.CutKey;
 import inequality_family.Range;
 import separation.SeparationCycleBFS;
 import variable.CallbackVariableGetter;
 
+/**
+ * Lazy callback which separates the cycle inequalities (edge formulation).
+ *
+ * Cplex may call the callback from several threads at the same time. Thus, each thread
+ *  has its own separation algorithm and variable getter (created at its first call), and
+ *  each call only adds the violated cycles found in this call.
+ * All the added cycles are also registered without duplicates (see getAddedCuts()).
+ */
 public class LazyCBCycle extends AbstractLazyCallback{
 
-	SeparationCycleBFS sep;
-	ArrayList<AbstractInequality<? extends AbstractFormulation>> addedCuts;
-	
+	int MAX_CUT;
+
+	/** Separation algorithm of the current thread */
+	ThreadLocal<SeparationCycleBFS> sep;
+
+	/** Added cuts, in the order of their first addition */
+	ConcurrentHashMap<CutKey, Boolean> addedKeys;
+	ConcurrentLinkedQueue<AbstractInequality<? extends AbstractFormulation>> addedCuts;
+
 	public LazyCBCycle(AbstractFormulation p, int MAX_CUT) {
 		super(p);
-//		IFormulationEdgeVarNodeVar formulation, VariableGetter vg, 
-		sep = new SeparationCycleBFS(p, this.variableGetter(), MAX_CUT);
-		addedCuts = new ArrayList<>();
+		this.MAX_CUT = MAX_CUT;
+
+		sep = new ThreadLocal<SeparationCycleBFS>(){
+			@Override
+			protected SeparationCycleBFS initialValue() {
+				CallbackVariableGetter threadVg = new CallbackVariableGetter(formulation.getCplex(), LazyCBCycle.this);
+				return new SeparationCycleBFS(formulation, threadVg, LazyCBCycle.this.MAX_CUT);
+			}
+		};
+
+		addedKeys = new ConcurrentHashMap<>();
+		addedCuts = new ConcurrentLinkedQueue<>();
 	}
 
 
 	@Override
 	public void separates() throws IloException {
-		//System.out.println("LazyCBCycle");
-		
-		// ======================================================
-		// without this block of code, the separation procedure with multi-threading does not work.
-		// This is because the object 'rvg' is initialized at the beginning,
-		//	and during the branching it needs to be updated to access the values of the variables
-		rvg = new CallbackVariableGetter(formulation.getCplex(), this);
-		sep.setVariableGetter(this.variableGetter());
-		// ======================================================
-
-		addedCuts.addAll(sep.separate());
-		
-		for(AbstractInequality<? extends AbstractFormulation> i : addedCuts){
+
+		ArrayList<AbstractInequality<? extends AbstractFormulation>> found = sep.get().separate();
+
+		/* A cycle already registered is added again since it is violated by the current
+		 *  solution (e.g. it has been purged by cplex) */
+		for(AbstractInequality<? extends AbstractFormulation> i : found){
 			Range r = i.getRange();
 			this.add(formulation.getCplex().range(r.lbound, r.expr, r.ubound),
 					IloCplex.CutManagement.UseCutPurge);
-			//formulation.getCplex().addRange(i.createRange());
+
+			if(addedKeys.putIfAbsent(i.getCutKey(), Boolean.TRUE) == null)
+				addedCuts.add(i);
 		}
-		
-		System.out.println(addedCuts.size() + " lazy cycle");
 	}
-	
-	
-	
+
+
+	/**
+	 * @return the cuts added by the callback so far, without duplicates
+	 */
 	public ArrayList<AbstractInequality<? extends AbstractFormulation>> getAddedCuts() {
-		return(addedCuts);
+		return new ArrayList<>(addedCuts);
 	}
 
 }
@@ -10,29 +10,41 @@ import inequality_family.Range;
 import separation.SeparationTriangle;
 import variable.CallbackVariableGetter;
 
+/**
+ * Lazy callback which separates the triangle inequalities.
+ *
+ * Cplex may call the callback from several threads at the same time. Thus, each thread
+ *  has its own separation algorithm and variable getter (created at its first call), so the
+ *  snapshot of the edge values taken by a thread only contains the values of its own node.
+ */
 public class LazyCBTriangle extends AbstractLazyCallback{
 
-	SeparationTriangle sep;
+	int MAX_CUT;
+	boolean triangleIneqReducedForm;
+
+	/** Separation algorithm of the current thread */
+	ThreadLocal<SeparationTriangle> sep;
 	
 	public LazyCBTriangle(AbstractFormulation p, int MAX_CUT, boolean triangleIneqReducedForm) {
 		super(p);
-//		IFormulationEdgeVarNodeVar formulation, VariableGetter vg, 
-		sep = new SeparationTriangle(p, this.variableGetter(), MAX_CUT, triangleIneqReducedForm);		
+		this.MAX_CUT = MAX_CUT;
+		this.triangleIneqReducedForm = triangleIneqReducedForm;
+
+		sep = new ThreadLocal<SeparationTriangle>(){
+			@Override
+			protected SeparationTriangle initialValue() {
+				CallbackVariableGetter threadVg = new CallbackVariableGetter(formulation.getCplex(), LazyCBTriangle.this);
+				return new SeparationTriangle(formulation, threadVg, LazyCBTriangle.this.MAX_CUT,
+						LazyCBTriangle.this.triangleIneqReducedForm);
+			}
+		};
 	}
 
 
 	@Override
 	public void separates() throws IloException {
-		
-		// ======================================================
-		// without this block of code, the separation procedure with multi-threading does not work.
-		// This is because the object 'rvg' is initialized at the beginning,
-		//	and during the branching it needs to be updated to access the values of the variables
-		rvg = new CallbackVariableGetter(formulation.getCplex(), this);
-		sep.setVariableGetter(this.variableGetter());
-		// ======================================================
-
-		ArrayList<AbstractInequality<? extends AbstractFormulation>> al = sep.separate();
+
+		ArrayList<AbstractInequality<? extends AbstractFormulation>> al = sep.get().separate();
 		
 		for(AbstractInequality<? extends AbstractFormulation> i : al){
 			Range r = i.getRange();
@@ -1,6 +1,8 @@
 package cplex;
 
 //import callback.presolve_callback.CallBackPresolveInfo;
+import java.util.ArrayList;
+
 import ilog.concert.IloException;
 import ilog.concert.IloLinearNumExpr;
 import ilog.concert.IloNumExpr;
@@ -25,6 +27,20 @@ public class Cplex {
 
 	public final double  PRECISION = 0.0000001;
 	
+	/* Generic callbacks used and the contexts in which each one is called.
+	 *  Since cplex only accepts a single generic callback, they are all called by 'genericDispatcher' */
+	ArrayList<IloCplex.Callback.Function> genericCallbacks = new ArrayList<>();
+	ArrayList<Long> genericContexts = new ArrayList<>();
+	
+	IloCplex.Callback.Function genericDispatcher = new IloCplex.Callback.Function() {
+		@Override
+		public void invoke(IloCplex.Callback.Context context) throws IloException {
+			for(int c = 0 ; c < genericCallbacks.size() ; ++c)
+				if((genericContexts.get(c) & context.getId()) != 0)
+					genericCallbacks.get(c).invoke(context);
+		}
+	};
+	
 	public Cplex() {
 		start();
 	}
@@ -103,6 +119,8 @@ public class Cplex {
 	}
 
 	public void clearCallback(){
+		genericCallbacks.clear();
+		genericContexts.clear();
 		try {
 			iloCplex.clearCallbacks();
 		} catch (IloException e) {
@@ -118,6 +136,21 @@ public class Cplex {
 		}
 	}
 
+	/**
+	 * Use a generic callback in addition to the generic callbacks already used
+	 * 
+	 * @param contextMask  contexts in which the callback is called (see IloCplex.Callback.Context.Id)
+	 */
+	public void use(IloCplex.Callback.Function callback, long contextMask) throws IloException {
+		genericCallbacks.add(callback);
+		genericContexts.add(contextMask);
+		
+		long mask = 0;
+		for(long m : genericContexts)
+			mask |= m;
+		iloCplex.use(genericDispatcher, mask);
+	}
+
 	public void start(){
 		try {
 			iloCplex = new IloCplex();
@@ -191,6 +224,19 @@ public class Cplex {
 		return iloCplex.addRange(r.lbound, r.expr, r.ubound);
 	}
 
+	/**
+	 * Add several ranges to the model with a single call
+	 * 
+	 * @return the added ranges, in the same order
+	 */
+	public IloRange[] addRanges(ArrayList<Range> r) throws IloException{
+		IloRange[] ranges = new IloRange[r.size()];
+		for(int i = 0 ; i < ranges.length ; ++i)
+			ranges[i] = iloCplex.range(r.get(i).lbound, r.get(i).expr, r.get(i).ubound);
+		iloCplex.add(ranges);
+		return ranges;
+	}
+
 	//	public IloRange addLazyRange(Range r){
 	//		try {
 	//			return cplex.addLazyConstraint(cplex.range(r.lbound, r.expr, r.ubound));
@@ -3,7 +3,18 @@ package cutting_plane;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import callback.generic_callback.GenericMultiStartHeuristicCallback;
+import callback.heuristic_callback.MultiStartHeuristicCallback;
+import callback.heuristic_callback.RoundingHeuristicCallback;
 import formulation.Param;
 import formulation.AbstractFormulation;
 import formulation.FormulationEdge;
@@ -12,10 +23,18 @@ import ilog.concert.IloException;
 import ilog.concert.IloRange;
 import ilog.cplex.IloCplex;
 import inequality_family.AbstractInequality;
+import inequality_family.Range;
 import mipstart.AbstractMIPStartGenerate;
+import mipstart.MultiStartHeuristic;
+import mipstart.PivotRoundingBatch;
+import mipstart.PrimalHeuristicRounding;
 import mipstart.SolutionManager;
 import results.CPResult;
 import results.ComputeResults;
+import separation.AbstractSeparation;
+import separation.SeparationDeadline;
+import variable.SnapshotVariableGetter;
+import variable.VariableGetter;
 
 
 
@@ -51,6 +70,17 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 	double GAP_IMPROVEMENT_TRHESHOLD = 1E-2; // TODO is this a good value ?
 	int MIN_REMAINING_TIME = 200;
 	
+	/* Number of iterations after which a cut removed from the model is forgotten by the cut pool */
+	int CUT_POOL_MAX_AGE = 20;
+	
+	/* Share of the remaining time (or of maxTimeForRelaxationImprovement if there is no time limit)
+	 *  given to a round of separation by the adaptive scheduler */
+	double SEPARATION_ROUND_SHARE = 0.05;
+	
+	/* Time given to a separation algorithm of a concurrent round to return its cuts once its deadline is reached
+	 *  (it is then cancelled) */
+	double SEPARATION_CANCEL_DELAY = 1.0;
+	
 	// Look at also those methods
 	//   => setMaxTimeForRelaxationImprovement()
 	//   => setTimeLimitForCuttingPlanes()
@@ -58,6 +88,22 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 	
 	
 	public ArrayList<CP_Separation<?>> sep = new ArrayList<>();
+	
+	/* Order of the separation algorithms if it is adaptive (null if the order of 'sep' is used) */
+	SeparatorScheduler scheduler = null;
+	
+	/* Threads of the concurrent separation rounds (see separateConcurrently()) */
+	ExecutorService separationExecutor = null;
+	
+	/* Multi-start heuristic run alongside the cutting plane step and the branch and bound
+	 *  (null if formulation.p.heuristicTimeLimit is not positive) */
+	MultiStartHeuristic heuristic = null;
+	
+	/* Randomized pivot rounding of the primal heuristic, built once by formulation (see pivotRoundingBatch()) */
+	PivotRoundingBatch pivotRounding = null;
+	
+	/* All the cuts added during the cutting plane step, including the removed ones */
+	public CutPool cutPool;
 
 	public CPResult cpresult;
 
@@ -186,6 +232,9 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 		
 		// =====================================================================
 		createSeparationAlgorithm();		
+		cutPool = new CutPool(formulation, CUT_POOL_MAX_AGE);
+		if(formulation.p.adaptiveSeparation)
+			scheduler = new SeparatorScheduler(sep.size());
 		declareCplexAsRootRelaxation();
 		// =====================================================================
 
@@ -196,6 +245,11 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 		double bestInt = Double.MAX_VALUE;
 		boolean isSpeedingUp = false;
 		
+		if(formulation.p.heuristicTimeLimit > 0) {
+			heuristic = new MultiStartHeuristic(formulation.graph, formulation.p.nbThread, MultiStartHeuristic.DEFAULT_SEED);
+			heuristic.start(formulation.p.heuristicTimeLimit);
+		}
+		
 		try {
 			// =================================================================
 			solveRootRelaxation();
@@ -205,8 +259,8 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 			cpresult.cp_iteration = 0;
 
 			if(this.initialPartitionMembership != null){
+				/* The membership of the solution is the improved one (not initialPartitionMembership) */
 				bestMIP = LoadInitialIntegerSolution();
-				bestMIP.setMembership(this.initialPartitionMembership);
 				bestInt = bestMIP.evaluate();
 			}
 
@@ -258,7 +312,17 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 
 
 				last_cp_relaxation = formulation.getCplex().getObjValue();
+				
+				SolutionManager heuristicMIP = getHeuristicSolution(bestInt);
+				if(heuristicMIP != null) {
+					bestMIP = heuristicMIP;
+					bestInt = heuristicMIP.evaluate();
+				}
+				
 				gap = ComputeResults.improvement(last_cp_relaxation,  bestInt);
+				
+				if(scheduler != null)
+					scheduler.recordRelaxation(last_cp_relaxation);
 				cpTime = formulation.getCplex().getCplexTime() + cpresult.cp_time;
 
 				
@@ -321,7 +385,7 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 					//int sepId = getCycleSeparatioBFSnSeparationMethodId();
 					int sepId = getCycleOrTriangleSeparationMethodId();
 					ArrayList<AbstractInequality<? extends AbstractFormulation>> violatedIneqs;
-					violatedIneqs = checkLazilyIfIntegerSolutionValid(sepId);
+					violatedIneqs = cutPool.filter(checkLazilyIfIntegerSolutionValid(sepId), sepId);
 					if(violatedIneqs.size() > 0) {
 						//if(!this.isEnumAll){ // do not add these triangle inequalities if the goal is to enumerate all solutions, we add all of them in 2nd phase
 							tagInequality(violatedIneqs, sepId);
@@ -352,6 +416,10 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 							bestInt = newInt;
 							bestMIP = newMIP;
 						}	
+						
+						/* The threads of the heuristic can restart from this solution */
+						if(heuristic != null)
+							heuristic.offer(newMIP.getMembership(), newInt);
 					}
 					
 				}
@@ -420,6 +488,8 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 					lastRemovingCutsTime = -formulation.getCplex().getCplexTime();
 					readyToRemove = false;
 				}
+				
+				cutPool.age();
 				// =============================================================
 				
 				if(this.verbose){
@@ -455,6 +525,21 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 		} catch (IloException e1) {
 			e1.printStackTrace();
 		}
+		
+		formulation.variableGetter().releaseEdgeSnapshot();
+		
+		if(separationExecutor != null){
+			/* No separation is running at the end of a concurrent round */
+			separationExecutor.shutdown();
+			separationExecutor = null;
+		}
+		formulation.shutdownSeparationPool();
+		
+		if(pivotRounding != null){
+			/* It is created again if a rounding is needed after the cutting plane step */
+			pivotRounding.shutdown();
+			pivotRounding = null;
+		}
 
 		cpresult.cp_time += formulation.getCplex().getCplexTime();
 		if(this.verbose)
@@ -472,6 +557,14 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 				System.out.println(se.se.name + " : " + (se.addedIneq.size() + se.removedIneq));
 		}
 		
+		if(scheduler != null && this.verbose)
+			for(int s = 0 ; s < sep.size() ; ++s)
+				System.out.println(sep.get(s).se.name + " (scheduler) : " + scheduler.toString(s));
+		
+		if(this.verbose)
+			System.out.println("cut pool : " + cutPool.size() + " cuts, " + cutPool.reactivatedNb 
+					+ " re-activated, " + cutPool.duplicateNb + " duplicates");
+		
 		for(CP_Separation<?> s : sep)
 			if(s.addedIneq.size() > 0)
 				cpresult.cpCutNb.add(cpresult.new Cut(s.se.name, s.addedIneq.size()));
@@ -518,6 +611,15 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 				if(this.verbose)
 					System.out.println("\nSolution is not integer after cp ("+ tightIneqs2.size()+")");
 				
+				/* The heuristic may have improved its solution since the last iteration */
+				try {
+					SolutionManager heuristicMIP = getHeuristicSolution(bestInt);
+					if(heuristicMIP != null)
+						bestMIP = heuristicMIP;
+				} catch (IloException e) {
+					e.printStackTrace();
+				}
+				
 				if(!onlyFractionalSolution)
 					addedCuts = findIntSolutionAfterCP(tilim == -1 ? -1 : (tilim - cpresult.cp_time), bestMIP);
 
@@ -588,6 +690,13 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 //			}
 		}
 		
+		if(heuristic != null) {
+			heuristic.stop();
+			if(this.verbose)
+				System.out.println("multi-start heuristic : " + heuristic.iterations.get() + " local searches, best: " 
+						+ heuristic.getBestCost());
+		}
+		
 		cpresult.log();
 
 
@@ -611,6 +720,22 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 	
 	
 	public abstract AbstractMIPStartGenerate initializeMIPStartGenerator();
+	
+	
+	/**
+	 * @return the pivot rounding of the current formulation. It is created at the first call
+	 *  (and again if the formulation has changed), so its threads are not created at each rounding
+	 */
+	protected PivotRoundingBatch pivotRoundingBatch() {
+		
+		if(pivotRounding == null || pivotRounding.formulation != formulation){
+			if(pivotRounding != null)
+				pivotRounding.shutdown();
+			pivotRounding = new PivotRoundingBatch(formulation, formulation.p.pivotRoundingNb, formulation.p.nbThread);
+		}
+		
+		return pivotRounding;
+	}
 
 
 	
@@ -642,12 +767,18 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 	 */
 	public void addInequality(ArrayList<AbstractInequality<? extends AbstractFormulation>> r){
 
+		/* The cuts are added in one batch (the model is modified once) */
+		ArrayList<Range> ranges = new ArrayList<>(r.size());
 		for(AbstractInequality<? extends AbstractFormulation> ri : r)
-			try {
-				ri.ilorange = formulation.getCplex().addRange(ri.getRange());
-			} catch (IloException e) {
-				e.printStackTrace();
-			}
+			ranges.add(ri.getRange());
+		
+		try {
+			IloRange[] added = formulation.getCplex().addRanges(ranges);
+			for(int i = 0 ; i < added.length ; ++i)
+				r.get(i).ilorange = added[i];
+		} catch (IloException e) {
+			e.printStackTrace();
+		}
 
 	}
 
@@ -766,6 +897,35 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 	
 	
 
+	/**
+	 * Re-activate the cuts of the pool which are violated by the current relaxation. 
+	 * Each cut is tagged with the separation method which generated it.
+	 * 
+	 * @return the re-activated cuts to be added into the CPLEX model
+	 */
+	public ArrayList<AbstractInequality<? extends AbstractFormulation>> reactivatePoolCuts(){
+		
+		ArrayList<AbstractInequality<? extends AbstractFormulation>> toAdd = new ArrayList<>();
+		
+		/* The re-activated cuts are grouped by separation method so that they are counted as 
+		 *  the cuts generated by the method (see tagInequality()) */
+		ArrayList<ArrayList<AbstractInequality<? extends AbstractFormulation>>> bySep = new ArrayList<>();
+		for(int i = 0 ; i < sep.size() ; ++i)
+			bySep.add(new ArrayList<AbstractInequality<? extends AbstractFormulation>>());
+		
+		for(CutPool.Entry e : cutPool.reactivateViolatedCuts(formulation.variableGetter().getEdgeSnapshot(), eps))
+			bySep.get(e.sepId).add(e.ineq);
+		
+		for(int i = 0 ; i < sep.size() ; ++i)
+			if(bySep.get(i).size() > 0){
+				tagInequality(bySep.get(i), i);
+				toAdd.addAll(bySep.get(i));
+			}
+		
+		return toAdd;
+	}
+	
+	
 	// =========================================================================
 	
 	
@@ -845,7 +1005,12 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 	 * 
 	 */
 	public void solveRootRelaxation() throws IloException {
+		formulation.variableGetter().releaseEdgeSnapshot();
 		formulation.getCplex().solve();
+		
+		/* The relaxed solution does not change until the next call, so the values of
+		 *  the edge variables are retrieved once and shared by all the separation methods */
+		formulation.variableGetter().takeEdgeSnapshot(formulation);
 	}
 	
 
@@ -886,6 +1051,7 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 				if(!ai.isTight(formulation.variableGetter())){
 					toRemove.add(ai.ilorange);
 					si.remove(i);
+					cutPool.deactivate(ai); // it can be re-activated later if it is violated again
 				}
 			}
 		
@@ -978,6 +1144,62 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 	
 	
 	
+	/**
+	 * Give CC-specific solutions to cplex during the branch and bound: the rounding of the node
+	 *  relaxations (if formulation.p.nodeHeuristicFrequency is positive) and the solutions found
+	 *  by the multi-start heuristic (if it is used).
+	 * The rounding is a legacy heuristic callback, so it is not used with the generic callbacks. The solutions
+	 *  of the multi-start heuristic are given by the generic callback API unless legacy callbacks are used,
+	 *  since both cannot be mixed.
+	 * 
+	 * @param isLegacyCallbackUsed  True if legacy callbacks are used in the branch and bound
+	 */
+	void useHeuristicCallback(boolean isLegacyCallbackUsed) throws IloException {
+		
+		if(formulation.p.nodeHeuristicFrequency > 0 && !formulation.p.genericCallback) {
+			RoundingHeuristicCallback rhc = new RoundingHeuristicCallback(formulation, formulation.p.nodeHeuristicFrequency,
+					formulation.p.tilim > 0 ? RoundingHeuristicCallback.TIME_SHARE * formulation.p.tilim : -1);
+			
+			/* Cplex only uses one heuristic callback */
+			rhc.heuristic = heuristic;
+			formulation.getCplex().use(rhc);
+			return;
+		}
+		
+		if(heuristic == null)
+			return;
+		
+		if(isLegacyCallbackUsed)
+			formulation.getCplex().use(new MultiStartHeuristicCallback(formulation, heuristic));
+		else
+			new GenericMultiStartHeuristicCallback(formulation, heuristic).use();
+	}
+	
+	
+	/**
+	 * Get the best solution of the multi-start heuristic if it improves the current best solution
+	 * 
+	 * @param bestInt  objective of the current best solution
+	 * @return the solution of the heuristic, or null if it is not better (or if the heuristic is not used)
+	 */
+	SolutionManager getHeuristicSolution(double bestInt) throws IloException {
+		
+		if(heuristic == null || heuristic.getBestCost() >= bestInt - eps)
+			return null;
+		
+		int[] membership = heuristic.getBestMembership();
+		
+		PrimalHeuristicRounding loader = new PrimalHeuristicRounding(formulation);
+		loader.improver = null; // the solution is already improved by the local search of the heuristic
+		SolutionManager mip = loader.loadIntSolution(membership);
+		
+		if(this.verbose)
+			System.out.println("------- heuristic solution: " + heuristic.getBestCost());
+		
+		return mip;
+	}
+	
+	
 	/**
 	 * 
 	 * This method aims at running a 'Primal heuristic' method to find a feasible solution.
@@ -1043,7 +1265,22 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 		int sepId = getCycleOrTriangleSeparationMethodId();
 
 		
-		ArrayList<AbstractInequality<? extends AbstractFormulation>> toAdd = new ArrayList<>();
+		ArrayList<AbstractInequality<? extends AbstractFormulation>> toAdd = reactivatePoolCuts();
+		
+		/* The separation methods are only used if no cut of the pool is violated */
+		if(toAdd.size() > 0){
+			if(this.verbose)
+				System.out.print(" : cut pool (" + toAdd.size() + ")");
+			methodId = sep.size();
+		}
+		else if(formulation.p.concurrentSeparation){
+			separateConcurrently(toAdd, remainingTime);
+			methodId = sep.size();
+		}
+		else if(scheduler != null){
+			separateAdaptively(toAdd, remainingTime);
+			methodId = sep.size();
+		}
 
 		/* While no cut is found and if there is still time */
 		while((remainingTime > 0 || tilim == -1.0) && methodId < sep.size()){
@@ -1055,8 +1292,17 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 				/* If the separation method has not yet been used in this iteration */
 				//						if(!sep_i.usedAtThisIteration){
 				if(!sep_i.usedAtThisIteration && (!cutFound || sep_i.isQuick)){
+					
+					/* The time left is shared between this method and the next ones which may be used */
+					int candidateNb = 0;
+					for(int j = methodId ; j < sep.size() ; ++j)
+						if(!sep.get(j).usedAtThisIteration && (!cutFound || sep.get(j).isQuick))
+							candidateNb++;
+					
+					SeparationDeadline deadline = new SeparationDeadline(separationTimeLeft(remainingTime) / candidateNb);
 
-					ArrayList<AbstractInequality<?>> r = sep_i.se.separate();
+					/* Cuts already in the model are not added twice */
+					ArrayList<AbstractInequality<?>> r = cutPool.filter(sep_i.se.separate(deadline), methodId);
 
 					if(r.size() > 0){
 						System.out.println("name: " + sep_i.se.name);
@@ -1092,6 +1338,275 @@ public abstract class AbstractCuttingPlane<Formulation extends AbstractFormulati
 	}
 	
 	
+	/**
+	 * Use the separation algorithms in the order given by the scheduler.
+	 * Once a cut is found, the next algorithms are only used if their score is high enough and
+	 *  if their expected time fits in the time budget of the round. The algorithms which are
+	 *  cooled down are only used if no other algorithm finds a cut (thus, the cutting plane step
+	 *  still stops only if no algorithm finds a cut).
+	 * 
+	 * @param toAdd  filled with the cuts found
+	 */
+	private void separateAdaptively(ArrayList<AbstractInequality<? extends AbstractFormulation>> toAdd, double remainingTime) {
+		
+		double roundStart = formulation.getCplex().getCplexTime();
+		double budget = separationRoundBudget(remainingTime);
+		
+		int[] order = scheduler.order();
+		double bestScore = scheduler.bestScore();
+		boolean cutFound = false;
+		
+		for(int pass = 0 ; pass < 2 && !cutFound ; ++pass) {
+			
+			boolean isCooledPass = pass == 1;
+			
+			for(int k = 0 ; k < order.length ; ++k) {
+				
+				int methodId = order[k];
+				
+				if(tilim > 0 && remainingTime <= 0)
+					break;
+				
+				CP_Separation<?> sep_i = sep.get(methodId);
+				
+				if(sep_i.usedAtThisIteration || scheduler.isCoolingDown(methodId) != isCooledPass)
+					continue;
+				
+				if(cutFound) {
+					double elapsed = formulation.getCplex().getCplexTime() - roundStart;
+					
+					if(elapsed + scheduler.expectedTime(methodId) > budget 
+							|| scheduler.score(methodId) < SeparatorScheduler.QUICK_RATIO * bestScore)
+						continue;
+				}
+				
+				try {
+					double start = formulation.getCplex().getCplexTime();
+					
+					/* The time left is shared between this method and the next ones (and bounded by 
+					 *  the budget of the round once a cut is found) */
+					double timeLimit = separationTimeLeft(remainingTime) / (order.length - k);
+					if(cutFound)
+						timeLimit = Math.min(timeLimit, Math.max(0.0, budget - (start - roundStart)));
+					
+					/* Cuts already in the model are not added twice */
+					ArrayList<AbstractInequality<?>> r = cutPool.filter(sep_i.se.separate(new SeparationDeadline(timeLimit)), methodId);
+					
+					scheduler.record(methodId, formulation.getCplex().getCplexTime() - start, r.size());
+
+					if(r.size() > 0){
+						tagInequality(r, methodId);
+						toAdd.addAll(r);
+						cutFound = true;
+
+						if(this.verbose)
+							System.out.print(" : " + sep_i.se.name);
+					}
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+				
+				if(tilim > 0) { // if time limit is provided by user
+					/* Remaining cutting plane time */
+					double cpTime = formulation.getCplex().getCplexTime() + cpresult.cp_time;
+					remainingTime = cptilim - (cpTime);
+				}
+			}
+		}
+		
+		scheduler.endRound();
+	}
+	
+	
+	
+	/**
+	 * Time left to the separation in the current iteration (in seconds): the time before
+	 *  maxTimeForRelaxationImprovement is reached, bounded by the remaining time if there is a time limit
+	 */
+	private double separationTimeLeft(double remainingTime) {
+		
+		double timeLeft = maxTimeForRelaxationImprovement 
+				- (lastRelaxationImprovTime + formulation.getCplex().getCplexTime());
+		
+		if(tilim > 0)
+			timeLeft = Math.min(timeLeft, remainingTime);
+		
+		return Math.max(0.0, timeLeft);
+	}
+	
+	
+	/**
+	 * Time budget of a round of separation (in seconds)
+	 */
+	private double separationRoundBudget(double remainingTime) {
+		return Math.max(1.0, SEPARATION_ROUND_SHARE * 
+				(tilim > 0 ? remainingTime : maxTimeForRelaxationImprovement));
+	}
+	
+	
+	/**
+	 * Run all the separation algorithms concurrently on the current relaxation.
+	 * 
+	 * The algorithms share a frozen copy of the edge values, so none of them calls cplex.
+	 * The time budget of the round is the deadline of each algorithm: when it is reached, they
+	 *  return the cuts found so far. The cuts are then merged in the order of 'sep' through
+	 *  the cut pool (a cut found by several algorithms is only kept once). An algorithm which is
+	 *  still running SEPARATION_CANCEL_DELAY seconds after the deadline is cancelled and its results 
+	 *  are discarded. The round waits until all the cancelled algorithms are stopped, so a separation
+	 *  is never used by two threads (e.g. by the next round or by checkLazilyIfIntegerSolutionValid()).
+	 * 
+	 * If the scheduler is used, the algorithms which are cooled down are only used in
+	 *  a second round if no cut is found.
+	 * 
+	 * @param toAdd  filled with the cuts found
+	 */
+	private void separateConcurrently(ArrayList<AbstractInequality<? extends AbstractFormulation>> toAdd, double remainingTime) {
+		
+		if(separationExecutor == null){
+			separationExecutor = Executors.newFixedThreadPool(sep.size(), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					/* A separation which is still running does not prevent the program from ending */
+					Thread t = new Thread(r, "separation");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		
+		VariableGetter roundVg = new SnapshotVariableGetter(formulation.getCplex(), 
+				formulation.variableGetter().getEdgeSnapshot());
+		
+		boolean cutFound = false;
+		
+		for(int pass = 0 ; pass < 2 && !cutFound ; ++pass) {
+			
+			boolean isCooledPass = pass == 1;
+			
+			/* Without scheduler, all the algorithms are used in the first round */
+			if(isCooledPass && scheduler == null)
+				break;
+			
+			double roundStart = formulation.getCplex().getCplexTime();
+			double budget = Math.min(separationRoundBudget(remainingTime), separationTimeLeft(remainingTime));
+			
+			ArrayList<Integer> submitted = new ArrayList<>();
+			SeparationTask[] tasks = new SeparationTask[sep.size()];
+			ArrayList<Future<ArrayList<AbstractInequality<? extends AbstractFormulation>>>> running = new ArrayList<>();
+			
+			for(int methodId = 0 ; methodId < sep.size() ; ++methodId) {
+				
+				CP_Separation<?> sep_i = sep.get(methodId);
+				
+				if(sep_i.usedAtThisIteration)
+					continue;
+				
+				if(scheduler != null && scheduler.isCoolingDown(methodId) != isCooledPass)
+					continue;
+				
+				tasks[methodId] = new SeparationTask(sep_i.se, roundVg, new SeparationDeadline(budget));
+				running.add(separationExecutor.submit(tasks[methodId]));
+				submitted.add(methodId);
+			}
+			
+			ArrayList<Future<ArrayList<AbstractInequality<? extends AbstractFormulation>>>> cancelled = new ArrayList<>();
+			
+			/* Merge the results in the order of the algorithms */
+			for(int k = 0 ; k < submitted.size() ; ++k) {
+				
+				int methodId = submitted.get(k);
+				CP_Separation<?> sep_i = sep.get(methodId);
+				double timeLeft = budget + SEPARATION_CANCEL_DELAY - (formulation.getCplex().getCplexTime() - roundStart);
+				
+				try {
+					ArrayList<AbstractInequality<? extends AbstractFormulation>> found = 
+							running.get(k).get((long) (Math.max(0.0, timeLeft) * 1000), TimeUnit.MILLISECONDS);
+					
+					/* Cuts already in the model are not added twice */
+					ArrayList<AbstractInequality<?>> r = cutPool.filter(found, methodId);
+					
+					if(scheduler != null)
+						scheduler.record(methodId, tasks[methodId].time, r.size());
+					
+					if(r.size() > 0){
+						tagInequality(r, methodId);
+						toAdd.addAll(r);
+						cutFound = true;
+						
+						if(this.verbose)
+							System.out.print(" : " + sep_i.se.name);
+					}
+				} catch (TimeoutException e) {
+					/* The algorithm stops as soon as possible, its result will be discarded */
+					tasks[methodId].deadline.cancel();
+					cancelled.add(running.get(k));
+					
+					if(scheduler != null)
+						scheduler.record(methodId, budget, 0);
+					
+					if(this.verbose)
+						System.out.print(" : " + sep_i.se.name + " (time out)");
+				} catch (ExecutionException e) {
+					e.getCause().printStackTrace();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+			
+			/* The separations of the cancelled algorithms may be used again once they are stopped */
+			for(Future<ArrayList<AbstractInequality<? extends AbstractFormulation>>> f : cancelled) {
+				try {
+					f.get();
+				} catch (ExecutionException e) {
+					e.getCause().printStackTrace();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+			
+			if(tilim > 0) { // if time limit is provided by user
+				/* Remaining cutting plane time */
+				double cpTime = formulation.getCplex().getCplexTime() + cpresult.cp_time;
+				remainingTime = cptilim - (cpTime);
+			}
+		}
+		
+		if(scheduler != null)
+			scheduler.endRound();
+	}
+	
+	
+	/**
+	 * Call of a separation algorithm in a concurrent round.
+	 * The frozen edge values of the round are given to the algorithm as a parameter of the call.
+	 */
+	static class SeparationTask implements Callable<ArrayList<AbstractInequality<? extends AbstractFormulation>>> {
+		
+		AbstractSeparation<?> se;
+		VariableGetter roundVg;
+		SeparationDeadline deadline;
+		
+		/* Duration of the call in seconds */
+		volatile double time = 0.0;
+		
+		SeparationTask(AbstractSeparation<?> se, VariableGetter roundVg, SeparationDeadline deadline) {
+			this.se = se;
+			this.roundVg = roundVg;
+			this.deadline = deadline;
+		}
+		
+		@Override
+		public ArrayList<AbstractInequality<? extends AbstractFormulation>> call() {
+			
+			long start = System.nanoTime();
+			
+			try {
+				return se.separate(roundVg, deadline);
+			} finally {
+				time = (System.nanoTime() - start) / 1E9;
+			}
+		}
+	}
+	
 	
 }
-
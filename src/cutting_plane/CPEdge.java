@@ -12,7 +12,7 @@ import java.util.HashSet;
 import java.util.TreeSet;
 
 import callback.cut_callback.CutCallback_all;
-import callback.lazy_callback.LazyCBCycle;
+import callback.generic_callback.GenericCutCallback;
 
 import formulation.FormulationEdge;
 import formulation.Edge;
@@ -412,23 +412,29 @@ public class CPEdge extends AbstractCuttingPlane<AbstractFormulation>{
 //			// ====================================================================================
 			
 			
+			boolean isGeneric = formulation.p.genericCallback;
+			
 			CutCallback_all acc = null;
+			GenericCutCallback gacc = null;
 //			FastCutCallback acc = null;
-			if(this.userCutInBB) {
+			if(this.userCutInBB && isGeneric) {
+				gacc = new GenericCutCallback(formulation, 500);
+				gacc.use();
+			}
+			else if(this.userCutInBB) {
 				acc = new CutCallback_all(formulation, 500);
 //				acc = new FastCutCallback(formulation, 500);
 				formulation.getCplex().use(acc);
 				addedCuts.addAll(acc.getAddedCuts());
 			}
 			
-			LazyCBCycle lcc = null;
 //			FastCutCallback acc = null;
 
-			if(this.lazyInBB) {
-				lcc = new LazyCBCycle(formulation, 500);
-//				acc = new FastCutCallback(formulation, 500);
-				formulation.getCplex().use(lcc);
-			}
+			/* The callback may already be registered by the formulation (e.g. with USE_LAZY_IN_BC_ONLY) */
+			if(this.lazyInBB)
+				((FormulationEdge) formulation).useLazyCBCycle();
+			
+			useHeuristicCallback(!isGeneric && (this.userCutInBB || this.lazyInBB));
 			
 			formulation.getCplex().setParam(IloCplex.Param.Threads, this.nbThread);
 
@@ -445,14 +451,15 @@ public class CPEdge extends AbstractCuttingPlane<AbstractFormulation>{
 			formulation.getCplex().solve();
 			cpresult.time += formulation.getCplex().getCplexTime();
 			cpresult.getResults(formulation, acc, false);
+			formulation.shutdownSeparationPool();
 			
 			
 			if(this.userCutInBB) {
-				addedCuts.addAll(acc.getAddedCuts());
+				addedCuts.addAll(isGeneric ? gacc.getAddedCuts() : acc.getAddedCuts());
 			}
 			
 			if(this.lazyInBB) {
-				addedCuts.addAll(lcc.getAddedCuts());
+				addedCuts.addAll(((FormulationEdge) formulation).getLazyCBCycleAddedCuts());
 			}
 
 
@@ -618,7 +625,7 @@ public class CPEdge extends AbstractCuttingPlane<AbstractFormulation>{
 			for(Edge e : formulation.getEdges()){
 				int i = e.getSource();
 				int j = e.getDest();
-				double val = formulation.variableGetter().getValue(formulation.edgeVar(i, j));
+				double val = formulation.variableGetter().getEdgeValue(formulation, i, j);
 					
 				if(!isInteger(val)){
 					result = false;
@@ -637,6 +644,8 @@ public class CPEdge extends AbstractCuttingPlane<AbstractFormulation>{
 	
 	@Override
 	public AbstractMIPStartGenerate initializeMIPStartGenerator() {
+		if(formulation.p.pivotRoundingNb > 0)
+			return pivotRoundingBatch();
 		return new PrimalHeuristicRounding(formulation);	
 	}
 
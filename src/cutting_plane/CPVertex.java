@@ -13,6 +13,8 @@ import java.util.Iterator;
 import java.util.TreeSet;
 
 import callback.cut_callback.CutCallback_all;
+import callback.generic_callback.GenericCutCallback;
+import callback.generic_callback.GenericLazyCBCycle;
 import callback.lazy_callback.LazyCBCycle;
 
 import formulation.FormulationVertex;
@@ -137,8 +139,9 @@ public class CPVertex extends AbstractCuttingPlane<AbstractFormulation>{
 		/* If the triangle inequalities are:
 		 * - not in cutting plane model 
 		 * - not generated lazily in the cutting plane step 
-		 * - contained in the branch and cut model */ 
-		else if(rp.transitivity == Transitivity.USE_IN_BC_ONLY) {
+		 * - contained in the branch and cut model (or in its lazy constraint pool) */ 
+		else if(rp.transitivity == Transitivity.USE_IN_BC_ONLY
+				|| rp.transitivity == Transitivity.USE_LAZY_POOL_IN_BC_ONLY) {
 			toAddInBB = false;
 			isQuick = true;
 			sep.add(new CP_Separation<AbstractFormulation>(
@@ -496,9 +499,16 @@ public class CPVertex extends AbstractCuttingPlane<AbstractFormulation>{
 //			// ====================================================================================
 			
 			
+			boolean isGeneric = formulation.p.genericCallback;
+			
 			CutCallback_all acc = null;
+			GenericCutCallback gacc = null;
 //			FastCutCallback acc = null;
-			if(this.userCutInBB) {
+			if(this.userCutInBB && isGeneric) {
+				gacc = new GenericCutCallback(formulation, 500);
+				gacc.use();
+			}
+			else if(this.userCutInBB) {
 				acc = new CutCallback_all(formulation, 500);
 //				acc = new FastCutCallback(formulation, 500);
 				formulation.getCplex().use(acc);
@@ -506,14 +516,21 @@ public class CPVertex extends AbstractCuttingPlane<AbstractFormulation>{
 			}
 			
 			LazyCBCycle lcc = null;
+			GenericLazyCBCycle glcc = null;
 //			FastCutCallback acc = null;
-			if(this.lazyInBB) {
+			if(this.lazyInBB && isGeneric) {
+				glcc = new GenericLazyCBCycle(formulation, 500);
+				glcc.use();
+			}
+			else if(this.lazyInBB) {
 				lcc = new LazyCBCycle(formulation, 500);
 //				acc = new FastCutCallback(formulation, 500);
 				formulation.getCplex().use(lcc);
 				addedCuts = lcc.getAddedCuts();
 			}
 			
+			useHeuristicCallback(!isGeneric && (this.userCutInBB || this.lazyInBB));
+			
 			formulation.getCplex().setParam(IloCplex.Param.Threads, this.nbThread);
 
 			
@@ -530,15 +547,16 @@ public class CPVertex extends AbstractCuttingPlane<AbstractFormulation>{
 			formulation.getCplex().solve();
 			cpresult.time += formulation.getCplex().getCplexTime();
 			cpresult.getResults(formulation, acc, false);
+			formulation.shutdownSeparationPool();
 
 
 			
 			if(this.userCutInBB) {
-				addedCuts.addAll(acc.getAddedCuts());
+				addedCuts.addAll(isGeneric ? gacc.getAddedCuts() : acc.getAddedCuts());
 			}
 			
 			if(this.lazyInBB) {
-				addedCuts.addAll(lcc.getAddedCuts());
+				addedCuts.addAll(isGeneric ? glcc.getAddedCuts() : lcc.getAddedCuts());
 			}
 
 			
@@ -710,7 +728,7 @@ public class CPVertex extends AbstractCuttingPlane<AbstractFormulation>{
 			for(Edge e : formulation.getEdges()){
 				int i = e.getSource();
 				int j = e.getDest();
-				double val = formulation.variableGetter().getValue(formulation.edgeVar(i, j));
+				double val = formulation.variableGetter().getEdgeValue(formulation, i, j);
 					
 				if(!isInteger(val)){
 					result = false;
@@ -729,6 +747,8 @@ public class CPVertex extends AbstractCuttingPlane<AbstractFormulation>{
 	
 	@Override
 	public AbstractMIPStartGenerate initializeMIPStartGenerator() {
+		if(formulation.p.pivotRoundingNb > 0)
+			return pivotRoundingBatch();
 		return new PrimalHeuristicRounding(formulation);	
 	}
 
@@ -0,0 +1,200 @@
+package cutting_plane;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import formulation.AbstractFormulation;
+import inequality_family.AbstractInequality;
+import inequality_family.CutKey;
+import inequality_family.InequalityStore;
+
+/**
+ * Pool of all the cuts generated during the Cutting Plane approach.
+ * Each cut is identified by its canonical key (see CutKey), so that a cut
+ *  which is generated again by a separation method (or by another one) is
+ *  recognized and not added twice into the CPLEX model.
+ * 
+ * The cuts removed from the model because they are untight are kept in the pool
+ *  as inactive cuts. At the beginning of an iteration, the inactive cuts violated by
+ *  the current relaxation are re-activated, which is much cheaper than running the
+ *  separation methods. An inactive cut which is not re-activated after 'maxAge' 
+ *  iterations is forgotten.
+ * 
+ * The pool keeps all its cuts in a compact InequalityStore. The inequality object of
+ *  an inactive cut is released, its slack is evaluated from the store and the object is
+ *  only created again if the cut is re-activated.
+ *
+ */
+public class CutPool {
+
+	/**
+	 * A cut of the pool
+	 */
+	public class Entry{
+		
+		/* the cut (null if the cut is inactive) */
+		public AbstractInequality<? extends AbstractFormulation> ineq;
+		
+		/* id of the cut in the store */
+		int row;
+		
+		/* id of the separation method which generated the cut (index in AbstractCuttingPlane.sep) */
+		public int sepId;
+		
+		/* true if the cut is currently in the CPLEX model */
+		public boolean isActive = true;
+		
+		/* number of iterations since the cut has been removed from the model */
+		public int age = 0;
+		
+		public Entry(AbstractInequality<? extends AbstractFormulation> ineq, int sepId){
+			this.ineq = ineq;
+			this.sepId = sepId;
+			this.row = store.add(ineq);
+		}
+	}
+	
+	HashMap<CutKey, Entry> entries = new HashMap<>();
+	InequalityStore store;
+	
+	int maxAge;
+	
+	/* the number of cuts re-activated from the pool */
+	public int reactivatedNb = 0;
+	
+	/* the number of cuts not added since they were already in the model */
+	public int duplicateNb = 0;
+
+	public CutPool(AbstractFormulation formulation, int maxAge){
+		this.store = new InequalityStore(formulation);
+		this.maxAge = maxAge;
+	}
+	
+	
+	/**
+	 * Register a cut which is going to be added into the model.
+	 * 
+	 * @param ineq  the cut
+	 * @param sepId  id of the separation method which generated the cut
+	 * @return False if the same cut is already in the model; true otherwise
+	 */
+	public boolean add(AbstractInequality<? extends AbstractFormulation> ineq, int sepId){
+		
+		CutKey key = ineq.getCutKey();
+		Entry e = entries.get(key);
+		
+		if(e == null){
+			entries.put(key, new Entry(ineq, sepId));
+			return true;
+		}
+		
+		if(e.isActive){
+			duplicateNb++;
+			return false;
+		}
+		
+		/* The cut was removed from the model, it is added again with the new object
+		 *  (the store already contains it) */
+		e.ineq = ineq;
+		e.sepId = sepId;
+		e.isActive = true;
+		e.age = 0;
+		reactivatedNb++;
+		return true;
+	}
+	
+	
+	/**
+	 * Keep only the cuts of <r> which are not already in the model
+	 * 
+	 * @param r  cuts generated by a separation method
+	 * @param sepId  id of this separation method
+	 * @return the new cuts
+	 */
+	public ArrayList<AbstractInequality<? extends AbstractFormulation>> filter(
+			ArrayList<AbstractInequality<? extends AbstractFormulation>> r, int sepId){
+		
+		ArrayList<AbstractInequality<? extends AbstractFormulation>> result = new ArrayList<>();
+		
+		for(AbstractInequality<? extends AbstractFormulation> ri : r)
+			if(add(ri, sepId))
+				result.add(ri);
+		
+		return result;
+	}
+	
+	
+	/**
+	 * Indicate that a cut has been removed from the model
+	 */
+	public void deactivate(AbstractInequality<? extends AbstractFormulation> ineq){
+		
+		Entry e = entries.get(ineq.getCutKey());
+		
+		if(e != null){
+			e.isActive = false;
+			e.age = 0;
+			e.ineq = null;
+		}
+	}
+	
+	
+	/**
+	 * Find the inactive cuts violated by the current solution and set them active.
+	 * The returned cuts must be added into the model by the caller.
+	 * 
+	 * @param x  edge values of the current solution (see VariableGetter.getEdgeSnapshot())
+	 * @param eps  minimal violation of a re-activated cut
+	 * @return the re-activated cuts
+	 */
+	public ArrayList<Entry> reactivateViolatedCuts(double[] x, double eps){
+		
+		ArrayList<Entry> result = new ArrayList<>();
+		
+		for(Entry e : entries.values())
+			if(!e.isActive && store.slack(e.row, x) < -eps){
+				e.isActive = true;
+				e.age = 0;
+				e.ineq = store.materialize(e.row);
+				result.add(e);
+			}
+		
+		reactivatedNb += result.size();
+		
+		return result;
+	}
+	
+	
+	/**
+	 * Increase the age of the inactive cuts and forget the ones older than 'maxAge'
+	 */
+	public void age(){
+		
+		Iterator<Entry> it = entries.values().iterator();
+		
+		while(it.hasNext()){
+			Entry e = it.next();
+			
+			if(!e.isActive){
+				e.age++;
+				if(e.age > maxAge){
+					store.remove(e.row);
+					it.remove();
+				}
+			}
+		}
+		
+		/* Free the space of the forgotten cuts once they represent half of the store */
+		if(store.removedNb() > store.size() / 2){
+			int[] newRow = store.compact();
+			for(Entry e : entries.values())
+				e.row = newRow[e.row];
+		}
+	}
+	
+	public int size(){
+		return entries.size();
+	}
+	
+}
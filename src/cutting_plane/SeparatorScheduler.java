@@ -0,0 +1,230 @@
+package cutting_plane;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import results.ComputeResults;
+
+
+/**
+ * Adaptive order of the separation algorithms in the rounds of the cutting plane step
+ *  (used instead of the fixed order and of the 'isQuick' flags of CP_Separation).
+ *
+ * For each separation algorithm, the scheduler measures the time of its calls, the number
+ *  of violated cuts it finds and the improvement of the relaxation it contributes to (the improvement
+ *  obtained after a round is shared between the algorithms according to the number of cuts they added).
+ *  These statistics are discounted at each update, so that the recent rounds matter more
+ *  (the best algorithms change as the relaxation gets tighter).
+ *
+ * The score of an algorithm is its yield by second (cuts and improvement, each one normalized
+ *  by its total over all the algorithms), increased by an exploration term as in the UCB1 policy
+ *  of the multi-armed bandit problem. An algorithm which has never been used has an infinite score.
+ *
+ * An algorithm which does not find any cut in several consecutive calls is cooled down: it is
+ *  skipped during 2^k-1 rounds (k: number of fruitless calls, the skipped rounds are bounded by MAX_COOLDOWN)
+ *  unless no other algorithm finds a cut.
+ */
+public class SeparatorScheduler {
+
+	/** Factor applied to the statistics of an algorithm at each update */
+	static final double DECAY = 0.8;
+
+	/** Weight of the improvement of the relaxation in the yield (the weight of the cuts is 1) */
+	static final double BOUND_WEIGHT = 1.0;
+
+	/** Minimal time of a call (in seconds) */
+	static final double MIN_TIME = 1E-3;
+
+	/** Once a cut is found in a round, an algorithm is only used if its score is at least QUICK_RATIO times the best score */
+	static final double QUICK_RATIO = 0.25;
+
+	static final int MAX_COOLDOWN = 8;
+
+	int nb;
+
+	/* Discounted statistics of each algorithm */
+	double[] time;
+	double[] cuts;
+	double[] gain;
+	int[] calls;
+	int totalCalls = 0;
+
+	/* Number of consecutive calls without cut and number of rounds to skip */
+	int[] fruitless;
+	int[] cooldown;
+	boolean[] isUsedInRound;
+
+	/* Number of cuts added by each algorithm since the last relaxation */
+	int[] lastRoundCuts;
+	double lastRelaxation = Double.NaN;
+
+	public SeparatorScheduler(int nb) {
+		this.nb = nb;
+
+		time = new double[nb];
+		cuts = new double[nb];
+		gain = new double[nb];
+		calls = new int[nb];
+		fruitless = new int[nb];
+		cooldown = new int[nb];
+		isUsedInRound = new boolean[nb];
+		lastRoundCuts = new int[nb];
+	}
+
+
+	/**
+	 * @return the ids of the algorithms by decreasing score
+	 */
+	public int[] order() {
+
+		final double[] score = new double[nb];
+		Integer[] ids = new Integer[nb];
+		for(int s = 0 ; s < nb ; ++s) {
+			score[s] = score(s);
+			ids[s] = s;
+		}
+
+		/* Stable sort: the algorithms with the same score remain in the initial order */
+		Arrays.sort(ids, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer s1, Integer s2) {
+				return Double.compare(score[s2], score[s1]);
+			}
+		});
+
+		int[] result = new int[nb];
+		for(int s = 0 ; s < nb ; ++s)
+			result[s] = ids[s];
+		return result;
+	}
+
+
+	public double score(int s) {
+
+		if(calls[s] == 0)
+			return Double.POSITIVE_INFINITY;
+
+		double totalCuts = 0.0;
+		double totalGain = 0.0;
+		for(int k = 0 ; k < nb ; ++k) {
+			totalCuts += cuts[k];
+			totalGain += gain[k];
+		}
+
+		double yield = 0.0;
+		if(totalCuts > 0)
+			yield += cuts[s] / totalCuts;
+		if(totalGain > 0)
+			yield += BOUND_WEIGHT * gain[s] / totalGain;
+
+		yield /= Math.max(MIN_TIME, time[s]);
+
+		return yield * (1.0 + Math.sqrt(2.0 * Math.log(Math.max(1, totalCalls)) / calls[s]));
+	}
+
+
+	/**
+	 * @return the best finite score (0 if no algorithm has been used)
+	 */
+	public double bestScore() {
+		double best = 0.0;
+		for(int s = 0 ; s < nb ; ++s)
+			if(calls[s] > 0)
+				best = Math.max(best, score(s));
+		return best;
+	}
+
+
+	/**
+	 * @return the expected time of the next call of an algorithm (0 if it has never been used)
+	 */
+	public double expectedTime(int s) {
+		if(calls[s] == 0)
+			return 0.0;
+
+		/* Sum of the discount factors of the calls */
+		double weight = (1.0 - Math.pow(DECAY, calls[s])) / (1.0 - DECAY);
+		return time[s] / weight;
+	}
+
+
+	public boolean isCoolingDown(int s) {
+		return cooldown[s] > 0;
+	}
+
+
+	/**
+	 * Register a call of an algorithm
+	 *
+	 * @param seconds  time of the call
+	 * @param cutNb  number of cuts found (and added to the model)
+	 */
+	public void record(int s, double seconds, int cutNb) {
+
+		time[s] = DECAY * time[s] + seconds;
+		cuts[s] = DECAY * cuts[s] + cutNb;
+		calls[s]++;
+		totalCalls++;
+
+		lastRoundCuts[s] += cutNb;
+		isUsedInRound[s] = true;
+
+		if(cutNb > 0) {
+			fruitless[s] = 0;
+			cooldown[s] = 0;
+		}
+		else {
+			fruitless[s]++;
+			cooldown[s] = Math.min(MAX_COOLDOWN, (1 << Math.min(fruitless[s], 30)) - 1);
+		}
+	}
+
+
+	/**
+	 * Decrease the number of rounds to skip of the algorithms which have not been used
+	 *  in the round (called at the end of each round)
+	 */
+	public void endRound() {
+		for(int s = 0 ; s < nb ; ++s) {
+			if(!isUsedInRound[s] && cooldown[s] > 0)
+				cooldown[s]--;
+			isUsedInRound[s] = false;
+		}
+	}
+
+
+	/**
+	 * Share the improvement of the relaxation between the algorithms which added cuts since the last relaxation
+	 *
+	 * @param relaxation  value of the new relaxation
+	 */
+	public void recordRelaxation(double relaxation) {
+
+		int cutNb = 0;
+		for(int s = 0 ; s < nb ; ++s)
+			cutNb += lastRoundCuts[s];
+
+		if(cutNb > 0 && !Double.isNaN(lastRelaxation)) {
+			double improvement = relaxation > lastRelaxation ?
+					ComputeResults.improvement(lastRelaxation, relaxation) : 0.0;
+
+			for(int s = 0 ; s < nb ; ++s)
+				if(lastRoundCuts[s] > 0)
+					gain[s] = DECAY * gain[s] + improvement * lastRoundCuts[s] / cutNb;
+		}
+
+		for(int s = 0 ; s < nb ; ++s)
+			lastRoundCuts[s] = 0;
+		lastRelaxation = relaxation;
+	}
+
+
+	/**
+	 * @return a summary of the statistics of an algorithm
+	 */
+	public String toString(int s) {
+		return "calls: " + calls[s] + ", expected time: " + ComputeResults.doubleToString(expectedTime(s), 3)
+				+ "s, score: " + ComputeResults.doubleToString(score(s), 3);
+	}
+
+}
@@ -0,0 +1,497 @@
+package decomposition;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import callback.generic_callback.GenericMultiStartHeuristicCallback;
+import callback.heuristic_callback.MultiStartHeuristicCallback;
+import callback.heuristic_callback.RoundingHeuristicCallback;
+import cplex.Cplex;
+import formulation.AbstractFormulation;
+import formulation.FormulationEdge;
+import formulation.FormulationVertex;
+import formulation.MyParam;
+import ilog.concert.IloException;
+import ilog.cplex.IloCplex;
+import mipstart.MultiStartHeuristic;
+import mipstart.PrimalHeuristicRounding;
+import mipstart.SolutionManager;
+
+
+/**
+ * Solve the CC problem independently on each connected component of the positive edges.
+ *
+ * Consider an optimal partition in which a cluster contains nodes of several such components.
+ *  Splitting this cluster along the components does not cut any positive edge and can only
+ *  remove negative edges from the cluster. Thus, there is an optimal partition in which each
+ *  cluster is contained in a single component, and the components can be solved separately.
+ *
+ * A component without internal negative edge (e.g. a single node) is trivial: it forms a
+ *  single cluster with a cost of 0. The other components are solved concurrently by the
+ *  Branch&Bound approach, each one with its own cplex object, a share of the threads and a share
+ *  of the remaining time (see timeLimit()). Their partitions are then stitched back together
+ *  into a partition of the whole graph.
+ *
+ */
+public class ComponentDecomposition {
+
+	MyParam rp;
+	String formulationType;
+	String outputDirPath;
+
+	/* Input graph: edge e is (ei[e], ej[e]) with weight w[e] */
+	int n;
+	int[] ei;
+	int[] ej;
+	double[] w;
+
+	/** Component of each node and nodes of each component */
+	public int[] component;
+	public ArrayList<ArrayList<Integer>> componentNodes;
+
+	/** Number of components which contain at least one negative edge */
+	public int nonTrivialNb = 0;
+
+	/** Partition of the whole graph (cluster ids start from 1) and its imbalance */
+	public int[] membership;
+	public double objective = -1.0;
+
+	/* Time (System.nanoTime()) at which solve() is called */
+	long startTime;
+
+	/* Number of components solved at the same time and number of nodes of the components which are not started yet */
+	int concurrency;
+	int pendingNodeNb;
+
+	/**
+	 * @param rp  parameters of the Branch&Bound approach; rp.inputFile is the whole graph,
+	 * 			rp.nbThread is the number of threads shared by all the components and rp.tilim
+	 * 			is the time limit of the whole decomposition
+	 * @param formulationType  "vertex" or "edge"
+	 * @param outputDirPath  directory in which the graph of each non trivial component is written
+	 */
+	public ComponentDecomposition(MyParam rp, String formulationType, String outputDirPath) {
+		this.rp = rp;
+		this.formulationType = formulationType;
+		this.outputDirPath = outputDirPath;
+
+		readGraph(rp.inputFile);
+		computeComponents();
+	}
+
+
+	/**
+	 * Read a graph in the same format as the formulations (see FormulationVertex.readGraphFromInputFile())
+	 */
+	private void readGraph(String fileName) {
+
+		ArrayList<int[]> pairs = new ArrayList<>();
+		ArrayList<Double> weights = new ArrayList<>();
+
+		try {
+			BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(fileName)));
+			String line = br.readLine();
+
+			/* Get the number of nodes from the first line */
+			n = Integer.parseInt(line.split("\t")[0]);
+
+			while ((line = br.readLine()) != null) {
+				String[] split = line.split("\t");
+
+				if (split.length >= 3) {
+					int i = Integer.parseInt(split[0]);
+					int j = Integer.parseInt(split[1]);
+					double weight = Double.parseDouble(split[2]);
+
+					if(i != j && weight != 0.0) {
+						pairs.add(new int[]{i, j});
+						weights.add(weight);
+					}
+				}
+			}
+			br.close();
+
+		} catch (Exception e) {
+			System.out.println(e.toString());
+		}
+
+		ei = new int[pairs.size()];
+		ej = new int[pairs.size()];
+		w = new double[pairs.size()];
+		for(int e = 0 ; e < w.length ; ++e) {
+			ei[e] = pairs.get(e)[0];
+			ej[e] = pairs.get(e)[1];
+			w[e] = weights.get(e);
+		}
+	}
+
+
+	/**
+	 * Connected components of the positive edges (breadth-first search)
+	 */
+	private void computeComponents() {
+
+		/* Adjacency lists of the positive edges in CSR format */
+		int[] start = new int[n+1];
+		for(int e = 0 ; e < w.length ; ++e)
+			if(w[e] > 0) {
+				start[ei[e]+1]++;
+				start[ej[e]+1]++;
+			}
+		for(int v = 0 ; v < n ; ++v)
+			start[v+1] += start[v];
+
+		int[] neighbor = new int[start[n]];
+		int[] fill = Arrays.copyOf(start, n);
+		for(int e = 0 ; e < w.length ; ++e)
+			if(w[e] > 0) {
+				neighbor[fill[ei[e]]++] = ej[e];
+				neighbor[fill[ej[e]]++] = ei[e];
+			}
+
+		component = new int[n];
+		Arrays.fill(component, -1);
+		componentNodes = new ArrayList<>();
+		int[] queue = new int[n];
+
+		for(int s = 0 ; s < n ; ++s)
+			if(component[s] == -1) {
+				int c = componentNodes.size();
+				ArrayList<Integer> nodes = new ArrayList<>();
+
+				int head = 0, tail = 0;
+				queue[tail++] = s;
+				component[s] = c;
+
+				while(head < tail) {
+					int v = queue[head++];
+					nodes.add(v);
+
+					for(int k = start[v] ; k < start[v+1] ; ++k)
+						if(component[neighbor[k]] == -1) {
+							component[neighbor[k]] = c;
+							queue[tail++] = neighbor[k];
+						}
+				}
+
+				Collections.sort(nodes);
+				componentNodes.add(nodes);
+			}
+	}
+
+
+	/**
+	 * Solve all the components and build the partition of the whole graph
+	 *
+	 * @param initMembership  known partition of the whole graph used as a MIP start
+	 * 			in each component (null if there is none)
+	 */
+	public void solve(final int[] initMembership) {
+
+		startTime = System.nanoTime();
+
+		/* Internal negative edges of each component */
+		boolean[] isTrivial = new boolean[componentNodes.size()];
+		Arrays.fill(isTrivial, true);
+		for(int e = 0 ; e < w.length ; ++e)
+			if(w[e] < 0 && component[ei[e]] == component[ej[e]])
+				isTrivial[component[ei[e]]] = false;
+
+		/* The largest components are solved first */
+		ArrayList<Integer> toSolve = new ArrayList<>();
+		for(int c = 0 ; c < componentNodes.size() ; ++c)
+			if(!isTrivial[c])
+				toSolve.add(c);
+		nonTrivialNb = toSolve.size();
+
+		Collections.sort(toSolve, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer c1, Integer c2) {
+				return componentNodes.get(c2).size() - componentNodes.get(c1).size();
+			}
+		});
+
+		System.out.println("Decomposition: " + componentNodes.size() + " components, "
+				+ nonTrivialNb + " of them are solved by cplex");
+
+		/* Share the threads between the components solved at the same time */
+		concurrency = Math.max(1, Math.min(rp.nbThread, nonTrivialNb));
+		final int threadsPerComponent = Math.max(1, rp.nbThread / concurrency);
+
+		pendingNodeNb = 0;
+		for(int c : toSolve)
+			pendingNodeNb += componentNodes.get(c).size();
+
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+		ArrayList<Future<List<TreeSet<Integer>>>> results = new ArrayList<>();
+
+		for(final int c : toSolve)
+			results.add(executor.submit(new Callable<List<TreeSet<Integer>>>() {
+				@Override
+				public List<TreeSet<Integer>> call() {
+					return solveComponent(c, threadsPerComponent, initMembership);
+				}
+			}));
+
+		executor.shutdown();
+
+		/* Stitch the partitions of the components */
+		membership = new int[n];
+		int clusterId = 1;
+
+		for(int c = 0 ; c < componentNodes.size() ; ++c)
+			if(isTrivial[c]) {
+				for(int v : componentNodes.get(c))
+					membership[v] = clusterId;
+				clusterId++;
+			}
+
+		for(int k = 0 ; k < toSolve.size() ; ++k) {
+			ArrayList<Integer> nodes = componentNodes.get(toSolve.get(k));
+			List<TreeSet<Integer>> clusters = null;
+
+			try {
+				clusters = results.get(k).get();
+			} catch (InterruptedException | ExecutionException e) {
+				e.printStackTrace();
+			}
+
+			/* If the component could not be solved (e.g. no time is left), the clusters of the initial
+			 *  partition are kept, or each of its nodes is put in its own cluster if there is none */
+			if(clusters == null) {
+				System.out.println("Component " + toSolve.get(k) + " has not been solved");
+				HashMap<Integer, Integer> initCluster = new HashMap<>();
+				for(int v : nodes)
+					if(initMembership == null)
+						membership[v] = clusterId++;
+					else {
+						if(!initCluster.containsKey(initMembership[v]))
+							initCluster.put(initMembership[v], clusterId++);
+						membership[v] = initCluster.get(initMembership[v]);
+					}
+			}
+			else
+				for(TreeSet<Integer> cluster : clusters) {
+					for(int local : cluster)
+						membership[nodes.get(local)] = clusterId;
+					clusterId++;
+				}
+		}
+
+		objective = evaluate(membership);
+		if(rp.kernel != null)
+			objective += rp.kernel.offset;
+		System.out.println("Objective (from decomposition): " + objective);
+	}
+
+
+	/**
+	 * Time limit of a component which is about to be solved: the remaining time of the decomposition
+	 *  is shared between the components which are not started yet in proportion to their number of
+	 *  nodes, knowing that 'concurrency' components are solved at the same time
+	 *
+	 * @return the time limit in seconds (-1 if rp.tilim is not set, 0 if the time limit is reached)
+	 */
+	synchronized double timeLimit(int c) {
+		int size = componentNodes.get(c).size();
+		double share = Math.min(1.0, (double) concurrency * size / pendingNodeNb);
+		pendingNodeNb -= size;
+
+		if(rp.tilim <= 0)
+			return -1;
+
+		double remaining = rp.tilim - (System.nanoTime() - startTime) / 1E9;
+		return Math.max(0.0, remaining * share);
+	}
+
+
+	/**
+	 * Solve a component with the Branch&Bound approach.
+	 * The heuristics of rp (heuristicTimeLimit and nodeHeuristicFrequency) are used as in MainExCC,
+	 *  within the time limit of the component.
+	 *
+	 * @return the clusters of the component (node ids local to the component) or null if an error occurred
+	 *  or if the time limit of the decomposition is reached
+	 */
+	List<TreeSet<Integer>> solveComponent(int c, int nbThread, int[] initMembership) {
+
+		ArrayList<Integer> nodes = componentNodes.get(c);
+		String fileName = outputDirPath + "/component" + c + ".G";
+
+		Cplex cplex = new Cplex();
+		MultiStartHeuristic heuristic = null;
+
+		try {
+			double tilim = timeLimit(c);
+			if(tilim == 0.0)
+				return null;
+
+			writeComponentGraph(c, fileName);
+
+			MyParam cp = new MyParam(rp);
+			cp.inputFile = fileName;
+			cp.cplex = cplex;
+			cp.nbThread = nbThread;
+			cp.tilim = tilim;
+
+			/* The component is a subgraph of the (possibly reduced) graph: the offset of the kernelization
+			 *  is added once to the objective of the whole partition */
+			cp.kernel = null;
+
+			/* The cycle inequalities of the edge formulation are generated lazily by createConstraints() */
+			AbstractFormulation p = null;
+			if(formulationType.equals("vertex"))
+				p = new FormulationVertex(cp);
+			else
+				p = new FormulationEdge(cp);
+
+			/* The formulation gives at least 10s to cplex, which could exceed the time limit of the decomposition */
+			if(cp.tilim > 0)
+				p.getCplex().setParam(IloCplex.DoubleParam.TiLim, cp.tilim);
+
+			if(initMembership != null) {
+				int[] localMembership = new int[nodes.size()];
+				for(int local = 0 ; local < nodes.size() ; ++local)
+					localMembership[local] = initMembership[nodes.get(local)];
+
+				SolutionManager mipStart = new PrimalHeuristicRounding(p).loadIntSolution(localMembership);
+				mipStart.setVar();
+				p.getCplex().iloCplex.addMIPStart(mipStart.var, mipStart.val);
+			}
+
+			if(cp.heuristicTimeLimit > 0) {
+				double heuristicTimeLimit = cp.tilim > 0 ? Math.min(cp.heuristicTimeLimit, cp.tilim) : cp.heuristicTimeLimit;
+				heuristic = new MultiStartHeuristic(p.graph, nbThread, MultiStartHeuristic.DEFAULT_SEED);
+				heuristic.start(heuristicTimeLimit);
+
+				/* The first solution of the heuristic is used as MIP start */
+				if(heuristic.awaitSolution(heuristicTimeLimit)) {
+					PrimalHeuristicRounding loader = new PrimalHeuristicRounding(p);
+					loader.improver = null;
+					SolutionManager mipStart = loader.loadIntSolution(heuristic.getBestMembership());
+					mipStart.setVar();
+					p.getCplex().iloCplex.addMIPStart(mipStart.var, mipStart.val);
+				}
+			}
+
+			if(cp.nodeHeuristicFrequency > 0 && !cp.genericCallback) {
+				RoundingHeuristicCallback rhc = new RoundingHeuristicCallback(p, cp.nodeHeuristicFrequency,
+						cp.tilim > 0 ? RoundingHeuristicCallback.TIME_SHARE * cp.tilim : -1);
+
+				/* Cplex only uses one heuristic callback */
+				rhc.heuristic = heuristic;
+				p.getCplex().use(rhc);
+			}
+			else if(heuristic != null) {
+				/* Legacy and generic callbacks cannot be mixed (see MainExCC) */
+				if(!cp.genericCallback && (formulationType.equals("edge") || cp.lazyInBB))
+					p.getCplex().use(new MultiStartHeuristicCallback(p, heuristic));
+				else
+					new GenericMultiStartHeuristicCallback(p, heuristic).use();
+			}
+
+			p.solve();
+			p.shutdownSeparationPool();
+			System.out.println("Component " + c + " (" + nodes.size() + " nodes): " + p.getCplex().getObjValue());
+
+			return p.retreiveClusters();
+
+		} catch (IloException | IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+		finally {
+			if(heuristic != null)
+				heuristic.stop();
+			cplex.end();
+		}
+	}
+
+
+	/**
+	 * Write the subgraph induced by a component, with the nodes renumbered from 0
+	 *  in increasing order of their id in the whole graph
+	 */
+	private void writeComponentGraph(int c, String fileName) throws IOException {
+
+		ArrayList<Integer> nodes = componentNodes.get(c);
+		int[] local = new int[n];
+		for(int k = 0 ; k < nodes.size() ; ++k)
+			local[nodes.get(k)] = k;
+
+		StringBuilder content = new StringBuilder();
+		int m = 0;
+		for(int e = 0 ; e < w.length ; ++e)
+			if(component[ei[e]] == c && component[ej[e]] == c) {
+				content.append(local[ei[e]] + "\t" + local[ej[e]] + "\t" + w[e] + "\n");
+				m++;
+			}
+
+		BufferedWriter writer = new BufferedWriter(new FileWriter(fileName));
+		writer.write(nodes.size() + "\t" + m + "\n");
+		writer.write(content.toString());
+		writer.close();
+	}
+
+
+	/**
+	 * Imbalance of a partition of the whole graph
+	 */
+	public double evaluate(int[] membership) {
+		double result = 0.0;
+
+		for(int e = 0 ; e < w.length ; ++e) {
+			if(membership[ei[e]] == membership[ej[e]] && w[e] < 0)
+				result -= w[e];
+			else if(membership[ei[e]] != membership[ej[e]] && w[e] > 0)
+				result += w[e];
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Write the partition of the whole graph (one cluster id per line),
+	 *  in terms of the vertices of the original graph if it has been reduced
+	 */
+	public void writeMembershipIntoFile(String outputDirPath, String fileName) {
+
+		int[] membership = this.membership;
+		if(rp.kernel != null)
+			membership = rp.kernel.expand(membership);
+
+		StringBuilder content = new StringBuilder();
+		for(int i = 0 ; i < membership.length ; i++) {
+			if(i > 0)
+				content.append("\n");
+			content.append(membership[i]);
+		}
+
+		try{
+			BufferedWriter writer = new BufferedWriter(new FileWriter(outputDirPath + "/" + fileName));
+			writer.write(content.toString());
+			writer.close();
+		} catch(IOException ioe){
+			System.out.print("Erreur in writing output file: ");
+			ioe.printStackTrace();
+		}
+	}
+
+}
@@ -0,0 +1,35 @@
+package formulation;
+
+
+/**
+ * Dense index of the edges (i,j) of a formulation.
+ * Each edge is associated to a slot in [0, size()[ which can be used 
+ *  to store the data related to the edge (variable, weight, value) 
+ *  in a primitive array, without allocating an Edge object for each lookup.
+ * 
+ * we can equally call slot(2,4) and slot(4,2)
+ *
+ */
+public abstract class AbstractEdgeIndex {
+
+	/* Number of nodes */
+	int n;
+	
+	public AbstractEdgeIndex(int n) {
+		this.n = n;
+	}
+	
+	/**
+	 * Get the slot of an edge.
+	 * @param i First node of the edge.
+	 * @param j Second node of the edge.
+	 * @return The slot of edge (ij) or -1 if the edge is not indexed.
+	 */
+	public abstract int slot(int i, int j);
+	
+	/**
+	 * Number of slots
+	 */
+	public abstract int size();
+	
+}
@@ -9,20 +9,22 @@ import java.io.OutputStream;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 
 import cplex.Cplex;
 import ilog.concert.IloException;
+import ilog.concert.IloLPMatrix;
 import ilog.concert.IloLinearNumExpr;
 import ilog.concert.IloNumVar;
+import ilog.concert.IloRange;
 import ilog.cplex.IloCplex;
 import ilog.cplex.IloCplex.UnknownObjectException;
-import myUtils.EdgeWeightedGraph;
+import myUtils.CSRGraph;
 import variable.CplexVariableGetter;
 import variable.VariableLister;
 import variable.VariableLister.VariableListerException;
@@ -46,19 +48,30 @@ public abstract class AbstractFormulation implements VariableValueProvider{
 	/* Number of points to cluster */
 	public int n;
 
-	public EdgeWeightedGraph g;
+	/* Input graph (built once, see CSRGraph) */
+	public CSRGraph graph;
 
-	public Map<Integer, Double> d; // store the weights of the edges
 	public Set<Edge> edges;
+	
+	/* Slot of each edge in 'd' and 'v_edge' (see createEdgeIndex()) */
+	public AbstractEdgeIndex edgeIndex;
+	
+	public double[] d; // store the weights of the edges, d[edgeIndex.slot(i,j)]
 
 	/**
-	 * Edges variables Array of n elements. v_edge[0] is empty v_edge[i]
-	 * contains an array of i variables (which corresponds to x0i, ..., xi-1,i)
-	 * for i=1..n-1
+	 * Edges variables. The variable x_ij is v_edge[edgeIndex.slot(i,j)]
 	 */
-	public Map<Integer, IloNumVar> v_edge;
+	public IloNumVar[] v_edge;
+	
+	/* Edge variables in a flat array and their pair index (see pairIndex()), in the same order.
+	 * They are built lazily and used to retrieve all the edge values with a single bulk call */
+	IloNumVar[] edgeVarArray = null;
+	int[] edgeVarPairIndex = null;
 
 
+	/* Threads of the separation algorithms which run in parallel (see separationPool()) */
+	ForkJoinPool separationPool = null;
+
 	public List<TreeSet<Integer>> clusters; // output
 	int[] membership;
 	
@@ -72,11 +85,15 @@ public abstract class AbstractFormulation implements VariableValueProvider{
 		
 		
 		edges = new HashSet<>();
-		d = new HashMap<Integer, Double>();
-		this.n = readGraphFromInputFile(rp.inputFile); // fill in 'edges' and 'd'
+		this.n = readGraphFromInputFile(rp.inputFile); // fill in 'edges'
+		
+		edgeIndex = createEdgeIndex();
+		d = new double[edgeIndex.size()];
+		for(Edge e : edges)
+			d[edgeIndex.slot(e.i, e.j)] = e.getWeight();
 		
 		cvg = new CplexVariableGetter(getCplex());
-		g = new EdgeWeightedGraph(n, edges, false);
+		graph = new CSRGraph(n, edges);
 		
 
 		if(!rp.cplexOutput)
@@ -93,7 +110,7 @@ public abstract class AbstractFormulation implements VariableValueProvider{
 			if(rp.LPFilePath.equals("")){
 				/* Create the model */
 				getCplex().iloCplex.clearModel();
-				getCplex().iloCplex.clearCallbacks();
+				getCplex().clearCallback();
 			}
 
 			/* Reinitialize the parameters to their default value */
@@ -140,6 +157,13 @@ public abstract class AbstractFormulation implements VariableValueProvider{
 	public abstract int readGraphFromInputFile(String fileName);
 	
 	
+	/**
+	 * Create the index which associates a slot in 'd' and 'v_edge' to each edge of the formulation.
+	 * It is called once 'n' and 'edges' are known.
+	 */
+	public abstract AbstractEdgeIndex createEdgeIndex();
+	
+	
 	public void readVarsFromLPModelFile() {
 
 		IloNumVar[] vars;
@@ -149,16 +173,17 @@ public abstract class AbstractFormulation implements VariableValueProvider{
 			vars = VariableLister.parse(getCplex().iloCplex);
 		    System.out.println("!!!!! " + vars.length);
 
-			v_edge = new HashMap<Integer, IloNumVar>();
+			v_edge = new IloNumVar[edgeIndex.size()];
+			edgeVarArray = null;
 
 			for(int a=0; a<vars.length; a++){
 				IloNumVar var = vars[a];
 				String[] parts = var.getName().split("_");
 				int i = Integer.parseInt(parts[1]);
 				int j = Integer.parseInt(parts[2]);
-				Edge e = new Edge(n, i, j);
-	            int pos = e.hashcode;
-	            v_edge.put(pos, var);
+	            int pos = edgeIndex.slot(i, j);
+	            if(pos != -1)
+	            	v_edge[pos] = var;
 			}
 			
 		    System.out.println("!!!!!");
@@ -220,14 +245,186 @@ public abstract class AbstractFormulation implements VariableValueProvider{
 	 * @throws IloException
 	 */
 	public IloNumVar edgeVar(int i, int j) throws IloException {
-		int pos = new Edge(n, i, j).hashcode;
-		return v_edge.get(pos);
+		int pos = edgeIndex.slot(i, j);
+		return pos == -1 ? null : v_edge[pos];
 	}
 	
 	
 	public double edgeWeight(int i, int j) throws IloException {
-		int pos = new Edge(n, i, j).hashcode;
-		return d.get(pos);
+		int pos = edgeIndex.slot(i, j);
+		return pos == -1 ? 0.0 : d[pos];
+	}
+	
+	
+	/**
+	 * Index of the pair (ij) in the edge index (i.e. its slot in 'd' and 'v_edge').
+	 * we can equally call pairIndex(2,4) and pairIndex(4,2)
+	 * 
+	 * @return an integer in [0, pairCount()[ or -1 if (ij) is not an edge of the formulation
+	 */
+	public int pairIndex(int i, int j) {
+		return edgeIndex.slot(i, j);
+	}
+	
+	
+	public int pairCount() {
+		return edgeIndex.size();
+	}
+	
+	
+	/**
+	 * Pool of p.nbSeparationThread threads shared by all the separation algorithms of the formulation
+	 *  which run in parallel (e.g. SeparationTriangle). It is created at the first call, and it must be
+	 *  released with shutdownSeparationPool() by the approach which solves the formulation
+	 */
+	public synchronized ForkJoinPool separationPool() {
+		if(separationPool == null)
+			separationPool = new ForkJoinPool(Math.max(1, p.nbSeparationThread));
+		return separationPool;
+	}
+	
+	/**
+	 * Stop the threads of the separation pool (a new pool is created if a separation needs it again)
+	 */
+	public synchronized void shutdownSeparationPool() {
+		if(separationPool != null){
+			separationPool.shutdown();
+			separationPool = null;
+		}
+	}
+	
+	
+	/**
+	 * Number of rows given to CPLEX at once by addTriangleRows()
+	 */
+	static final int TRIANGLE_BATCH_SIZE = 50000;
+	
+	/**
+	 * Add the triangle inequalities of the formulation (see TriangleRows) into the model.
+	 * The rows are added by batches into an IloLPMatrix directly from index arrays,
+	 *  without creating an expression for each inequality.
+	 * 
+	 * @param isReducedForm  true if only the triangle inequalities of the reduced form are added
+	 * @return the number of added rows
+	 * @throws IloException
+	 */
+	public int addTriangleRows(boolean isReducedForm) throws IloException {
+		
+		IloNumVar[] vars = edgeVarArray();
+		int[] varPair = edgeVarPairIndex();
+		
+		IloLPMatrix lp = getCplex().iloCplex.addLPMatrix("triangles");
+		
+		/* Column of each pair in the matrix */
+		int firstColumn = lp.addCols(vars);
+		int[] column = new int[pairCount()];
+		Arrays.fill(column, -1);
+		for(int c = 0 ; c < vars.length ; ++c)
+			column[varPair[c]] = firstColumn + c;
+		
+		TriangleRows rows = new TriangleRows(this, column, isReducedForm, TRIANGLE_BATCH_SIZE);
+		
+		while(rows.next())
+			if(rows.size == TRIANGLE_BATCH_SIZE)
+				lp.addRows(rows.lb, rows.ub, rows.ind, rows.val);
+			else
+				lp.addRows(Arrays.copyOf(rows.lb, rows.size), Arrays.copyOf(rows.ub, rows.size),
+						Arrays.copyOf(rows.ind, rows.size), Arrays.copyOf(rows.val, rows.size));
+		
+		return rows.count;
+	}
+	
+	
+	/**
+	 * Register the triangle inequalities of the formulation (see TriangleRows) in the lazy
+	 *  constraint pool of CPLEX. CPLEX then checks them itself at each integer solution and
+	 *  only adds the violated ones to the model, without calling a Java callback.
+	 * The ranges are given to CPLEX by batches of TRIANGLE_BATCH_SIZE inequalities.
+	 * 
+	 * @param isReducedForm  true if only the triangle inequalities of the reduced form are registered
+	 * @return the number of registered inequalities
+	 * @throws IloException
+	 */
+	public int addTriangleLazyConstraints(boolean isReducedForm) throws IloException {
+		
+		IloNumVar[] vars = edgeVarArray();
+		int[] varPair = edgeVarPairIndex();
+		
+		/* Position in 'vars' of the variable of each pair */
+		int[] column = new int[pairCount()];
+		Arrays.fill(column, -1);
+		for(int c = 0 ; c < vars.length ; ++c)
+			column[varPair[c]] = c;
+		
+		IloCplex iloCplex = getCplex().iloCplex;
+		TriangleRows rows = new TriangleRows(this, column, isReducedForm, TRIANGLE_BATCH_SIZE);
+		IloRange[] ranges = new IloRange[TRIANGLE_BATCH_SIZE];
+		IloNumVar[] rowVars = new IloNumVar[3];
+		
+		while(rows.next()){
+			
+			for(int r = 0 ; r < rows.size ; ++r){
+				int[] ind = rows.ind[r];
+				rowVars[0] = vars[ind[0]];
+				rowVars[1] = vars[ind[1]];
+				rowVars[2] = vars[ind[2]];
+				ranges[r] = iloCplex.le(iloCplex.scalProd(TriangleRows.COEFFICIENTS, rowVars), rows.ub[r]);
+			}
+			
+			if(rows.size == TRIANGLE_BATCH_SIZE)
+				iloCplex.addLazyConstraints(ranges);
+			else
+				iloCplex.addLazyConstraints(Arrays.copyOf(ranges, rows.size));
+		}
+		
+		return rows.count;
+	}
+	
+	
+	/**
+	 * Get all the edge variables in a flat array (see also edgeVarPairIndex())
+	 */
+	public IloNumVar[] edgeVarArray() {
+		if(edgeVarArray == null)
+			buildEdgeVarArray();
+		return edgeVarArray;
+	}
+	
+	
+	/**
+	 * Get the pair index of each variable returned by edgeVarArray()
+	 */
+	public int[] edgeVarPairIndex() {
+		if(edgeVarArray == null)
+			buildEdgeVarArray();
+		return edgeVarPairIndex;
+	}
+	
+	
+	private void buildEdgeVarArray() {
+		int size = 0;
+		for(int pos = 0 ; pos < v_edge.length ; ++pos)
+			if(v_edge[pos] != null)
+				size++;
+		
+		/* If all the slots have a variable, 'v_edge' can be used directly */
+		if(size == v_edge.length){
+			edgeVarPairIndex = new int[size];
+			for(int pos = 0 ; pos < size ; ++pos)
+				edgeVarPairIndex[pos] = pos;
+			edgeVarArray = v_edge;
+			return;
+		}
+		
+		edgeVarArray = new IloNumVar[size];
+		edgeVarPairIndex = new int[size];
+		int k = 0;
+		for(int pos = 0 ; pos < v_edge.length ; ++pos)
+			if(v_edge[pos] != null){
+				edgeVarArray[k] = v_edge[pos];
+				edgeVarPairIndex[k] = pos;
+				k++;
+			}
 	}
 
 
@@ -242,7 +439,7 @@ public abstract class AbstractFormulation implements VariableValueProvider{
 
 
 	public boolean isInSameConnComp(int i, int j){
-		return(this.g.isInSameConnComp(i, j));
+		return(this.graph.isInSameConnComp(i, j));
 	}
 
 
@@ -336,19 +533,20 @@ public abstract class AbstractFormulation implements VariableValueProvider{
 	 */
 	void createVariables() throws IloException {
 
-		v_edge = new HashMap<Integer, IloNumVar>();
+		v_edge = new IloNumVar[edgeIndex.size()];
+		edgeVarArray = null;
 		//getCplex().iloCplex.conversion(v_edge[i], IloNumVarType.Float);
 
 		/* For each edge */
 		for(Edge e : edges) {
-			int pos = e.hashcode;
+			int pos = edgeIndex.slot(e.i, e.j);
 			if(p.isInt)
-				v_edge.put(pos, getCplex().iloCplex.intVar(0,1));
+				v_edge[pos] = getCplex().iloCplex.intVar(0,1);
 			else
-				v_edge.put(pos, getCplex().iloCplex.numVar(0,1));
+				v_edge[pos] = getCplex().iloCplex.numVar(0,1);
 
-			v_edge.get(pos).setName("x_" + e.i + "_" + e.j);
-			getCplex().iloCplex.add(v_edge.get(pos));
+			v_edge[pos].setName("x_" + e.i + "_" + e.j);
+			getCplex().iloCplex.add(v_edge[pos]);
 		}
 
 	}
@@ -386,6 +584,10 @@ public abstract class AbstractFormulation implements VariableValueProvider{
 				obj.addTerm(Math.abs(e.getWeight()), edgeVar(e.i,e.j));
 		}
 
+		/* The imbalance of the edges removed by the kernelization (p.kernel.offset) is not in the
+		 *  model, so that the objective of cplex is the one of the heuristics on the reduced graph.
+		 *  It is only added when the objective is reported (e.g. computeObjectiveValueFromClusters()) */
+
 		//		cplex.addMinimize(obj);
 		getCplex().iloCplex.addMinimize(getCplex().iloCplex.sum(obj, sum));
 
@@ -507,6 +709,9 @@ public abstract class AbstractFormulation implements VariableValueProvider{
 
 			}
 
+			if(p.kernel != null)
+				obj += p.kernel.offset;
+
 			System.out.println("Objective (from model): "+ obj);
 
 			System.out.println(" ");
@@ -547,6 +752,9 @@ public abstract class AbstractFormulation implements VariableValueProvider{
 				obj -= e.getWeight();
 		}
 
+		if(p.kernel != null)
+			obj += p.kernel.offset;
+
 		System.out.println("Objective (from membership): " + obj);
 
 	}
@@ -841,8 +1049,13 @@ public abstract class AbstractFormulation implements VariableValueProvider{
 	public void writeMembershipIntoFile(String outputDirPath, String fileName){
 		String filepath = outputDirPath + "/" + fileName;
 		
+		/* The solution is written in terms of the vertices of the original graph */
+		int[] membership = this.membership;
+		if(p.kernel != null)
+			membership = p.kernel.expand(membership);
+		
 		String content = "";
-		for(int i=0; i<n; i++){ // for each node
+		for(int i=0; i<membership.length; i++){ // for each node
 			if(!content.equals(""))
 				content += "\n";
 			content += membership[i];
@@ -10,6 +10,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
+import callback.generic_callback.GenericLazyCBCycle;
 import callback.lazy_callback.LazyCBCycle;
 import formulation.MyParam.Transitivity;
 import ilog.concert.IloException;
@@ -45,6 +46,10 @@ import myUtils.EdgeWeightedGraph;
  */
 public class FormulationEdge extends AbstractFormulation {
 
+	/** Lazy callback of the cycle inequalities registered in cplex (null if none, see useLazyCBCycle()) */
+	public LazyCBCycle lazyCBCycle = null;
+	public GenericLazyCBCycle genericLazyCBCycle = null;
+
 
 	public FormulationEdge(MyParam rp) {
 		super(rp);
@@ -94,8 +99,6 @@ public class FormulationEdge extends AbstractFormulation {
 						Edge e = new Edge(n, i, j);
 						e.setWeight(w);
 						edges.add(e);
-						int pos = e.hashcode;
-						d.put(pos, w);
 					}
 				} else
 					System.err.println(
@@ -112,6 +115,15 @@ public class FormulationEdge extends AbstractFormulation {
 		return(n);
 	}
 	
+	/**
+	 * There is a variable for each edge of the input graph only
+	 */
+	@Override
+	public AbstractEdgeIndex createEdgeIndex() {
+		return new SparseEdgeIndex(n, edges);
+	}
+	
+	
 	
 
 	public void registerLPmodel(String filenameLP,
@@ -243,13 +255,54 @@ public class FormulationEdge extends AbstractFormulation {
 				|| (rp.transitivity == Transitivity.USE_LAZY_IN_BC_ONLY && p.isInt == true)){
 			System.out.println("!!!!!!! " + "LazyCBCycle");
 
-			getCplex().use(new LazyCBCycle(this, 500));
+			useLazyCBCycle();
+		}
+		else if(rp.transitivity == Transitivity.USE_LAZY_POOL
+				|| (rp.transitivity == Transitivity.USE_LAZY_POOL_IN_BC_ONLY && p.isInt == true)){
+			/* The pool only contains the triangles of the graph: the longer cycles are still generated by the callback */
+			int count = addTriangleLazyConstraints(p.triangleIneqReducedForm);
+			System.out.println("nb triangles in the lazy constraint pool: " + count);
+
+			useLazyCBCycle();
 		}
 		else
 			System.out.println("\n!!Don't add any cycle constraints or lazy callback");
 	}
 
 
+	/**
+	 * Generate the cycle inequalities lazily, with a generic callback if p.genericCallback is true
+	 *  and with a legacy lazy callback otherwise.
+	 * The callback is registered only once, even if this method is called several times
+	 *  (e.g. by createConstraints() and then by the branch and cut)
+	 */
+	public void useLazyCBCycle() throws IloException {
+		if(lazyCBCycle != null || genericLazyCBCycle != null)
+			return;
+		
+		if(p.genericCallback) {
+			genericLazyCBCycle = new GenericLazyCBCycle(this, 500);
+			genericLazyCBCycle.use();
+		}
+		else {
+			lazyCBCycle = new LazyCBCycle(this, 500);
+			getCplex().use(lazyCBCycle);
+		}
+	}
+
+
+	/**
+	 * @return the cycle inequalities added by the lazy callback (empty if no callback is registered)
+	 */
+	public ArrayList<AbstractInequality<? extends AbstractFormulation>> getLazyCBCycleAddedCuts() {
+		if(genericLazyCBCycle != null)
+			return genericLazyCBCycle.getAddedCuts();
+		if(lazyCBCycle != null)
+			return lazyCBCycle.getAddedCuts();
+		return new ArrayList<>();
+	}
+
+
 
  
 	
@@ -5,10 +5,10 @@ import java.io.FileInputStream;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 
+import callback.generic_callback.GenericLazyCBTriangle;
 import callback.lazy_callback.LazyCBTriangle;
 import formulation.MyParam.Transitivity;
 import ilog.concert.IloException;
-import inequality_family.Triangle_Inequality;
 
 public class FormulationVertex extends AbstractFormulation {
 	
@@ -65,8 +65,6 @@ public class FormulationVertex extends AbstractFormulation {
 					Edge e = new Edge(n, i, j);
 					e.setWeight(adj[i][j]);
 					edges.add(e);
-					int pos = e.hashcode;
-					d.put(pos, adj[i][j]);
 				}
 			}
 			
@@ -79,6 +77,15 @@ public class FormulationVertex extends AbstractFormulation {
 		return(n);
 	}
 	
+	/**
+	 * There is a variable for each pair of nodes
+	 */
+	@Override
+	public AbstractEdgeIndex createEdgeIndex() {
+		return new TriangularEdgeIndex(n);
+	}
+	
+	
 
 	public void createConstraints(MyParam rp) throws IloException{
 
@@ -99,7 +106,15 @@ public class FormulationVertex extends AbstractFormulation {
 		else if(rp.transitivity == Transitivity.USE_LAZY
 				|| (rp.transitivity == Transitivity.USE_LAZY_IN_BC_ONLY && p.isInt == true)){
 			System.out.println("\n!!Add lazy CB in BC");
-			getCplex().use(new LazyCBTriangle(this, 500,  p.triangleIneqReducedForm));
+			if(p.genericCallback)
+				new GenericLazyCBTriangle(this, 500, p.triangleIneqReducedForm).use();
+			else
+				getCplex().use(new LazyCBTriangle(this, 500,  p.triangleIneqReducedForm));
+		}
+		else if(rp.transitivity == Transitivity.USE_LAZY_POOL
+				|| (rp.transitivity == Transitivity.USE_LAZY_POOL_IN_BC_ONLY && p.isInt == true)){
+			int count = addTriangleLazyConstraints(p.triangleIneqReducedForm);
+			System.out.println("\n!!Add " + count + " triangle constraints to the lazy constraint pool");
 		}
 		else {
 			System.out.println("\n!!Don't add triangle or lazy callback for triangles");
@@ -113,44 +128,16 @@ public class FormulationVertex extends AbstractFormulation {
 	/**
 	 * Add triangular constraints : xi,j + xi,k - xj,k <= 1 - if i is with j and
 	 * k, then j and k are together
-	 * @param solution 
+	 * 
+	 * The rows are added by batches (see addTriangleRows()) 
 	 * 
 	 * @throws IloException
 	 */
 	void createTriangleConstraints() throws IloException {
 
-        int count = 0;
-		for (int i = 0; i < n - 2; ++i)
-			for (int j = i + 1; j < n - 1; ++j)
-				for (int k = j + 1; k < n; ++k) {
-					Triangle_Inequality ineq1 = new Triangle_Inequality(this, i, j, k, p.triangleIneqReducedForm);
-
-					if(!ineq1.isReducedForm || (ineq1.isReducedForm && ineq1.isInReducedForm())){
-						getCplex().addRange(ineq1.createRange());
-                        count++;
-					}
-					
-					Triangle_Inequality ineq2 = new Triangle_Inequality(this, j, i, k, p.triangleIneqReducedForm);
-					if(!ineq2.isReducedForm || (ineq2.isReducedForm && ineq2.isInReducedForm())){
-						getCplex().addRange(ineq2.createRange());
-                        count++;
-					}
-					
-					Triangle_Inequality ineq3 = new Triangle_Inequality(this, k, i, j, p.triangleIneqReducedForm);
-					if(!ineq3.isReducedForm || (ineq3.isReducedForm && ineq3.isInReducedForm())){
-						getCplex().addRange(ineq3.createRange());
-                        count++;
-					}
-					
-//					IloLinearNumExpr expr3 = getCplex().linearNumExpr();
-//					expr3.addTerm(1.0, v_edge[k][i]);
-//					expr3.addTerm(1.0, v_edge[k][j]);
-//					
-//					expr3.addTerm(-1.0, v_edge[j][i]);
-//					getCplex().addLe(expr3, 1.0);
-				}
+		int count = addTriangleRows(p.triangleIneqReducedForm);
 
-			System.out.println("nb triangles added: " + count);
+		System.out.println("nb triangles added: " + count);
 	}
 
 
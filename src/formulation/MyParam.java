@@ -1,6 +1,7 @@
 package formulation;
 
 import cplex.Cplex;
+import kernelization.Kernelization;
 
 public class MyParam extends PartitionParam{
 	public boolean useLower = true;
@@ -11,6 +12,29 @@ public class MyParam extends PartitionParam{
 	public boolean lazyInBB = false;
 	public String LPFilePath = "";
 	public boolean triangleIneqReducedForm = false;
+	/* Number of threads used by the separation algorithms which can run in parallel.
+	 *  It is independent of 'nbThread', which is the number of threads used by cplex */
+	public int nbSeparationThread = 1;
+	/* True if the callbacks use the generic callback API of cplex (see AbstractGenericCallback) 
+	 *  rather than the legacy control callbacks */
+	public boolean genericCallback = false;
+	/* Reduction applied to the input graph before the creation of the formulation (null if none).
+	 *  It is used to write the solutions in terms of the original vertices */
+	public Kernelization kernel = null;
+	/* True if the order of the separation algorithms of the cutting plane step is adapted
+	 *  to their measured yield (see SeparatorScheduler) */
+	public boolean adaptiveSeparation = false;
+	/* True if the separation algorithms of the cutting plane step are run concurrently */
+	public boolean concurrentSeparation = false;
+	/* Time limit in seconds of the multi-start heuristic run alongside cplex (see MultiStartHeuristic).
+	 *  The heuristic is not used if it is not positive */
+	public double heuristicTimeLimit = -1;
+	/* Number of nodes of the branch and bound between two roundings of the node relaxation
+	 *  (see RoundingHeuristicCallback). The rounding is not used if it is not positive */
+	public int nodeHeuristicFrequency = -1;
+	/* Number of partitions generated by randomized pivot rounding from the relaxation by the primal heuristic
+	 *  of the cutting plane step (see PivotRoundingBatch). Only the greedy rounding is used if it is not positive */
+	public int pivotRoundingNb = -1;
 	
 	/**
 	 * Specify how the triangle inequalities must be used
@@ -23,11 +47,15 @@ public class MyParam extends PartitionParam{
 	 * 		the relaxation until the other separation algorithms are called)
 	 * USE_IN_BC_ONLY : the triangle inequalities are generated like other families
 	 * 		 in the cutting plane step; they are added to the model during the branch and cut step 
+	 * USE_LAZY_POOL : the triangle inequalities are registered in the lazy constraint pool
+	 * 		 of cplex, which checks them at each integer solution (no callback is used)
+	 * USE_LAZY_POOL_IN_BC_ONLY : Same as USE_LAZY_POOL but the triangle inequalities are
+	 * 		 generated like other families in the cutting plane step
 	 * @author zach
 	 *
 	 */
 	public enum Transitivity{
-		USE, USE_LAZY, USE_LAZY_IN_BC_ONLY, USE_IN_BC_ONLY
+		USE, USE_LAZY, USE_LAZY_IN_BC_ONLY, USE_IN_BC_ONLY, USE_LAZY_POOL, USE_LAZY_POOL_IN_BC_ONLY
 	}
 	
 	public MyParam(String inputFile, Cplex cplex){
@@ -42,6 +70,14 @@ public class MyParam extends PartitionParam{
 		this.nbThread = pCopy.nbThread;
 		this.LPFilePath = pCopy.LPFilePath;
 		this.triangleIneqReducedForm = pCopy.triangleIneqReducedForm;
+		this.nbSeparationThread = pCopy.nbSeparationThread;
+		this.genericCallback = pCopy.genericCallback;
+		this.adaptiveSeparation = pCopy.adaptiveSeparation;
+		this.concurrentSeparation = pCopy.concurrentSeparation;
+		this.heuristicTimeLimit = pCopy.heuristicTimeLimit;
+		this.nodeHeuristicFrequency = pCopy.nodeHeuristicFrequency;
+		this.pivotRoundingNb = pCopy.pivotRoundingNb;
+		this.kernel = pCopy.kernel;
 
 	}
 	
@@ -0,0 +1,59 @@
+package formulation;
+
+import java.util.Arrays;
+import java.util.Set;
+
+
+/**
+ * Compact index of the existing edges of a graph (compressed sparse row format).
+ * For each node i, the nodes j > i adjacent to i are stored in 'neighbors' 
+ *  between rowStart[i] and rowStart[i+1]-1, in increasing order.
+ * The slot of an edge (i,j) is its position in 'neighbors', it is found by binary search.
+ * Used by the edge formulation in which there is a variable for each edge only.
+ *
+ */
+public class SparseEdgeIndex extends AbstractEdgeIndex {
+
+	int[] rowStart;
+	int[] neighbors;
+	
+	public SparseEdgeIndex(int n, Set<Edge> edges) {
+		super(n);
+		
+		rowStart = new int[n+1];
+		neighbors = new int[edges.size()];
+		
+		/* Count the number of neighbors j > i of each node i */
+		for(Edge e : edges)
+			rowStart[e.i+1]++;
+		
+		for(int i = 0 ; i < n ; ++i)
+			rowStart[i+1] += rowStart[i];
+		
+		int[] next = Arrays.copyOf(rowStart, n);
+		for(Edge e : edges)
+			neighbors[next[e.i]++] = e.j;
+		
+		for(int i = 0 ; i < n ; ++i)
+			Arrays.sort(neighbors, rowStart[i], rowStart[i+1]);
+	}
+
+	@Override
+	public int slot(int i, int j) {
+		if(j < i){
+			int temp = i;
+			i = j;
+			j = temp;
+		}
+		
+		int pos = Arrays.binarySearch(neighbors, rowStart[i], rowStart[i+1], j);
+		
+		return pos >= 0 ? pos : -1;
+	}
+
+	@Override
+	public int size() {
+		return neighbors.length;
+	}
+
+}
@@ -0,0 +1,135 @@
+package formulation;
+
+
+/**
+ * Enumerate the triangle inequalities x_{s,t1} + x_{s,t2} - x_{t1,t2} <= 1 of a formulation
+ *  by batches of rows given as index arrays (e.g. for IloLPMatrix.addRows()).
+ *
+ * For each triple i<j<k, the three inequalities are considered in the same order
+ *  as in FormulationVertex: (s,t1,t2) = (i,j,k), (j,i,k) and (k,i,j).
+ * A triangle is only considered if its three pairs have a variable.
+ *  Thus, in the edge formulation only the triangles of the input graph are enumerated.
+ * In reduced form, an inequality is only kept if w_{s,t1} > 0 or w_{s,t2} > 0 (Miyauchi et al.)
+ *
+ */
+public class TriangleRows {
+
+	/** Coefficients of the variables x_{s,t1}, x_{s,t2} and x_{t1,t2} in each row */
+	public static final double[] COEFFICIENTS = {1.0, 1.0, -1.0};
+
+	AbstractFormulation formulation;
+	boolean isReducedForm;
+	int n;
+
+	/** Column of the variable of each pair (-1 if the pair has no variable) */
+	int[] column;
+
+	/** Next inequality to consider: triple (i,j,k) and orientation o in {0,1,2} */
+	int i = 0, j = 1, k = 2, o = 0;
+
+	/* Slots of the pairs (i,j), (i,k) and (j,k) of the current triple */
+	int ij, ik, jk;
+
+	/** Rows of the current batch: the rows 0 to size-1 of each array are used */
+	public int size = 0;
+	public int[][] ind;
+	public double[][] val;
+	public double[] lb;
+	public double[] ub;
+
+	/** Number of rows enumerated so far */
+	public int count = 0;
+
+	/**
+	 * @param formulation
+	 * @param column  column of the variable of each pair: column[formulation.pairIndex(i,j)]
+	 * 			 (-1 if the pair (i,j) has no variable)
+	 * @param isReducedForm  true if only the triangle inequalities of the reduced form are enumerated
+	 * @param batchSize  maximal number of rows of a batch
+	 */
+	public TriangleRows(AbstractFormulation formulation, int[] column, boolean isReducedForm, int batchSize){
+		this.formulation = formulation;
+		this.column = column;
+		this.isReducedForm = isReducedForm;
+		this.n = formulation.n();
+
+		ind = new int[batchSize][];
+		val = new double[batchSize][];
+		lb = new double[batchSize];
+		ub = new double[batchSize];
+
+		for(int r = 0 ; r < batchSize ; ++r){
+			val[r] = COEFFICIENTS;
+			lb[r] = -Double.MAX_VALUE;
+			ub[r] = 1.0;
+		}
+	}
+
+
+	/**
+	 * Fill the next batch of rows
+	 *
+	 * @return false if all the rows have already been enumerated
+	 */
+	public boolean next(){
+
+		size = 0;
+
+		while(size < ind.length && i < n-2){
+
+			if(o == 0){
+				ij = formulation.pairIndex(i, j);
+
+				/* If (i,j) has no variable, no triangle (i,j,k) is considered */
+				if(ij == -1 || column[ij] == -1){
+					k = n-1;
+					o = 2;
+				}
+				else{
+					ik = formulation.pairIndex(i, k);
+					jk = formulation.pairIndex(j, k);
+
+					if(ik == -1 || jk == -1 || column[ik] == -1 || column[jk] == -1)
+						o = 2;
+					else
+						add(ij, ik, jk); // s = i, t1 = j, t2 = k
+				}
+			}
+			else if(o == 1)
+				add(ij, jk, ik); // s = j, t1 = i, t2 = k
+			else
+				add(ik, jk, ij); // s = k, t1 = i, t2 = j
+
+			/* Go to the next inequality */
+			o++;
+			if(o == 3){
+				o = 0;
+				k++;
+				if(k == n){
+					j++;
+					if(j == n-1){
+						i++;
+						j = i+1;
+					}
+					k = j+1;
+				}
+			}
+		}
+
+		count += size;
+
+		return size > 0;
+	}
+
+	/**
+	 * Add the row x_{st1} + x_{st2} - x_{t1t2} <= 1 given the slots of its pairs
+	 */
+	private void add(int st1, int st2, int t1t2){
+
+		if(!isReducedForm || formulation.d[st1] > 0 || formulation.d[st2] > 0){
+			ind[size] = new int[]{column[st1], column[st2], column[t1t2]};
+			size++;
+		}
+	}
+
+}
@@ -0,0 +1,35 @@
+package formulation;
+
+
+/**
+ * Index of all the n*(n-1)/2 pairs of nodes, stored row by row 
+ *  in the upper triangular part of an n x n matrix.
+ * Used by the vertex formulation in which there is a variable for each pair.
+ *
+ */
+public class TriangularEdgeIndex extends AbstractEdgeIndex {
+
+	public TriangularEdgeIndex(int n) {
+		super(n);
+	}
+
+	@Override
+	public int slot(int i, int j) {
+		if(j < i){
+			int temp = i;
+			i = j;
+			j = temp;
+		}
+		
+		if(i == j)
+			return -1;
+		
+		return i*(2*n-i-1)/2 + j-i-1;
+	}
+
+	@Override
+	public int size() {
+		return n*(n-1)/2;
+	}
+
+}
@@ -19,6 +19,9 @@ public abstract class AbstractInequality<Formulation extends AbstractFormulation
 	
 	private Class<Formulation> typeChecker;
 	
+	/* Canonical key of the inequality, computed once (see getCutKey()) */
+	private CutKey cutKey = null;
+	
 	public AbstractInequality(Formulation formulation, Class<Formulation> theClass) {
 		this.formulation = formulation;
 		typeChecker = theClass;
@@ -44,6 +47,17 @@ public abstract class AbstractInequality<Formulation extends AbstractFormulation
 	public abstract Range createRange();
 	public abstract AbstractInequality<Formulation> clone();
 	
+	/**
+	 * Create the canonical key of the inequality (i.e. its coefficients and its bound)
+	 */
+	protected abstract CutKey createCutKey();
+	
+	public CutKey getCutKey(){
+		if(cutKey == null)
+			cutKey = createCutKey();
+		return cutKey;
+	}
+	
 	protected abstract double evaluate(VariableGetter vg) throws IloException;	
 	public abstract double getSlack(VariableGetter vg) throws IloException;
 
@@ -0,0 +1,118 @@
+package inequality_family;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import formulation.AbstractFormulation;
+
+
+/**
+ * Canonical representation of an inequality sum_ij a_ij x_ij <= b:
+ *  the pairs ij (given by formulation.pairIndex(i,j)) in increasing order, 
+ *  their non-zero coefficients and the bound b.
+ * 
+ * Two inequalities which only differ by the way they are generated 
+ *  (e.g. the same cycle started from another node) have equal keys.
+ *
+ */
+public class CutKey implements Serializable{
+
+	private static final long serialVersionUID = 2484305867815447232L;
+	
+	int[] pairs;
+	double[] coefs;
+	double bound;
+	int hashcode;
+	
+	CutKey(int[] pairs, double[] coefs, double bound) {
+		this.pairs = pairs;
+		this.coefs = coefs;
+		this.bound = bound;
+		
+		hashcode = Arrays.hashCode(pairs);
+		hashcode = 31 * hashcode + Arrays.hashCode(coefs);
+		hashcode = 31 * hashcode + Double.hashCode(bound);
+	}
+	
+	@Override
+	public int hashCode(){
+		return hashcode;
+	}
+	
+	@Override
+	public boolean equals(Object o){
+		
+		if (this==o)
+			return true;
+		if (o instanceof CutKey) {
+			CutKey k = (CutKey)o;
+			
+			return hashcode == k.hashcode
+					&& bound == k.bound
+					&& Arrays.equals(pairs, k.pairs)
+					&& Arrays.equals(coefs, k.coefs);
+		}
+		return false;
+	}
+	
+	
+	/**
+	 * Collect the terms of an inequality, in any order and possibly several times 
+	 *  for the same pair, and build its canonical key.
+	 */
+	public static class Builder {
+		
+		AbstractFormulation formulation;
+		int size = 0;
+		int[] pairs = new int[8];
+		double[] coefs = new double[8];
+		
+		public Builder(AbstractFormulation formulation) {
+			this.formulation = formulation;
+		}
+		
+		public Builder add(int i, int j, double coef) {
+			if(size == pairs.length){
+				pairs = Arrays.copyOf(pairs, 2*size);
+				coefs = Arrays.copyOf(coefs, 2*size);
+			}
+			pairs[size] = formulation.pairIndex(i, j);
+			coefs[size] = coef;
+			size++;
+			return this;
+		}
+		
+		public CutKey build(double bound) {
+			
+			/* Sort the terms by pair: each term is encoded by its pair (high bits) 
+			 *  and its position (low bits) so that a primitive sort can be used */
+			long[] order = new long[size];
+			for(int a = 0 ; a < size ; ++a)
+				order[a] = ((long)pairs[a] << 32) | a;
+			Arrays.sort(order);
+			
+			/* Merge the terms of the same pair and remove the null ones */
+			int[] mergedPairs = new int[size];
+			double[] mergedCoefs = new double[size];
+			int mergedSize = 0;
+			
+			int a = 0;
+			while(a < size){
+				int p = (int)(order[a] >>> 32);
+				double c = 0.0;
+				while(a < size && (int)(order[a] >>> 32) == p)
+					c += coefs[(int)order[a++]];
+				
+				if(c != 0.0){
+					mergedPairs[mergedSize] = p;
+					mergedCoefs[mergedSize] = c;
+					mergedSize++;
+				}
+			}
+			
+			return new CutKey(Arrays.copyOf(mergedPairs, mergedSize),
+					Arrays.copyOf(mergedCoefs, mergedSize), bound);
+		}
+	}
+	
+}
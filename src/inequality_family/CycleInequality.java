@@ -48,6 +48,18 @@ public class CycleInequality extends AbstractInequality<AbstractFormulation> {
 
 	
 	
+	@Override
+	protected CutKey createCutKey() {
+		
+		CutKey.Builder key = new CutKey.Builder(formulation);
+		
+		for(int v=1; v<onePath.size(); v++)
+			key.add(onePath.get(v-1), onePath.get(v), +1.0);
+		key.add(zeroEdge.getSource(), zeroEdge.getDest(), -1.0);
+		
+		return key.build(onePath.size() - 2.0);
+	}
+
 	@Override
 	public AbstractInequality<AbstractFormulation> clone() {
 
@@ -60,8 +72,8 @@ public class CycleInequality extends AbstractInequality<AbstractFormulation> {
 	protected double evaluate(VariableGetter vg) throws IloException  {
 		double result = 0.0;
 		for(int v=1; v<onePath.size(); v++)
-			 result += vg.getValue(formulation.edgeVar(onePath.get(v-1), onePath.get(v)));
-		result -= vg.getValue(formulation.edgeVar(zeroEdge.getSource(), zeroEdge.getDest()));
+			 result += vg.getEdgeValue(formulation, onePath.get(v-1), onePath.get(v));
+		result -= vg.getEdgeValue(formulation, zeroEdge.getSource(), zeroEdge.getDest());
 		
 		return result;
 	}
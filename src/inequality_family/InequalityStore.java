@@ -0,0 +1,377 @@
+package inequality_family;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import formulation.AbstractFormulation;
+import formulation.Edge;
+import ilog.concert.IloException;
+import ilog.concert.IloLinearNumExpr;
+
+
+/**
+ * Compact storage of inequalities of the families Triangle, ST, TCC and Cycle.
+ *
+ * Each inequality (called a row) is only represented by a family tag and the ids of
+ *  its vertices, stored in primitive arrays shared by all the rows:
+ *  - TRIANGLE: s1, t1, t2              (aux: 1 if isReducedForm, 0 otherwise)
+ *  - ST      : the nodes of S then T   (aux: |S|)
+ *  - TCC     : the nodes of the cycle C in order
+ *  - CYCLE   : the two nodes of zeroEdge then the nodes of onePath
+ *
+ * The slack of a row is evaluated directly from the edge values of a snapshot
+ *  (see VariableGetter.getEdgeSnapshot()). The Concert expression of a row
+ *  (or its AbstractInequality object) is only created when needed.
+ *
+ * A removed row keeps its place until compact() is called.
+ *
+ */
+public class InequalityStore {
+
+	public static final byte TRIANGLE = 0;
+	public static final byte ST = 1;
+	public static final byte TCC = 2;
+	public static final byte CYCLE = 3;
+
+	AbstractFormulation formulation;
+
+	/** Number of rows (including the removed ones) */
+	int size = 0;
+	int removedNb = 0;
+
+	byte[] family = new byte[16];
+	int[] aux = new int[16];
+	boolean[] isRemoved = new boolean[16];
+
+	/** The vertices of row r are vertex[offset[r]] ... vertex[offset[r+1]-1] */
+	int[] offset = new int[17];
+	int[] vertex = new int[64];
+
+	public InequalityStore(AbstractFormulation formulation){
+		this.formulation = formulation;
+	}
+
+
+	/**
+	 * Add an inequality in the store
+	 *
+	 * @return id of the row
+	 */
+	public int add(AbstractInequality<?> ineq){
+
+		if(ineq instanceof Triangle_Inequality){
+			Triangle_Inequality t = (Triangle_Inequality)ineq;
+			return addTriangle(t.s1, t.t1, t.t2, t.isReducedForm);
+		}
+		else if(ineq instanceof STInequality){
+			STInequality st = (STInequality)ineq;
+			return addST(st.S, st.T);
+		}
+		else if(ineq instanceof TCCInequality)
+			return addTCC(((TCCInequality)ineq).C);
+		else if(ineq instanceof CycleInequality){
+			CycleInequality c = (CycleInequality)ineq;
+			return addCycle(c.zeroEdge.getSource(), c.zeroEdge.getDest(), c.onePath);
+		}
+
+		throw new IllegalArgumentException("No compact representation for " + ineq.getClass().getName());
+	}
+
+	public int addTriangle(int s1, int t1, int t2, boolean isReducedForm){
+		int r = newRow(TRIANGLE, isReducedForm ? 1 : 0, 3);
+		int o = offset[r];
+		vertex[o] = s1;
+		vertex[o+1] = t1;
+		vertex[o+2] = t2;
+		return r;
+	}
+
+	public int addST(List<Integer> S, List<Integer> T){
+		int r = newRow(ST, S.size(), S.size() + T.size());
+		int o = offset[r];
+		for(int s : S)
+			vertex[o++] = s;
+		for(int t : T)
+			vertex[o++] = t;
+		return r;
+	}
+
+	public int addTCC(List<Integer> C){
+		int r = newRow(TCC, 0, C.size());
+		int o = offset[r];
+		for(int c : C)
+			vertex[o++] = c;
+		return r;
+	}
+
+	public int addCycle(int zeroSource, int zeroDest, List<Integer> onePath){
+		int r = newRow(CYCLE, 0, 2 + onePath.size());
+		int o = offset[r];
+		vertex[o++] = zeroSource;
+		vertex[o++] = zeroDest;
+		for(int v : onePath)
+			vertex[o++] = v;
+		return r;
+	}
+
+	private int newRow(byte f, int a, int length){
+
+		if(size == family.length){
+			int capacity = 2*size;
+			family = Arrays.copyOf(family, capacity);
+			aux = Arrays.copyOf(aux, capacity);
+			isRemoved = Arrays.copyOf(isRemoved, capacity);
+			offset = Arrays.copyOf(offset, capacity+1);
+		}
+
+		int end = offset[size] + length;
+		if(end > vertex.length)
+			vertex = Arrays.copyOf(vertex, Math.max(end, 2*vertex.length));
+
+		int r = size++;
+		family[r] = f;
+		aux[r] = a;
+		isRemoved[r] = false;
+		offset[r+1] = end;
+
+		return r;
+	}
+
+
+	/**
+	 * Left hand side of a row
+	 *
+	 * @param x  edge values indexed by formulation.pairIndex(i,j)
+	 */
+	public double lhs(int r, double[] x){
+
+		int b = offset[r];
+		int e = offset[r+1];
+		double result = 0.0;
+
+		switch(family[r]){
+		case TRIANGLE:
+			result = x(x, vertex[b], vertex[b+1]) + x(x, vertex[b], vertex[b+2]) - x(x, vertex[b+1], vertex[b+2]);
+			break;
+
+		case ST:
+			int tBegin = b + aux[r];
+			for(int s = b ; s < tBegin ; ++s){
+				for(int s2 = s+1 ; s2 < tBegin ; ++s2)
+					result -= x(x, vertex[s], vertex[s2]);
+				for(int t = tBegin ; t < e ; ++t)
+					result += x(x, vertex[s], vertex[t]);
+			}
+			for(int t = tBegin ; t < e ; ++t)
+				for(int t2 = t+1 ; t2 < e ; ++t2)
+					result -= x(x, vertex[t], vertex[t2]);
+			break;
+
+		case TCC:
+			int cSize = e - b;
+			for(int c = 0 ; c < cSize ; ++c){
+				result += x(x, vertex[b+c], vertex[b+(c+1)%cSize]);
+				result -= x(x, vertex[b+c], vertex[b+(c+2)%cSize]);
+			}
+			break;
+
+		case CYCLE:
+			for(int v = b+3 ; v < e ; ++v)
+				result += x(x, vertex[v-1], vertex[v]);
+			result -= x(x, vertex[b], vertex[b+1]);
+			break;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Right hand side of a row (all the rows are of the form lhs <= bound)
+	 */
+	public double bound(int r){
+
+		int length = offset[r+1] - offset[r];
+
+		switch(family[r]){
+		case ST: return aux[r];
+		case TCC: return (length-1)/2;
+		case CYCLE: return (length - 2) - 2.0; // |onePath| - 2
+		default: return 1.0;
+		}
+	}
+
+	public double slack(int r, double[] x){
+		return bound(r) - lhs(r, x);
+	}
+
+	private double x(double[] x, int i, int j){
+		return x[formulation.pairIndex(i, j)];
+	}
+
+
+	/**
+	 * Create the Concert expression of a row, for example when it is added into CPLEX
+	 */
+	public Range createRange(int r){
+
+		int b = offset[r];
+		int e = offset[r+1];
+
+		try {
+			IloLinearNumExpr expr = formulation.getCplex().linearNumExpr();
+
+			switch(family[r]){
+			case TRIANGLE:
+				expr.addTerm(+1.0, formulation.edgeVar(vertex[b], vertex[b+1]));
+				expr.addTerm(+1.0, formulation.edgeVar(vertex[b], vertex[b+2]));
+				expr.addTerm(-1.0, formulation.edgeVar(vertex[b+1], vertex[b+2]));
+				break;
+
+			case ST:
+				int tBegin = b + aux[r];
+				for(int s = b ; s < tBegin ; ++s){
+					for(int s2 = s+1 ; s2 < tBegin ; ++s2)
+						expr.addTerm(-1.0, formulation.edgeVar(vertex[s], vertex[s2]));
+					for(int t = tBegin ; t < e ; ++t)
+						expr.addTerm(+1.0, formulation.edgeVar(vertex[s], vertex[t]));
+				}
+				for(int t = tBegin ; t < e ; ++t)
+					for(int t2 = t+1 ; t2 < e ; ++t2)
+						expr.addTerm(-1.0, formulation.edgeVar(vertex[t], vertex[t2]));
+				break;
+
+			case TCC:
+				int cSize = e - b;
+				for(int c = 0 ; c < cSize ; ++c){
+					expr.addTerm(+1.0, formulation.edgeVar(vertex[b+c], vertex[b+(c+1)%cSize]));
+					expr.addTerm(-1.0, formulation.edgeVar(vertex[b+c], vertex[b+(c+2)%cSize]));
+				}
+				break;
+
+			case CYCLE:
+				for(int v = b+3 ; v < e ; ++v)
+					expr.addTerm(+1.0, formulation.edgeVar(vertex[v-1], vertex[v]));
+				expr.addTerm(-1.0, formulation.edgeVar(vertex[b], vertex[b+1]));
+				break;
+			}
+
+			return new Range(expr, bound(r));
+
+		} catch (IloException ex) {
+			ex.printStackTrace();
+			return null;
+		}
+	}
+
+
+	/**
+	 * Create the inequality object of a row
+	 */
+	public AbstractInequality<AbstractFormulation> materialize(int r){
+
+		int b = offset[r];
+		int e = offset[r+1];
+
+		switch(family[r]){
+		case TRIANGLE:
+			return new Triangle_Inequality(formulation, vertex[b], vertex[b+1], vertex[b+2], aux[r] == 1);
+
+		case ST:
+			STInequality st = new STInequality(formulation);
+			for(int v = b ; v < e ; ++v)
+				if(v < b + aux[r]){
+					st.S.add(vertex[v]);
+					st.inS[vertex[v]] = true;
+				}
+				else{
+					st.T.add(vertex[v]);
+					st.inT[vertex[v]] = true;
+				}
+			return st;
+
+		case TCC:
+			TCCInequality tcc = new TCCInequality(formulation, e - b);
+			Arrays.fill(tcc.inC, -1);
+			for(int v = b ; v < e ; ++v){
+				tcc.C.add(vertex[v]);
+				tcc.inC[vertex[v]] = v - b;
+			}
+			return tcc;
+
+		default: /* CYCLE */
+			ArrayList<Integer> onePath = new ArrayList<Integer>(e - b - 2);
+			for(int v = b+2 ; v < e ; ++v)
+				onePath.add(vertex[v]);
+			return new CycleInequality(formulation, formulation.n(),
+					new Edge(formulation.n(), vertex[b], vertex[b+1]), onePath);
+		}
+	}
+
+
+	public byte family(int r){
+		return family[r];
+	}
+
+	public void remove(int r){
+		if(!isRemoved[r]){
+			isRemoved[r] = true;
+			removedNb++;
+		}
+	}
+
+	public boolean isRemoved(int r){
+		return isRemoved[r];
+	}
+
+	/**
+	 * Number of rows, including the removed ones which have not been compacted yet
+	 */
+	public int size(){
+		return size;
+	}
+
+	public int removedNb(){
+		return removedNb;
+	}
+
+
+	/**
+	 * Free the space of the removed rows. The ids of the remaining rows are changed.
+	 *
+	 * @return the new id of each row (-1 for the removed rows)
+	 */
+	public int[] compact(){
+
+		int[] newId = new int[size];
+		int newSize = 0;
+		int newEnd = 0;
+
+		for(int r = 0 ; r < size ; ++r){
+
+			if(isRemoved[r])
+				newId[r] = -1;
+			else{
+				int b = offset[r];
+				int length = offset[r+1] - b;
+
+				/* Rows only move to lower positions, so the copy does not overwrite unread data */
+				System.arraycopy(vertex, b, vertex, newEnd, length);
+				family[newSize] = family[r];
+				aux[newSize] = aux[r];
+				isRemoved[newSize] = false;
+				offset[newSize] = newEnd;
+				newEnd += length;
+
+				newId[r] = newSize++;
+			}
+		}
+
+		offset[newSize] = newEnd;
+		size = newSize;
+		removedNb = 0;
+
+		return newId;
+	}
+
+}
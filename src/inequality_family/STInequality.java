@@ -58,6 +58,27 @@ public class STInequality extends AbstractInequality<AbstractFormulation>{
 		}
 
 	}
+	@Override
+	protected CutKey createCutKey() {
+		
+		CutKey.Builder key = new CutKey.Builder(formulation);
+		
+		for(int s = 0 ; s < S.size() ; ++s){
+
+			for(int s2 = s+1 ; s2 < S.size() ; ++s2)
+				key.add(S.get(s), S.get(s2), -1.0);
+
+			for(int t = 0 ; t < T.size() ; ++t)
+				key.add(S.get(s), T.get(t), 1.0);
+		}
+
+		for(int t = 0 ; t < T.size() ; ++t)
+			for(int t2 = t+1 ; t2 < T.size() ; ++t2)
+				key.add(T.get(t), T.get(t2), -1.0);
+		
+		return key.build(S.size());
+	}
+	
 	@Override
 	public STInequality clone() {
 
@@ -85,15 +106,15 @@ public class STInequality extends AbstractInequality<AbstractFormulation>{
 		for(int s = 0 ; s < S.size() ; ++s){
 
 			for(int t = 0 ; t < T.size() ; ++t)
-				result += vg.getValue(formulation.edgeVar(S.get(s), T.get(t)));
+				result += vg.getEdgeValue(formulation, S.get(s), T.get(t));
 
 			for(int s2 = s+1 ; s2 < S.size() ; ++s2)
-				result -= vg.getValue(formulation.edgeVar(S.get(s), S.get(s2)));
+				result -= vg.getEdgeValue(formulation, S.get(s), S.get(s2));
 		}
 
 		for(int t = 0 ; t < T.size() ; ++t)
 			for(int t2 = t+1 ; t2 < T.size() ; ++t2)
-				result -= vg.getValue(formulation.edgeVar(T.get(t), T.get(t2)));
+				result -= vg.getEdgeValue(formulation, T.get(t), T.get(t2));
 
 		return result;
 	}
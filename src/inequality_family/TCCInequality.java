@@ -52,6 +52,19 @@ public class TCCInequality extends AbstractInequality<AbstractFormulation>{
 		return result;
 	}
 
+	@Override
+	protected CutKey createCutKey() {
+		
+		CutKey.Builder key = new CutKey.Builder(formulation);
+		
+		for(int c = 0 ; c < C.size(); ++c){
+			key.add(C.get(c), C.get((c+1)%C.size()), +1.0);
+			key.add(C.get(c), C.get((c+2)%C.size()), -1.0);
+		}
+		
+		return key.build(p);
+	}
+
 	@Override
 	public AbstractInequality<AbstractFormulation> clone() {
 
@@ -73,8 +86,8 @@ public class TCCInequality extends AbstractInequality<AbstractFormulation>{
 
 		for(int i = 0 ; i < C.size() ; ++i){
 
-			result += vg.getValue(formulation.edgeVar(C.get((i+1)%C.size()),C.get(i)));
-			result -= vg.getValue(formulation.edgeVar(C.get((i+2)%C.size()),C.get(i)));
+			result += vg.getEdgeValue(formulation, C.get((i+1)%C.size()),C.get(i));
+			result -= vg.getEdgeValue(formulation, C.get((i+2)%C.size()),C.get(i));
 
 		}
 
@@ -71,6 +71,15 @@ public class Triangle_Inequality extends AbstractInequality<AbstractFormulation>
 		return new Range(expr, 1.0);
 	}
 
+	@Override
+	protected CutKey createCutKey() {
+		return new CutKey.Builder(formulation)
+				.add(s1, t1, +1.0)
+				.add(s1, t2, +1.0)
+				.add(t1, t2, -1.0)
+				.build(1.0);
+	}
+
 	@Override
 	public AbstractInequality<AbstractFormulation> clone() {
 
@@ -79,9 +88,9 @@ public class Triangle_Inequality extends AbstractInequality<AbstractFormulation>
 
 	@Override
 	protected double evaluate(VariableGetter vg) throws IloException  {
-		double result = vg.getValue(formulation.edgeVar(s1, t1));
-		result += vg.getValue(formulation.edgeVar(s1, t2));
-		result -= vg.getValue(formulation.edgeVar(t1, t2));
+		double result = vg.getEdgeValue(formulation, s1, t1);
+		result += vg.getEdgeValue(formulation, s1, t2);
+		result -= vg.getEdgeValue(formulation, t1, t2);
 
 		return result;
 	}
@@ -0,0 +1,387 @@
+package kernelization;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+
+/**
+ * Reversible reduction of a signed graph, applied before the creation of a formulation.
+ *
+ * The following rules are applied until none of them changes the graph:
+ * <ul>
+ * <li> Singleton: a vertex without positive edge is alone in its cluster in some optimal
+ * 		partition (removing it from its cluster does not cut any positive edge). </li>
+ * <li> Dominant edge: if the weight of a positive edge (u,v) is not lower than the sum of the
+ * 		absolute weights of the other edges of v, then u and v are together in some optimal
+ * 		partition (moving v into the cluster of u cannot increase the imbalance). </li>
+ * <li> Twins: if u and v have the same weight to every other vertex and w_uv >= 0,
+ * 		then u and v are together in some optimal partition (both can be moved into
+ * 		the best of their two clusters). </li>
+ * </ul>
+ *
+ * Two vertices which must be together are merged: the weight of the edge between the merged
+ *  vertex and a vertex x is w_ux + w_vx. When w_ux and w_vx have opposite signs, one of them is
+ *  always in disagreement, so min(|w_ux|,|w_vx|) is added to the constant 'offset'.
+ *  Thus, the imbalance of a partition of the original graph is equal to the imbalance of
+ *  the corresponding partition of the reduced graph plus 'offset'.
+ *
+ * Since some optimal partitions may be lost, the reduction must not be used to enumerate
+ *  all the optimal solutions.
+ */
+public class Kernelization {
+
+	/** Number of vertices of the original graph */
+	public int n;
+
+	/** Constant to add to the imbalance of the reduced graph */
+	public double offset = 0.0;
+
+	/** Number of vertices of the reduced graph */
+	public int reducedN = 0;
+
+	/** Vertex in which each vertex has been merged (itself if it has not been merged) */
+	int[] parent;
+
+	/** True if the vertex is still in the graph */
+	boolean[] isAlive;
+
+	/** True if the vertex has been removed by the singleton rule */
+	boolean[] isSingleton;
+
+	/** Weights of the edges of each alive vertex */
+	ArrayList<HashMap<Integer, Double>> adj;
+
+	/** Id in the reduced graph of each alive vertex (-1 otherwise) */
+	int[] reducedId;
+
+	public int singletonNb = 0;
+	public int dominanceNb = 0;
+	public int twinNb = 0;
+
+
+	public Kernelization(String inputFile) {
+		readGraph(inputFile);
+
+		parent = new int[n];
+		isAlive = new boolean[n];
+		isSingleton = new boolean[n];
+		for(int v = 0 ; v < n ; ++v) {
+			parent[v] = v;
+			isAlive[v] = true;
+		}
+	}
+
+
+	/**
+	 * Read a graph in the same format as the formulations (see FormulationVertex.readGraphFromInputFile())
+	 */
+	private void readGraph(String fileName) {
+
+		try {
+			BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(fileName)));
+			String line = br.readLine();
+
+			/* Get the number of nodes from the first line */
+			n = Integer.parseInt(line.split("\t")[0]);
+
+			adj = new ArrayList<>(n);
+			for(int v = 0 ; v < n ; ++v)
+				adj.add(new HashMap<Integer, Double>());
+
+			while ((line = br.readLine()) != null) {
+				String[] split = line.split("\t");
+
+				if (split.length >= 3) {
+					int i = Integer.parseInt(split[0]);
+					int j = Integer.parseInt(split[1]);
+					double w = Double.parseDouble(split[2]);
+
+					if(i != j)
+						setWeight(i, j, w);
+				}
+			}
+			br.close();
+
+		} catch (Exception e) {
+			System.out.println(e.toString());
+		}
+	}
+
+
+	private void setWeight(int i, int j, double w) {
+		if(w == 0.0) {
+			adj.get(i).remove(j);
+			adj.get(j).remove(i);
+		}
+		else {
+			adj.get(i).put(j, w);
+			adj.get(j).put(i, w);
+		}
+	}
+
+
+	/**
+	 * Apply the reduction rules until the graph does not change anymore
+	 */
+	public void reduce() {
+
+		boolean isChanged = true;
+
+		while(isChanged) {
+			isChanged = removeSingletons();
+			isChanged = applyDominantEdges() || isChanged;
+			isChanged = mergeTwins() || isChanged;
+		}
+
+		reducedId = new int[n];
+		reducedN = 0;
+		for(int v = 0 ; v < n ; ++v)
+			reducedId[v] = isAlive[v] ? reducedN++ : -1;
+
+		System.out.println("Kernelization: " + n + " -> " + reducedN + " vertices (" + singletonNb
+				+ " singletons, " + dominanceNb + " dominant edges, " + twinNb + " twins), offset: " + offset);
+	}
+
+
+	/**
+	 * Singleton rule
+	 */
+	private boolean removeSingletons() {
+
+		boolean isChanged = false;
+
+		for(int v = 0 ; v < n ; ++v) {
+			if(!isAlive[v])
+				continue;
+
+			boolean hasPositiveEdge = false;
+			for(double w : adj.get(v).values())
+				if(w > 0) {
+					hasPositiveEdge = true;
+					break;
+				}
+
+			if(!hasPositiveEdge) {
+				/* The negative edges of v are in agreement */
+				for(int x : adj.get(v).keySet())
+					adj.get(x).remove(v);
+				adj.get(v).clear();
+
+				isAlive[v] = false;
+				isSingleton[v] = true;
+				singletonNb++;
+				isChanged = true;
+			}
+		}
+
+		return isChanged;
+	}
+
+
+	/**
+	 * Dominant edge rule
+	 */
+	private boolean applyDominantEdges() {
+
+		boolean isChanged = false;
+
+		for(int v = 0 ; v < n ; ++v) {
+			if(!isAlive[v])
+				continue;
+
+			int u = -1;
+			double maxWeight = 0.0;
+			double sum = 0.0;
+
+			for(Entry<Integer, Double> e : adj.get(v).entrySet()) {
+				sum += Math.abs(e.getValue());
+				if(e.getValue() > maxWeight) {
+					maxWeight = e.getValue();
+					u = e.getKey();
+				}
+			}
+
+			if(u != -1 && maxWeight >= sum - maxWeight) {
+				merge(u, v);
+				dominanceNb++;
+				isChanged = true;
+			}
+		}
+
+		return isChanged;
+	}
+
+
+	/**
+	 * Twin rule
+	 */
+	private boolean mergeTwins() {
+
+		boolean isChanged = false;
+
+		/* Non adjacent twins have the same edges */
+		HashMap<HashMap<Integer, Double>, Integer> twinOf = new HashMap<>();
+
+		for(int v = 0 ; v < n ; ++v) {
+			if(!isAlive[v] || adj.get(v).isEmpty())
+				continue;
+
+			Integer u = twinOf.get(adj.get(v));
+			if(u != null && isAlive[u] && adj.get(u).equals(adj.get(v))) {
+				merge(u, v);
+				twinNb++;
+				isChanged = true;
+			}
+			else
+				twinOf.put(new HashMap<Integer, Double>(adj.get(v)), v);
+		}
+
+		/* Adjacent twins (linked by a positive edge) have the same edges, except the one between them */
+		for(int v = 0 ; v < n ; ++v) {
+			if(!isAlive[v])
+				continue;
+
+			for(int u : new ArrayList<Integer>(adj.get(v).keySet())) {
+				if(u < v && isAlive[u] && adj.get(v).get(u) > 0 && areAdjacentTwins(u, v)) {
+					merge(u, v);
+					twinNb++;
+					isChanged = true;
+					break;
+				}
+			}
+		}
+
+		return isChanged;
+	}
+
+
+	private boolean areAdjacentTwins(int u, int v) {
+
+		Map<Integer, Double> adjU = adj.get(u);
+		Map<Integer, Double> adjV = adj.get(v);
+
+		if(adjU.size() != adjV.size())
+			return false;
+
+		for(Entry<Integer, Double> e : adjV.entrySet())
+			if(e.getKey() != u && !e.getValue().equals(adjU.get(e.getKey())))
+				return false;
+
+		return true;
+	}
+
+
+	/**
+	 * Merge v into u (u and v are in the same cluster)
+	 */
+	private void merge(int u, int v) {
+
+		Double wuv = adj.get(u).get(v);
+		if(wuv != null && wuv < 0)
+			offset -= wuv;
+
+		adj.get(u).remove(v);
+		adj.get(v).remove(u);
+
+		for(Entry<Integer, Double> e : adj.get(v).entrySet()) {
+			int x = e.getKey();
+			double wvx = e.getValue();
+			Double wux = adj.get(u).get(x);
+
+			adj.get(x).remove(v);
+
+			if(wux == null)
+				setWeight(u, x, wvx);
+			else {
+				if(wux * wvx < 0)
+					offset += Math.min(Math.abs(wux), Math.abs(wvx));
+				setWeight(u, x, wux + wvx);
+			}
+		}
+
+		adj.get(v).clear();
+		isAlive[v] = false;
+		parent[v] = u;
+	}
+
+
+	private int find(int v) {
+		while(parent[v] != v)
+			v = parent[v];
+		return v;
+	}
+
+
+	/**
+	 * Write the reduced graph in the input format of the formulations
+	 */
+	public void writeReducedGraph(String fileName) throws IOException {
+
+		StringBuilder content = new StringBuilder();
+		int m = 0;
+
+		for(int v = 0 ; v < n ; ++v)
+			if(isAlive[v])
+				for(Entry<Integer, Double> e : adj.get(v).entrySet())
+					if(v < e.getKey()) {
+						content.append(reducedId[v] + "\t" + reducedId[e.getKey()] + "\t" + e.getValue() + "\n");
+						m++;
+					}
+
+		BufferedWriter writer = new BufferedWriter(new FileWriter(fileName));
+		writer.write(reducedN + "\t" + m + "\n");
+		writer.write(content.toString());
+		writer.close();
+	}
+
+
+	/**
+	 * Partition of the original graph corresponding to a partition of the reduced graph
+	 *
+	 * @param reducedMembership  cluster id of each vertex of the reduced graph
+	 */
+	public int[] expand(int[] reducedMembership) {
+
+		int nextId = 1;
+		for(int c : reducedMembership)
+			nextId = Math.max(nextId, c + 1);
+
+		/* Each vertex removed by the singleton rule (with the vertices merged into it) is a new cluster */
+		int[] singletonCluster = new int[n];
+		for(int v = 0 ; v < n ; ++v)
+			if(isSingleton[v])
+				singletonCluster[v] = nextId++;
+
+		int[] membership = new int[n];
+		for(int v = 0 ; v < n ; ++v) {
+			int root = find(v);
+			membership[v] = isSingleton[root] ? singletonCluster[root] : reducedMembership[reducedId[root]];
+		}
+
+		return membership;
+	}
+
+
+	/**
+	 * Partition of the reduced graph obtained from a partition of the original graph
+	 *  (e.g. to use it as a MIP start). A merged vertex takes the cluster of its representative.
+	 */
+	public int[] reduce(int[] membership) {
+
+		int[] reducedMembership = new int[reducedN];
+		for(int v = 0 ; v < n ; ++v)
+			if(isAlive[v])
+				reducedMembership[reducedId[v]] = membership[v];
+
+		return reducedMembership;
+	}
+
+}
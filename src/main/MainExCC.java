@@ -17,11 +17,14 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.TreeSet;
 
-import callback.lazy_callback.LazyCBCycle;
+import callback.generic_callback.GenericMultiStartHeuristicCallback;
+import callback.heuristic_callback.MultiStartHeuristicCallback;
+import callback.heuristic_callback.RoundingHeuristicCallback;
 import cplex.Cplex;
 import cutting_plane.AbstractCuttingPlane;
 import cutting_plane.CPEdge;
 import cutting_plane.CPVertex;
+import decomposition.ComponentDecomposition;
 import formulation.AbstractFormulation;
 import formulation.FormulationEdge;
 import formulation.FormulationVertex;
@@ -32,7 +35,9 @@ import ilog.concert.IloNumVar;
 import ilog.cplex.IloCplex;
 import ilog.cplex.IloCplex.IntParam;
 import ilog.cplex.IloCplex.UnknownObjectException;
+import kernelization.Kernelization;
 import mipstart.AbstractMIPStartGenerate;
+import mipstart.MultiStartHeuristic;
 import mipstart.PrimalHeuristicRounding;
 import mipstart.SolutionManager;
 import variable.VariableLister;
@@ -111,7 +116,36 @@ public class MainExCC {
 	 * 						 the whole set of triangle constraints is added before branching. Default false. </li>
 	 * <li> userCutInBB (Boolean): Used only for B&C method. True if adding user cuts during the branching phase of the B&C method or in B&B method is desired.
 	 * 		 Based on our experiments, we can say that it does not yield any advantage, and it might even slow down the optimization process. Default false. </li>
+	 * <li> lazyPool (Boolean): Used only for the Fv formulation type, when lazyCB is false. True if the triangle constraints are registered
+	 * 						 in the lazy constraint pool of Cplex instead of being added to the model (before branching in the B&C method). Default false. </li>
+	 * <li> genericCB (Boolean): True if the lazy and user cut callbacks use the generic callback API of Cplex. Unlike the legacy callbacks,
+	 * 						 they do not disable the dynamic search of Cplex and they are called in parallel by its threads. Default false. </li>
+	 * <li> decompose (Boolean): Used only for the B&B approach, when neither enumAll nor LPFilePath is used. True if the graph is split into 
+	 * 						 the connected components of its positive edges, which are solved independently and concurrently (see ComponentDecomposition).
+	 * 						 The threads (nbThread) and the time limit (tilim) are shared by the components. Default false. </li>
+	 * <li> kernelize (Boolean): Not used with enumAll and LPFilePath. True if the graph is reduced before creating the formulation (see Kernelization):
+	 * 						 vertices without positive edge become singletons, and the vertices which are together in some optimal solution 
+	 * 						 (dominant edges and twins) are merged. The solutions are written in terms of the original vertices.
+	 * 						 The bounds of Cplex refer to the reduced graph (the constant of the reduction is only added to the reported objective). Default false. </li>
+	 * <li> adaptiveSeparation (Boolean): Used only for the Cutting Plane approach. True if the order of the separation algorithms is adapted
+	 * 						 at each iteration according to their measured yield by second (see SeparatorScheduler), within a time budget by iteration.
+	 * 						 Otherwise, they are used in a fixed order. Default false. </li>
+	 * <li> concurrentSeparation (Boolean): Used only for the Cutting Plane approach. True if all the separation algorithms are run
+	 * 						 concurrently on the same relaxation at each iteration (the cuts found within a time budget are merged and 
+	 * 						 added together). Default false. </li>
+	 * <li> heuristicTimeLimit (Double): Time limit in seconds of the multi-start heuristic (see MultiStartHeuristic), which is run alongside Cplex
+	 * 						 with nbThread threads. Its best solution is used as upper bound and MIP start, and the solutions it finds during the 
+	 * 						 branching phase are given to Cplex. The heuristic is not used if it is not positive. Default -1. </li>
+	 * <li> nodeHeuristicFrequency (Integer): Not used with genericCB. If it is positive, the relaxation of one node out of nodeHeuristicFrequency 
+	 * 						 is rounded into a solution during the branching phase (see RoundingHeuristicCallback), within 10% of the time limit. 
+	 * 						 Default -1. </li>
+	 * <li> pivotRoundingNb (Integer): Used only for the Cutting Plane approach. If it is positive, the primal heuristic of the cutting plane step
+	 * 						 generates pivotRoundingNb partitions from the relaxation by randomized pivot rounding (with nbThread threads) and 
+	 * 						 keeps the best one if it is better than the greedy rounding (see PivotRoundingBatch). Default -1. </li>
 	 * <li> nbThread (Integer): Default value is the max number of CPU minus 1.
+	 * <li> nbSeparationThread (Integer): number of threads used by the separation algorithms which can run in parallel
+	 * 						(e.g. triangle inequalities) during the Cutting Plane approach. It is independent of nbThread. These threads
+	 * 						are shared by the separation algorithms. Default value is 1.
 	 * <li> verbose (Boolean): Default value is True. When True, it enables to display log outputs during the Cutting Plane approach.
 	 * <li> initMembershipFilePath (String): Default value is "". It allows to import an already known solution into the optimization process. 
 	 * 										Since we solve a minimization problem, the imbalance value of the imported solution is served as the upper bound.
@@ -203,6 +237,15 @@ public class MainExCC {
 		int solLim = -1;
 		boolean lazyCB = false;
 		boolean userCutCB = false;
+		boolean lazyPool = false;
+		boolean genericCB = false;
+		boolean decompose = false;
+		boolean kernelize = false;
+		boolean adaptiveSeparation = false;
+		boolean concurrentSeparation = false;
+		double heuristicTimeLimit = -1;
+		int nodeHeuristicFrequency = -1;
+		int pivotRoundingNb = -1;
 		String inputFilePath = "";
 		String outputDirPath = ".";
 		boolean isCP = false;
@@ -211,6 +254,7 @@ public class MainExCC {
 		boolean verbose = true;
 		String initMembershipFilePath = "";
 		int nbThread = 1;
+		int nbSeparationThread = 1;
 		String formulationType = "";
 		
 		String LPFilePath = "";
@@ -275,6 +319,33 @@ public class MainExCC {
 		if( !isEnumAll && isCP && !System.getProperty("userCutCB").equals("${userCutCB}") )
 			userCutCB = Boolean.valueOf(System.getProperty("userCutCB"));
 
+		if( !System.getProperty("lazyPool", "${lazyPool}").equals("${lazyPool}") )
+			lazyPool = Boolean.valueOf(System.getProperty("lazyPool"));
+
+		if( !System.getProperty("genericCB", "${genericCB}").equals("${genericCB}") )
+			genericCB = Boolean.valueOf(System.getProperty("genericCB"));
+
+		if( !System.getProperty("decompose", "${decompose}").equals("${decompose}") )
+			decompose = Boolean.valueOf(System.getProperty("decompose"));
+
+		if( !isEnumAll && !System.getProperty("kernelize", "${kernelize}").equals("${kernelize}") )
+			kernelize = Boolean.valueOf(System.getProperty("kernelize"));
+
+		if( isCP && !System.getProperty("adaptiveSeparation", "${adaptiveSeparation}").equals("${adaptiveSeparation}") )
+			adaptiveSeparation = Boolean.valueOf(System.getProperty("adaptiveSeparation"));
+
+		if( isCP && !System.getProperty("concurrentSeparation", "${concurrentSeparation}").equals("${concurrentSeparation}") )
+			concurrentSeparation = Boolean.valueOf(System.getProperty("concurrentSeparation"));
+
+		if( !System.getProperty("heuristicTimeLimit", "${heuristicTimeLimit}").equals("${heuristicTimeLimit}") )
+			heuristicTimeLimit = Double.parseDouble(System.getProperty("heuristicTimeLimit"));
+
+		if( !System.getProperty("nodeHeuristicFrequency", "${nodeHeuristicFrequency}").equals("${nodeHeuristicFrequency}") )
+			nodeHeuristicFrequency = Integer.parseInt(System.getProperty("nodeHeuristicFrequency"));
+
+		if( isCP && !System.getProperty("pivotRoundingNb", "${pivotRoundingNb}").equals("${pivotRoundingNb}") )
+			pivotRoundingNb = Integer.parseInt(System.getProperty("pivotRoundingNb"));
+
 		if( !System.getProperty("verbose").equals("${verbose}") )
 			verbose = Boolean.valueOf(System.getProperty("verbose"));
 //		if( !System.getProperty("verbose").equals("${verbose}") )
@@ -284,6 +355,9 @@ public class MainExCC {
 		if(!System.getProperty("nbThread").equals("${nbThread}") )
 			nbThread = Integer.parseInt(System.getProperty("nbThread"));
 		
+		if(!System.getProperty("nbSeparationThread", "${nbSeparationThread}").equals("${nbSeparationThread}") )
+			nbSeparationThread = Integer.parseInt(System.getProperty("nbSeparationThread"));
+		
 		if( !System.getProperty("initMembershipFilePath").equals("${initMembershipFilePath}") ) // it is not usefull
 			initMembershipFilePath = System.getProperty("initMembershipFilePath");
 
@@ -324,7 +398,17 @@ public class MainExCC {
 		System.out.println("MaxTimeForRelaxationImprovement: " + MaxTimeForRelaxationImprovement + "s");
 		System.out.println("lazyCB: " + lazyCB);
 		System.out.println("userCutCB: " + userCutCB);
+		System.out.println("lazyPool: " + lazyPool);
+		System.out.println("genericCB: " + genericCB);
+		System.out.println("decompose: " + decompose);
+		System.out.println("kernelize: " + kernelize);
+		System.out.println("adaptiveSeparation: " + adaptiveSeparation);
+		System.out.println("concurrentSeparation: " + concurrentSeparation);
+		System.out.println("heuristicTimeLimit: " + heuristicTimeLimit);
+		System.out.println("nodeHeuristicFrequency: " + nodeHeuristicFrequency);
+		System.out.println("pivotRoundingNb: " + pivotRoundingNb);
 		System.out.println("nbThread: " + nbThread);
+		System.out.println("nbSeparationThread: " + nbSeparationThread);
 		System.out.println("verbose: " + verbose);
 		System.out.println("initMembershipFilePath: " + initMembershipFilePath);
 		System.out.println("LPFilePath: " + LPFilePath);
@@ -344,6 +428,26 @@ public class MainExCC {
 		
 		// -------------------------------------
 		
+		/* The formulation is created from the reduced graph */
+		Kernelization kernel = null;
+		if(kernelize && LPFilePath.equals("")) {
+			kernel = new Kernelization(inputFilePath);
+			kernel.reduce();
+			
+			inputFilePath = outputDirPath + "/reducedGraph.G";
+			try {
+				kernel.writeReducedGraph(inputFilePath);
+			} catch (IOException e) {
+				e.printStackTrace();
+				return;
+			}
+			
+			if(initMembership != null)
+				initMembership = kernel.reduce(initMembership);
+		}
+		
+		// -------------------------------------
+		
 		MyParam myp = null;
 		Cplex cplex = new Cplex(); // start
 		cplex.setParam(IntParam.ClockType, 2);
@@ -362,6 +466,8 @@ public class MainExCC {
 			
 			if(lazyCB)
 				myp = new MyParam(inputFilePath, cplex, Transitivity.USE_LAZY_IN_BC_ONLY, userCutCB, lazyCB, nbThread, LPFilePath, triangleIneqReducedForm);
+			else if(lazyPool)
+				myp = new MyParam(inputFilePath, cplex, Transitivity.USE_LAZY_POOL_IN_BC_ONLY, userCutCB, lazyCB, nbThread, LPFilePath, triangleIneqReducedForm);
 			else
 				myp = new MyParam(inputFilePath, cplex, Transitivity.USE_IN_BC_ONLY, userCutCB, lazyCB, nbThread, LPFilePath, triangleIneqReducedForm);
 		
@@ -370,6 +476,14 @@ public class MainExCC {
 			myp.useCplexAutoCuts = true;
 			myp.tilim = tilim;
 			myp.userCutInBB = userCutCB;
+			myp.genericCallback = genericCB;
+			myp.kernel = kernel;
+			myp.nbSeparationThread = nbSeparationThread;
+			myp.adaptiveSeparation = adaptiveSeparation;
+			myp.concurrentSeparation = concurrentSeparation;
+			myp.heuristicTimeLimit = heuristicTimeLimit;
+			myp.nodeHeuristicFrequency = nodeHeuristicFrequency;
+			myp.pivotRoundingNb = pivotRoundingNb;
 			// 		p.getCplex().setParam(IloCplex.Param.Threads, nbThread);
 
 			
@@ -403,6 +517,8 @@ public class MainExCC {
 			// note that when LPFilePath.equals("")=FALSE, we load directly the model from file, so the choice of 'Triangle' does not affect it
 			if(lazyCB)
 				myp = new MyParam(inputFilePath, cplex, Transitivity.USE_LAZY, userCutCB, lazyCB, nbThread, LPFilePath, triangleIneqReducedForm);
+			else if(lazyPool)
+				myp = new MyParam(inputFilePath, cplex, Transitivity.USE_LAZY_POOL, userCutCB, lazyCB, nbThread, LPFilePath, triangleIneqReducedForm);
 			else
 				myp = new MyParam(inputFilePath, cplex, Transitivity.USE, userCutCB, lazyCB, nbThread, LPFilePath, triangleIneqReducedForm);
 			
@@ -411,19 +527,31 @@ public class MainExCC {
 			myp.useCplexAutoCuts = true;
 			myp.tilim = tilim;
 			myp.userCutInBB = userCutCB;
+			myp.genericCallback = genericCB;
+			myp.kernel = kernel;
+			myp.heuristicTimeLimit = heuristicTimeLimit;
+			myp.nodeHeuristicFrequency = nodeHeuristicFrequency;
+			
+			if(decompose && !isEnumAll && LPFilePath.equals("")) {
+				ComponentDecomposition decomposition = new ComponentDecomposition(myp, formulationType, outputDirPath);
+				decomposition.solve(initMembership);
+				decomposition.writeMembershipIntoFile(outputDirPath, "sol0.txt");
+				
+				cplex.end(); // end
+				return;
+			}
 			
 			try {
 				
 				AbstractFormulation p = null;
-				LazyCBCycle lcb = null;
 				if(formulationType.equals("vertex"))
 					p = new FormulationVertex(myp); // LPFilePath.equals("")=FALSE, we will just load variables
 				else if(formulationType.equals("edge")) {
 					p = new FormulationEdge(myp);
 					
 					// since the creation of constraints is omitted, we need to do it here
-					lcb = new LazyCBCycle(p, 500);
-					p.getCplex().use(lcb);
+					// (the callback is not registered twice if the formulation already did it)
+					((FormulationEdge) p).useLazyCBCycle();
 				}
 				
 				p.setLogPath(outputDirPath + "/logcplex.txt");
@@ -438,17 +566,55 @@ public class MainExCC {
 					p.getCplex().iloCplex.addMIPStart(mipStart.var, mipStart.val);
 				}
 				
+				MultiStartHeuristic heuristic = null;
+				if(heuristicTimeLimit > 0) {
+					heuristic = new MultiStartHeuristic(p.graph, nbThread, MultiStartHeuristic.DEFAULT_SEED);
+					heuristic.start(heuristicTimeLimit);
+					
+					/* The first solution of the heuristic is used as MIP start */
+					if(heuristic.awaitSolution(heuristicTimeLimit)) {
+						PrimalHeuristicRounding loader = new PrimalHeuristicRounding(p);
+						loader.improver = null;
+						SolutionManager mipStart = loader.loadIntSolution(heuristic.getBestMembership());
+						mipStart.setVar();
+						p.getCplex().iloCplex.addMIPStart(mipStart.var, mipStart.val);
+					}
+				}
+				
+				if(nodeHeuristicFrequency > 0 && !genericCB) {
+					RoundingHeuristicCallback rhc = new RoundingHeuristicCallback(p, nodeHeuristicFrequency,
+							tilim > 0 ? RoundingHeuristicCallback.TIME_SHARE * tilim : -1);
+					
+					/* Cplex only uses one heuristic callback */
+					rhc.heuristic = heuristic;
+					p.getCplex().use(rhc);
+				}
+				else if(heuristic != null) {
+					/* The next solutions of the heuristic are given during the branching phase 
+					 *  (legacy and generic callbacks cannot be mixed: without genericCB, the edge formulation
+					 *  and the vertex formulation with lazyCB already use a legacy lazy callback) */
+					if(!genericCB && (formulationType.equals("edge") || lazyCB))
+						p.getCplex().use(new MultiStartHeuristicCallback(p, heuristic));
+					else
+						new GenericMultiStartHeuristicCallback(p, heuristic).use();
+				}
+				
 				
 				if(isEnumAll) { // Enumerate all optimal solutions
 					System.out.println("BEFORE POPULATE() in main");
 				
 					p.populate(tilimForEnumAll, solLim);
+					p.shutdownSeparationPool();
 				
 					System.out.println("AFTER POPULATE() in main");
 				
 				} 
 				else { // Obtain only one optimal solution
 					p.solve();
+					p.shutdownSeparationPool();
+					
+					if(heuristic != null)
+						heuristic.stop();
 					
 					p.retreiveClusters();
 					p.computeObjectiveValueFromSolution();
@@ -461,7 +627,7 @@ public class MainExCC {
 					if(formulationType.equals("vertex"))
 						p.getCplex().iloCplex.exportModel(outputDirPath+"/"+"strengthedModel_vertex.lp");
 					else
-						((FormulationEdge) p).registerLPmodel("strengthedModel", lcb.getAddedCuts());
+						((FormulationEdge) p).registerLPmodel("strengthedModel", ((FormulationEdge) p).getLazyCBCycleAddedCuts());
 				}
 			
 			}
@@ -20,8 +20,15 @@ import ilog.concert.IloException;
  */
 public interface AbstractMIPStartGenerate {
 	
+	/**
+	 * @return a feasible solution obtained from the current relaxation
+	 *  (it can then be improved by a local search, see LocalSearchImprover)
+	 */
 	public abstract SolutionManager generateMIPStart() throws IloException;
 
+	/**
+	 * @return the feasible solution of a given partition (it can also be improved by a local search)
+	 */
 	public abstract SolutionManager loadIntSolution(int[] initialPartitionMembership) throws IloException;
 
 }
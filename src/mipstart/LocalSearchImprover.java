@@ -0,0 +1,393 @@
+package mipstart;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+import myUtils.CSRGraph;
+
+
+/**
+ * Local search which improves a partition (e.g. a MIP start obtained by rounding).
+ *
+ * The objective is the total weight of the misplaced edges (the positive edges between
+ *  two clusters and the negative edges inside a cluster), as in PrimalHeuristicRounding.evaluate().
+ * For each node v and each cluster C adjacent to v, the table weightTo[v] contains the total
+ *  weight w(v,C) of the edges between v and C. Moving v from A to B changes the objective by
+ *  w(v,A) - w(v,B), so the best move of a node is found in O(deg(v)) and applying it only
+ *  updates the tables of the neighbors of v.
+ *
+ * Each round of the local search performs:
+ * <ul>
+ * <li> node moves: each node is moved to the adjacent (or to a new) cluster which decreases the
+ *  objective the most, until no move improves it; </li>
+ * <li> merges: two clusters A and B such that w(A,B) > 0 are merged (the pairs with the
+ *  largest weight first, each cluster in at most one merge by round); </li>
+ * <li> splits: a cluster whose positive edges do not connect all its nodes is split into the
+ *  connected components of these edges if the weight between the components is negative. </li>
+ * </ul>
+ * The rounds are repeated until none of them improves the objective (or MAX_ROUNDS is reached).
+ *
+ * The clusters keep their number in the membership, new clusters are numbered after the largest one.
+ */
+public class LocalSearchImprover {
+
+	/** Minimal decrease of the objective for a transformation to be applied */
+	static final double EPS = 1E-9;
+
+	public int MAX_ROUNDS = 100;
+
+	final CSRGraph graph;
+	final int n;
+
+	/* Cluster of each node and size of each cluster (the clusters are numbered from 0 to n-1) */
+	int[] cluster;
+	int[] size;
+
+	/* Number of each cluster in the input membership (unusedLabel if it is a new cluster) */
+	int[] label;
+	static final int unusedLabel = Integer.MIN_VALUE;
+
+	/* Empty clusters */
+	int[] free;
+	int freeNb;
+
+	/* Total weight between each node and its adjacent clusters */
+	HashMap<Integer, Double>[] weightTo;
+
+	double cost;
+
+	public LocalSearchImprover(CSRGraph graph) {
+		this.graph = graph;
+		this.n = graph.n();
+
+		cluster = new int[n];
+		size = new int[n];
+		label = new int[n];
+		free = new int[n];
+	}
+
+
+	/**
+	 * Improve a partition
+	 *
+	 * @param membership  cluster number of each node, modified by the local search
+	 * @return the objective of the improved partition
+	 */
+	public double improve(int[] membership) {
+
+		initialize(membership);
+
+		int round = 0;
+		boolean improved = true;
+
+		while(improved && round < MAX_ROUNDS) {
+			improved = moveNodes();
+			improved |= mergeClusters();
+			improved |= splitClusters();
+			round++;
+		}
+
+		/* The new clusters are numbered after the largest number of the input */
+		int nextLabel = Integer.MIN_VALUE;
+		for(int v = 0 ; v < n ; ++v)
+			nextLabel = Math.max(nextLabel, membership[v]);
+		nextLabel++;
+
+		for(int v = 0 ; v < n ; ++v) {
+			int c = cluster[v];
+			if(label[c] == unusedLabel)
+				label[c] = nextLabel++;
+			membership[v] = label[c];
+		}
+
+		return cost;
+	}
+
+
+	@SuppressWarnings("unchecked")
+	private void initialize(int[] membership) {
+
+		Arrays.fill(size, 0);
+		Arrays.fill(label, unusedLabel);
+
+		/* The clusters are numbered in the order of their first node */
+		HashMap<Integer, Integer> clusterOfLabel = new HashMap<>();
+		for(int v = 0 ; v < n ; ++v) {
+			Integer c = clusterOfLabel.get(membership[v]);
+			if(c == null) {
+				c = clusterOfLabel.size();
+				clusterOfLabel.put(membership[v], c);
+				label[c] = membership[v];
+			}
+			cluster[v] = c;
+			size[c]++;
+		}
+
+		freeNb = 0;
+		for(int c = n-1 ; c >= clusterOfLabel.size() ; --c)
+			free[freeNb++] = c;
+
+		weightTo = new HashMap[n];
+		for(int v = 0 ; v < n ; ++v)
+			weightTo[v] = new HashMap<Integer, Double>();
+
+		cost = 0.0;
+		for(int id = 0 ; id < graph.m() ; ++id) {
+			int i = graph.source(id);
+			int j = graph.dest(id);
+			double w = graph.weight(id);
+
+			add(weightTo[i], cluster[j], w);
+			add(weightTo[j], cluster[i], w);
+
+			if(cluster[i] == cluster[j] && w < 0)
+				cost -= w;
+			else if(cluster[i] != cluster[j] && w > 0)
+				cost += w;
+		}
+	}
+
+
+	/**
+	 * Move each node to its best cluster until no move improves the objective
+	 *
+	 * @return True if the objective has been improved
+	 */
+	private boolean moveNodes() {
+
+		boolean improved = false;
+		boolean changed = true;
+
+		while(changed) {
+			changed = false;
+
+			for(int v = 0 ; v < n ; ++v) {
+				int from = cluster[v];
+				double wFrom = weight(weightTo[v], from);
+
+				/* Move to a new cluster (useless if v is alone) */
+				int bestTarget = -1;
+				double bestDelta = size[from] > 1 ? wFrom : Double.MAX_VALUE;
+
+				for(Map.Entry<Integer, Double> entry : weightTo[v].entrySet()) {
+					int c = entry.getKey();
+					if(c != from && size[c] > 0) {
+						double delta = wFrom - entry.getValue();
+						if(delta < bestDelta) {
+							bestDelta = delta;
+							bestTarget = c;
+						}
+					}
+				}
+
+				if(bestDelta < -EPS) {
+					if(bestTarget == -1)
+						bestTarget = free[--freeNb];
+					move(v, bestTarget);
+					cost += bestDelta;
+					changed = true;
+					improved = true;
+				}
+			}
+		}
+
+		return improved;
+	}
+
+
+	/**
+	 * Merge the pairs of clusters linked by a positive weight, by decreasing weight
+	 *
+	 * @return True if the objective has been improved
+	 */
+	private boolean mergeClusters() {
+
+		/* Weight between each pair of adjacent clusters (key: c1 * n + c2 with c1 < c2) */
+		final HashMap<Long, Double> between = new HashMap<>();
+		for(int id = 0 ; id < graph.m() ; ++id) {
+			int c1 = cluster[graph.source(id)];
+			int c2 = cluster[graph.dest(id)];
+			if(c1 != c2) {
+				long key = (long) Math.min(c1, c2) * n + Math.max(c1, c2);
+				Double old = between.get(key);
+				between.put(key, old == null ? graph.weight(id) : old + graph.weight(id));
+			}
+		}
+
+		ArrayList<Long> pairs = new ArrayList<>();
+		for(Map.Entry<Long, Double> entry : between.entrySet())
+			if(entry.getValue() > EPS)
+				pairs.add(entry.getKey());
+
+		if(pairs.isEmpty())
+			return false;
+
+		Collections.sort(pairs, new Comparator<Long>() {
+			@Override
+			public int compare(Long p1, Long p2) {
+				int result = Double.compare(between.get(p2), between.get(p1));
+				return result != 0 ? result : Long.compare(p1, p2);
+			}
+		});
+
+		ArrayList<ArrayList<Integer>> members = members();
+		boolean[] isMerged = new boolean[n];
+
+		for(long key : pairs) {
+			int c1 = (int) (key / n);
+			int c2 = (int) (key % n);
+
+			if(isMerged[c1] || isMerged[c2])
+				continue;
+
+			/* The smallest cluster is moved into the largest one */
+			int big = size[c1] >= size[c2] ? c1 : c2;
+			int small = big == c1 ? c2 : c1;
+
+			for(int v : members.get(small))
+				move(v, big);
+
+			cost -= between.get(key);
+			isMerged[c1] = true;
+			isMerged[c2] = true;
+		}
+
+		return true;
+	}
+
+
+	/**
+	 * Split the clusters into the connected components of their positive edges when the
+	 *  weight between these components is negative
+	 *
+	 * @return True if the objective has been improved
+	 */
+	private boolean splitClusters() {
+
+		/* Connected components of the positive edges inside the clusters */
+		int[] component = new int[n];
+		Arrays.fill(component, -1);
+		int[] queue = new int[n];
+		int componentNb = 0;
+
+		for(int s = 0 ; s < n ; ++s) {
+			if(component[s] != -1)
+				continue;
+
+			int head = 0, tail = 0;
+			queue[tail++] = s;
+			component[s] = componentNb;
+
+			while(head < tail) {
+				int i = queue[head++];
+				for(int k = graph.firstSlot(i) ; k < graph.firstSlot(i+1) ; ++k) {
+					int j = graph.neighborAt(k);
+					if(component[j] == -1 && cluster[j] == cluster[i] && graph.weightAt(k) > 0) {
+						component[j] = componentNb;
+						queue[tail++] = j;
+					}
+				}
+			}
+			componentNb++;
+		}
+
+		/* Weight between the components of each cluster */
+		double[] cut = new double[n];
+		for(int id = 0 ; id < graph.m() ; ++id) {
+			int i = graph.source(id);
+			int j = graph.dest(id);
+			if(cluster[i] == cluster[j] && component[i] != component[j])
+				cut[cluster[i]] += graph.weight(id);
+		}
+
+		/* The first component of each split cluster keeps it, the others get a new cluster */
+		int[] keptComponent = new int[n];
+		Arrays.fill(keptComponent, -1);
+		int[] newCluster = new int[componentNb];
+		Arrays.fill(newCluster, -1);
+
+		boolean improved = false;
+		int[] initialCluster = Arrays.copyOf(cluster, n);
+
+		for(int v = 0 ; v < n ; ++v) {
+			int c = initialCluster[v];
+			if(cut[c] >= -EPS)
+				continue;
+
+			if(keptComponent[c] == -1) {
+				keptComponent[c] = component[v];
+				cost += cut[c];
+				improved = true;
+			}
+			else if(component[v] != keptComponent[c]) {
+				if(newCluster[component[v]] == -1)
+					newCluster[component[v]] = free[--freeNb];
+				move(v, newCluster[component[v]]);
+			}
+		}
+
+		return improved;
+	}
+
+
+	/**
+	 * Move a node to another cluster and update the tables of its neighbors
+	 */
+	private void move(int v, int to) {
+
+		int from = cluster[v];
+
+		for(int k = graph.firstSlot(v) ; k < graph.firstSlot(v+1) ; ++k) {
+			int u = graph.neighborAt(k);
+			double w = graph.weightAt(k);
+			add(weightTo[u], from, -w);
+			add(weightTo[u], to, w);
+		}
+
+		cluster[v] = to;
+		size[to]++;
+		size[from]--;
+
+		if(size[from] == 0) {
+			label[from] = unusedLabel;
+			free[freeNb++] = from;
+		}
+	}
+
+
+	/**
+	 * @return the nodes of each cluster
+	 */
+	private ArrayList<ArrayList<Integer>> members() {
+		ArrayList<ArrayList<Integer>> members = new ArrayList<>();
+		for(int c = 0 ; c < n ; ++c)
+			members.add(new ArrayList<Integer>());
+		for(int v = 0 ; v < n ; ++v)
+			members.get(cluster[v]).add(v);
+		return members;
+	}
+
+
+	private static double weight(HashMap<Integer, Double> map, int c) {
+		Double w = map.get(c);
+		return w == null ? 0.0 : w;
+	}
+
+	/**
+	 * Add a weight to an entry of a table (the entries whose weight becomes zero are removed)
+	 */
+	private static void add(HashMap<Integer, Double> map, int c, double w) {
+		Double old = map.get(c);
+		double value = old == null ? w : old + w;
+
+		if(Math.abs(value) < 1E-12)
+			map.remove(c);
+		else
+			map.put(c, value);
+	}
+
+}
@@ -0,0 +1,361 @@
+package mipstart;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import myUtils.CSRGraph;
+
+
+/**
+ * Multi-start metaheuristic which computes feasible partitions of the signed graph independently
+ *  of cplex (e.g. to provide an upper bound to the cutting plane step and to the branch and bound).
+ *
+ * Each thread repeats the following steps until the time limit is reached or the engine is stopped:
+ * <ul>
+ * <li> GRASP construction: the nodes are considered in a random order and each node joins one
+ *  of the adjacent clusters with the largest positive weight w(v,C) (chosen at random among the
+ *  clusters whose weight is at least (1-ALPHA) times the largest one), or a new cluster; </li>
+ * <li> iterated local search: the partition is improved by the local search (see LocalSearchImprover),
+ *  then a few random nodes are moved (perturbation) and the local search is applied again. The
+ *  perturbed partition is kept if it is not worse. After MAX_NON_IMPROVING iterations without
+ *  improvement, the thread restarts from a new construction (or, one time out of two, from the
+ *  best partition found by all the threads). </li>
+ * </ul>
+ *
+ * The best partition found by the threads is kept in a shared slot (see offer() and getBestMembership()).
+ * The random generator of each thread is initialized from the seed of the engine and the number of
+ *  the thread, so each thread performs the same sequence of moves in two runs with the same seed
+ *  (the shared best partition still depends on the timing of the threads).
+ */
+public class MultiStartHeuristic {
+
+	public static final long DEFAULT_SEED = 12345L;
+
+	/** Relative size of the restricted candidate list of the construction */
+	static final double ALPHA = 0.3;
+
+	/** Number of iterations without improvement before a restart */
+	static final int MAX_NON_IMPROVING = 30;
+
+	/** Proportion of nodes moved by a perturbation */
+	static final double PERTURBATION_RATIO = 0.05;
+
+	static final double EPS = 1E-9;
+
+	final CSRGraph graph;
+	final int n;
+	final int threadNb;
+	final long seed;
+
+	Thread[] threads = null;
+	volatile boolean isStopped = false;
+
+	/* Time (System.nanoTime()) at which the threads stop (Long.MAX_VALUE if there is no time limit) */
+	long endTime;
+
+	/* Best partition found (null until a first partition is offered) */
+	int[] bestMembership = null;
+	volatile double bestCost = Double.MAX_VALUE;
+	volatile int bestVersion = 0;
+
+	/** Number of local searches performed by all the threads */
+	public AtomicLong iterations = new AtomicLong();
+
+	public MultiStartHeuristic(CSRGraph graph, int threadNb, long seed) {
+		this.graph = graph;
+		this.n = graph.n();
+		this.threadNb = Math.max(1, threadNb);
+		this.seed = seed;
+	}
+
+
+	/**
+	 * Start the threads of the engine (they are daemon threads, so they do not prevent the
+	 *  program from ending)
+	 *
+	 * @param timeLimit  time limit in seconds (-1 for no limit: the threads run until stop() is called)
+	 */
+	public void start(double timeLimit) {
+
+		isStopped = false;
+		endTime = timeLimit < 0 ? Long.MAX_VALUE : System.nanoTime() + (long) (timeLimit * 1E9);
+
+		threads = new Thread[threadNb];
+		for(int t = 0 ; t < threadNb ; ++t) {
+			threads[t] = new Thread(new Worker(t), "multi-start-heuristic-" + t);
+			threads[t].setDaemon(true);
+			threads[t].start();
+		}
+	}
+
+
+	/**
+	 * Ask the threads to stop (they stop at the end of their current local search)
+	 */
+	public void stop() {
+		isStopped = true;
+	}
+
+
+	/**
+	 * Wait until all the threads are stopped
+	 */
+	public void join() {
+		if(threads == null)
+			return;
+
+		for(Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+
+	/**
+	 * Wait until a first partition is found or all the threads are stopped
+	 *
+	 * @param timeLimit  maximal waiting time in seconds
+	 * @return True if a partition is available
+	 */
+	public synchronized boolean awaitSolution(double timeLimit) {
+		long end = System.nanoTime() + (long) (timeLimit * 1E9);
+
+		while(bestMembership == null && isRunning()) {
+			long remaining = end - System.nanoTime();
+			if(remaining <= 0)
+				break;
+
+			try {
+				wait(Math.max(1, remaining / 1000000));
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+
+		return bestMembership != null;
+	}
+
+
+	public boolean isRunning() {
+		if(threads == null)
+			return false;
+
+		for(Thread thread : threads)
+			if(thread.isAlive())
+				return true;
+		return false;
+	}
+
+
+	/**
+	 * Submit a partition to the shared slot (e.g. a partition found by the threads or by another heuristic)
+	 *
+	 * @param membership  cluster of each node (copied)
+	 * @param cost  objective of the partition
+	 * @return True if it is the new best partition
+	 */
+	public synchronized boolean offer(int[] membership, double cost) {
+		if(cost >= bestCost - EPS)
+			return false;
+
+		bestMembership = Arrays.copyOf(membership, n);
+		bestCost = cost;
+		bestVersion++;
+		notifyAll();
+		return true;
+	}
+
+
+	/**
+	 * @return a copy of the best partition (null if no partition has been found)
+	 */
+	public synchronized int[] getBestMembership() {
+		return bestMembership == null ? null : Arrays.copyOf(bestMembership, n);
+	}
+
+	/**
+	 * @return the objective of the best partition (Double.MAX_VALUE if no partition has been found)
+	 */
+	public double getBestCost() {
+		return bestCost;
+	}
+
+	/**
+	 * @return the number of improvements of the best partition (used to detect a new best partition)
+	 */
+	public int getBestVersion() {
+		return bestVersion;
+	}
+
+
+	private boolean isTimeUp() {
+		return isStopped || System.nanoTime() >= endTime;
+	}
+
+
+	/**
+	 * Search of one thread. All the working arrays are allocated once by thread.
+	 */
+	class Worker implements Runnable {
+
+		final Random random;
+		final LocalSearchImprover improver;
+
+		int[] current = new int[n];
+		int[] best = new int[n];
+		double bestWorkerCost;
+
+		/* Working arrays of the construction (indexed by the clusters, numbered from 1 to n) */
+		int[] order = new int[n];
+		double[] weightTo = new double[n+1];
+		boolean[] isTouched = new boolean[n+1];
+		int[] touched = new int[n];
+		int[] candidates = new int[n];
+
+		Worker(int t) {
+			random = new Random(seed + t);
+			improver = new LocalSearchImprover(graph);
+		}
+
+
+		@Override
+		public void run() {
+
+			boolean isFromShared = false;
+
+			while(!isTimeUp()) {
+
+				int[] shared = isFromShared ? getBestMembership() : null;
+				if(shared != null)
+					System.arraycopy(shared, 0, current, 0, n);
+				else
+					construct(current);
+
+				bestWorkerCost = localSearch(current);
+				System.arraycopy(current, 0, best, 0, n);
+
+				int nonImproving = 0;
+				while(nonImproving < MAX_NON_IMPROVING && !isTimeUp()) {
+					System.arraycopy(best, 0, current, 0, n);
+					perturb(current);
+					double cost = localSearch(current);
+
+					if(cost < bestWorkerCost - EPS)
+						nonImproving = 0;
+					else
+						nonImproving++;
+
+					if(cost <= bestWorkerCost + EPS) {
+						bestWorkerCost = cost;
+						int[] swap = best;
+						best = current;
+						current = swap;
+					}
+				}
+
+				isFromShared = random.nextBoolean();
+			}
+		}
+
+
+		private double localSearch(int[] membership) {
+			double cost = improver.improve(membership);
+			iterations.incrementAndGet();
+
+			if(cost < bestCost - EPS)
+				offer(membership, cost);
+
+			return cost;
+		}
+
+
+		/**
+		 * Randomized greedy construction of a partition (the clusters are numbered from 1)
+		 */
+		private void construct(int[] membership) {
+
+			for(int v = 0 ; v < n ; ++v) {
+				order[v] = v;
+				membership[v] = -1;
+			}
+
+			for(int v = n-1 ; v > 0 ; --v) {
+				int k = random.nextInt(v+1);
+				int tmp = order[v];
+				order[v] = order[k];
+				order[k] = tmp;
+			}
+
+			int clusterNb = 0;
+
+			for(int o = 0 ; o < n ; ++o) {
+				int v = order[o];
+
+				/* Weight between v and each adjacent cluster */
+				int touchedNb = 0;
+				for(int k = graph.firstSlot(v) ; k < graph.firstSlot(v+1) ; ++k) {
+					int c = membership[graph.neighborAt(k)];
+					if(c == -1)
+						continue;
+
+					if(!isTouched[c]) {
+						isTouched[c] = true;
+						touched[touchedNb++] = c;
+					}
+					weightTo[c] += graph.weightAt(k);
+				}
+
+				double max = 0.0;
+				for(int k = 0 ; k < touchedNb ; ++k)
+					max = Math.max(max, weightTo[touched[k]]);
+
+				/* Restricted candidate list */
+				int candidateNb = 0;
+				if(max > EPS)
+					for(int k = 0 ; k < touchedNb ; ++k)
+						if(weightTo[touched[k]] >= (1.0 - ALPHA) * max)
+							candidates[candidateNb++] = touched[k];
+
+				membership[v] = candidateNb > 0 ? candidates[random.nextInt(candidateNb)] : ++clusterNb;
+
+				for(int k = 0 ; k < touchedNb ; ++k) {
+					weightTo[touched[k]] = 0.0;
+					isTouched[touched[k]] = false;
+				}
+			}
+		}
+
+
+		/**
+		 * Move random nodes to the cluster of a random neighbor or to a new cluster
+		 */
+		private void perturb(int[] membership) {
+
+			int nextLabel = Integer.MIN_VALUE;
+			for(int v = 0 ; v < n ; ++v)
+				nextLabel = Math.max(nextLabel, membership[v]);
+			nextLabel++;
+
+			int moveNb = Math.max(1, (int) Math.round(PERTURBATION_RATIO * n));
+
+			for(int m = 0 ; m < moveNb ; ++m) {
+				int v = random.nextInt(n);
+				int degree = graph.firstSlot(v+1) - graph.firstSlot(v);
+
+				if(degree > 0 && random.nextInt(4) != 0)
+					membership[v] = membership[graph.neighborAt(graph.firstSlot(v) + random.nextInt(degree))];
+				else
+					membership[v] = nextLabel++;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,94 @@
+package mipstart;
+
+import java.util.Arrays;
+
+import formulation.AbstractFormulation;
+import ilog.concert.IloNumVar;
+import myUtils.CSRGraph;
+
+
+/**
+ * Values of all the edge variables of a formulation (in the order of edgeVarArray()) which
+ *  correspond to a partition: x_ij = 1 if i and j are in the same cluster, 0 otherwise.
+ *
+ * Unlike SolutionManager, which only sets the variables of the edges of the graph (enough for a
+ *  MIP start), the solution is complete and can be given to cplex during the branch and bound
+ *  (e.g. by a heuristic callback).
+ */
+public class PartitionValues {
+
+	final IloNumVar[] var;
+
+	/* Extremities of the pair of each variable */
+	final int[] source;
+	final int[] dest;
+
+	/* Index in variables() of each edge of the graph of the formulation (-1 if the edge has no variable) */
+	final int[] variableOfEdge;
+
+	public PartitionValues(AbstractFormulation formulation) {
+
+		var = formulation.edgeVarArray();
+		int[] pairIndex = formulation.edgeVarPairIndex();
+
+		int[] pairSource = new int[formulation.pairCount()];
+		int[] pairDest = new int[formulation.pairCount()];
+		for(int i = 0 ; i < formulation.n() ; ++i)
+			for(int j = i+1 ; j < formulation.n() ; ++j) {
+				int pos = formulation.pairIndex(i, j);
+				if(pos != -1) {
+					pairSource[pos] = i;
+					pairDest[pos] = j;
+				}
+			}
+
+		source = new int[var.length];
+		dest = new int[var.length];
+		for(int k = 0 ; k < var.length ; ++k) {
+			source[k] = pairSource[pairIndex[k]];
+			dest[k] = pairDest[pairIndex[k]];
+		}
+
+		int[] variableOfPair = new int[formulation.pairCount()];
+		Arrays.fill(variableOfPair, -1);
+		for(int k = 0 ; k < var.length ; ++k)
+			variableOfPair[pairIndex[k]] = k;
+
+		CSRGraph graph = formulation.graph;
+		variableOfEdge = new int[graph.m()];
+		for(int id = 0 ; id < graph.m() ; ++id) {
+			int pos = formulation.pairIndex(graph.source(id), graph.dest(id));
+			variableOfEdge[id] = pos == -1 ? -1 : variableOfPair[pos];
+		}
+	}
+
+
+	public IloNumVar[] variables() {
+		return var;
+	}
+
+
+	/**
+	 * @param membership  cluster of each node
+	 * @return the value of each variable of variables()
+	 */
+	public double[] values(int[] membership) {
+		double[] val = new double[var.length];
+		for(int k = 0 ; k < var.length ; ++k)
+			val[k] = membership[source[k]] == membership[dest[k]] ? 1.0 : 0.0;
+		return val;
+	}
+
+
+	/**
+	 * Get the value of each edge of the graph of the formulation from the values of the variables
+	 *
+	 * @param val  value of each variable of variables() (e.g. the relaxation of a node)
+	 * @param value  filled with the value of each edge, indexed by edge id (0 if the edge has no variable)
+	 */
+	public void edgeValues(double[] val, double[] value) {
+		for(int id = 0 ; id < variableOfEdge.length ; ++id)
+			value[id] = variableOfEdge[id] == -1 ? 0.0 : val[variableOfEdge[id]];
+	}
+
+}
@@ -0,0 +1,159 @@
+package mipstart;
+
+import java.util.Random;
+
+import formulation.AbstractFormulation;
+import myUtils.CSRGraph;
+
+
+/**
+ * Randomized pivot rounding of the edge values (KwikCluster-style LP rounding):
+ *  while a node is not clustered, an unclustered node is chosen at random as pivot and each of
+ *  its unclustered neighbors j joins the cluster of the pivot with a probability which depends on
+ *  the value x_pivot,j (1 if it is at least HIGH, 0 if it is at most LOW, linear in between).
+ *
+ * The neighbors are the ones of the graph of the formulation. With FormulationVertex, this graph
+ *  contains all the pairs of nodes (including the pairs of weight 0), so every unclustered node is
+ *  a candidate. With FormulationEdge, the other pairs have no variable (x = 0).
+ *
+ * The objective is computed incrementally during the rounding: when a node is clustered, the
+ *  edges towards its clustered neighbors are counted (each edge once, when its second extremity
+ *  is clustered), so the objective does not add any cost to the rounding.
+ *
+ * An engine allocates its arrays once and must not be used by several threads at the same time.
+ */
+public class PivotRounding {
+
+	/** Values from which a neighbor always (resp. never) joins the cluster of the pivot */
+	static final double HIGH = 0.7;
+	static final double LOW = 0.3;
+
+	final CSRGraph graph;
+	final int n;
+
+	/* Pair index of the edge of each slot of the graph (see pairOfSlot()) */
+	final int[] pairOfSlot;
+
+	/* Unclustered nodes are order[next..n-1] (random order) */
+	int[] order;
+	int[] position;
+
+	/**
+	 * @param formulation  formulation whose edge values are rounded
+	 * @param pairOfSlot  pair index of each slot of the graph of the formulation (see pairOfSlot()),
+	 *  which can be shared by several engines
+	 */
+	public PivotRounding(AbstractFormulation formulation, int[] pairOfSlot) {
+		this.graph = formulation.graph;
+		this.n = graph.n();
+		this.pairOfSlot = pairOfSlot;
+
+		order = new int[n];
+		position = new int[n];
+	}
+
+
+	/**
+	 * @return the pair index (see AbstractFormulation.pairIndex()) of the edge of each slot of
+	 *  the graph of the formulation
+	 */
+	public static int[] pairOfSlot(AbstractFormulation formulation) {
+		CSRGraph graph = formulation.graph;
+		int[] pair = new int[graph.firstSlot(graph.n())];
+
+		for(int v = 0 ; v < graph.n() ; ++v)
+			for(int k = graph.firstSlot(v) ; k < graph.firstSlot(v+1) ; ++k)
+				pair[k] = formulation.pairIndex(v, graph.neighborAt(k));
+
+		return pair;
+	}
+
+
+	/**
+	 * Compute a partition by randomized pivot rounding
+	 *
+	 * @param value  value of each pair, indexed by formulation.pairIndex(i,j)
+	 * @param random  random generator which determines the pivots and the rounding of the edges
+	 * @param membership  filled with the cluster of each node (from 1 to the number of clusters)
+	 * @return the objective of the partition
+	 */
+	public double round(double[] value, Random random, int[] membership) {
+
+		for(int v = 0 ; v < n ; ++v) {
+			order[v] = v;
+			position[v] = v;
+			membership[v] = 0;
+		}
+
+		double cost = 0.0;
+		int clusterNb = 0;
+
+		for(int next = 0 ; next < n ; ) {
+
+			/* Random unclustered pivot, swapped to the position 'next' */
+			swap(next, next + random.nextInt(n - next));
+			int pivot = order[next++];
+			membership[pivot] = ++clusterNb;
+			int first = next;
+
+			for(int k = graph.firstSlot(pivot) ; k < graph.firstSlot(pivot+1) ; ++k) {
+				int j = graph.neighborAt(k);
+				if(membership[j] == 0 && pairOfSlot[k] != -1 && isJoining(value[pairOfSlot[k]], random)) {
+					membership[j] = clusterNb;
+					swap(position[j], next++);
+				}
+			}
+
+			/* Edges between the new cluster and the clustered nodes */
+			cost += clusteredCost(pivot, membership);
+			for(int c = first ; c < next ; ++c)
+				cost += clusteredCost(order[c], membership);
+		}
+
+		return cost;
+	}
+
+
+	private boolean isJoining(double x, Random random) {
+		if(x >= HIGH)
+			return true;
+		if(x <= LOW)
+			return false;
+		return random.nextDouble() < (x - LOW) / (HIGH - LOW);
+	}
+
+
+	/**
+	 * @return the weight of the misplaced edges between v and its neighbors which are clustered
+	 *  before v (the nodes of the cluster of v which precede v are counted once)
+	 */
+	private double clusteredCost(int v, int[] membership) {
+		double cost = 0.0;
+		int pv = position[v];
+
+		for(int k = graph.firstSlot(v) ; k < graph.firstSlot(v+1) ; ++k) {
+			int u = graph.neighborAt(k);
+			if(membership[u] == 0 || position[u] > pv)
+				continue;
+
+			double w = graph.weightAt(k);
+			if(membership[u] == membership[v] && w < 0)
+				cost -= w;
+			else if(membership[u] != membership[v] && w > 0)
+				cost += w;
+		}
+
+		return cost;
+	}
+
+
+	private void swap(int a, int b) {
+		int va = order[a];
+		int vb = order[b];
+		order[a] = vb;
+		order[b] = va;
+		position[vb] = a;
+		position[va] = b;
+	}
+
+}
@@ -0,0 +1,174 @@
+package mipstart;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import formulation.AbstractFormulation;
+import ilog.concert.IloException;
+import variable.VariableGetter;
+
+
+/**
+ * Primal heuristic which generates many partitions from the current relaxation by randomized
+ *  pivot rounding (see PivotRounding) and keeps the best one.
+ *
+ * The partitions are shared between threadNb threads, each thread having its own rounding engine.
+ *  The threads, the engines and the working arrays are created once, so the batch is meant to be
+ *  kept by the cutting plane step and called at each rounding (see shutdown()).
+ *  The partition k is obtained with the seed DEFAULT_SEED + k and the best partition is the one
+ *  with the lowest objective (the lowest k in case of tie), so the result does not depend on the
+ *  number of threads nor on their timing.
+ * The best partition is improved by the local search, and it is compared with the greedy rounding
+ *  of PrimalHeuristicRounding, so the result is never worse than this rounding.
+ */
+public class PivotRoundingBatch implements AbstractMIPStartGenerate{
+
+	public static final long DEFAULT_SEED = 12345L;
+
+	/** Formulation whose relaxation is rounded */
+	public final AbstractFormulation formulation;
+	int partitionNb;
+	int threadNb;
+
+	/* Rounding engine and current partition of each thread, and threads of the batch (daemon threads) */
+	PivotRounding[] rounding;
+	int[][] roundMembership;
+	ExecutorService executor;
+
+	/* Value of each pair in the relaxation to round */
+	double[] value;
+
+	/* Greedy rounding (also used to load a partition) */
+	PrimalHeuristicRounding greedy;
+
+	/* Best partition of each thread and its objective */
+	int[][] threadMembership;
+	double[] threadCost;
+	int[] threadPartition;
+
+	public PivotRoundingBatch(AbstractFormulation formulation, int partitionNb, int threadNb) {
+		this.formulation = formulation;
+		this.partitionNb = Math.max(1, partitionNb);
+		this.threadNb = Math.max(1, Math.min(threadNb, this.partitionNb));
+
+		greedy = new PrimalHeuristicRounding(formulation);
+
+		int[] pairOfSlot = PivotRounding.pairOfSlot(formulation);
+		rounding = new PivotRounding[this.threadNb];
+		for(int t = 0 ; t < this.threadNb ; ++t)
+			rounding[t] = new PivotRounding(formulation, pairOfSlot);
+
+		value = new double[formulation.pairCount()];
+		roundMembership = new int[this.threadNb][formulation.n()];
+		threadMembership = new int[this.threadNb][formulation.n()];
+		threadCost = new double[this.threadNb];
+		threadPartition = new int[this.threadNb];
+
+		executor = Executors.newFixedThreadPool(this.threadNb, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				/* An idle batch does not prevent the program from ending */
+				Thread t = new Thread(r, "pivot-rounding");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+
+	/**
+	 * Stop the threads of the batch (it cannot be used anymore)
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+
+	@Override
+	public SolutionManager loadIntSolution(int[] membership) throws IloException {
+		return greedy.loadIntSolution(membership);
+	}
+
+
+	@Override
+	public SolutionManager generateMIPStart() throws IloException {
+
+		/* Values of all the pairs with a single bulk call (unless a snapshot is already taken) */
+		VariableGetter vg = formulation.variableGetter();
+		if(vg.hasEdgeSnapshot())
+			System.arraycopy(vg.getEdgeSnapshot(), 0, value, 0, value.length);
+		else {
+			System.arraycopy(vg.takeEdgeSnapshot(formulation), 0, value, 0, value.length);
+			vg.releaseEdgeSnapshot();
+		}
+
+		ArrayList<Future<?>> tasks = new ArrayList<>();
+		for(int t = 0 ; t < threadNb ; ++t) {
+			final int thread = t;
+			tasks.add(executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					roundPartitions(thread);
+				}
+			}));
+		}
+
+		for(Future<?> task : tasks) {
+			try {
+				task.get();
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			} catch (ExecutionException e) {
+				e.getCause().printStackTrace();
+			}
+		}
+
+		/* Best partition over the threads */
+		int best = 0;
+		for(int t = 1 ; t < threadNb ; ++t)
+			if(threadCost[t] < threadCost[best]
+					|| (threadCost[t] == threadCost[best] && threadPartition[t] < threadPartition[best]))
+				best = t;
+
+		int[] membership = threadMembership[best];
+		double cost = greedy.improver.improve(membership);
+
+		SolutionManager greedyMIP = greedy.generateMIPStart();
+		if(greedyMIP.evaluate() <= cost)
+			return greedyMIP;
+
+		/* The partition is already improved */
+		LocalSearchImprover improver = greedy.improver;
+		greedy.improver = null;
+		SolutionManager mip = greedy.loadIntSolution(membership);
+		greedy.improver = improver;
+
+		return mip;
+	}
+
+
+	/**
+	 * Round the partitions thread, thread + threadNb, ... and keep the best one
+	 */
+	private void roundPartitions(int thread) {
+
+		int[] membership = roundMembership[thread];
+		threadCost[thread] = Double.MAX_VALUE;
+
+		for(int k = thread ; k < partitionNb ; k += threadNb) {
+			double cost = rounding[thread].round(value, new Random(DEFAULT_SEED + k), membership);
+
+			if(cost < threadCost[thread]) {
+				threadCost[thread] = cost;
+				threadPartition[thread] = k;
+				System.arraycopy(membership, 0, threadMembership[thread], 0, membership.length);
+			}
+		}
+	}
+
+}
@@ -1,20 +1,11 @@
 package mipstart;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.List;
-
 import ilog.concert.IloException;
-import ilog.concert.IloNumVar;
 import ilog.cplex.IloCplex.UnknownObjectException;
+import myUtils.CSRGraph;
 import formulation.AbstractFormulation;
 import formulation.Edge;
 
-import java.util.Collections;
-
 
 /**
  * This class aims at performing a simple primal heuristic called <i>Greedy-based Rounding</i>.
@@ -29,6 +20,12 @@ public class PrimalHeuristicRounding implements AbstractMIPStartGenerate{
 	AbstractFormulation formulation;
 	int bestMembership [];
 	
+	/* Engine of the greedy rounding (created at the first call) */
+	UnionFindRounding rounding = null;
+	
+	/** Local search applied to the rounded and to the loaded solutions (null if they are not improved) */
+	public LocalSearchImprover improver;
+	
 
 	public PrimalHeuristicRounding(AbstractFormulation s) {
 		this.formulation = s;
@@ -36,6 +33,8 @@ public class PrimalHeuristicRounding implements AbstractMIPStartGenerate{
 		
 		for(int m = 0 ; m < formulation.n() ; ++m)
 			bestMembership[m] = m+1; // assign each node to diff. cluster (starting from 1)
+		
+		improver = new LocalSearchImprover(formulation.graph);
 	}
 	
 	public double evaluate(int[] membership) {
@@ -62,6 +61,9 @@ public class PrimalHeuristicRounding implements AbstractMIPStartGenerate{
 		for(int m = 0 ; m < formulation.n() ; ++m)
 			bestMembership[m] = membership[m]; // assign each node to diff. cluster (starting from 1)
 		
+		if(improver != null)
+			improver.improve(bestMembership);
+		
 		for(Edge e : formulation.getEdges()) {
 			if(bestMembership[e.getSource()] == bestMembership[e.getDest()])
 				mip.setEdge(e.getSource(),e.getDest(),1.0);
@@ -89,11 +91,13 @@ public class PrimalHeuristicRounding implements AbstractMIPStartGenerate{
 	 * 		 for each edge variable: </li>
 	 * 		<li> merge the 2 clusters to which the corresponding nodes
 	 * 		 (sharing the edge) belong</li>
-	 * 		<li> compute objective function (i.e. evaluating) </li>
+	 * 		<li> compute objective function (i.e. evaluating). The variation of the objective
+	 * 		 is obtained from the weight between the 2 clusters (see UnionFindRounding) </li>
 	 * 		<li> if the objective function value is improved 
 	 * 		(i.e. reduced compared to the best current solution),
 	 * 			 assign the solution as the best current solution. </li>
 	 *    </ul>
+	 * <li> Improve the obtained partition with the local search (see LocalSearchImprover) </li>
 	 * </ul>
 	 * 
 	 */
@@ -101,125 +105,30 @@ public class PrimalHeuristicRounding implements AbstractMIPStartGenerate{
 		
 		SolutionManager mip = new SolutionManager(formulation);		
 		
-		Map<Edge, Double> edgesId = new LinkedHashMap<Edge, Double>();
+		CSRGraph graph = formulation.graph;
+		double[] value = new double[graph.m()];
 		
+		for(int id = 0 ; id < graph.m() ; ++id){
 				
-		/* While all the edges variables have not been displayed */
-		for(Edge e : formulation.getEdges()){
-				
-				double value;
 				try {
-					IloNumVar x_ij = formulation.edgeVar(e.getSource(), e.getDest());
-					value = formulation.variableGetter().getValue(x_ij);
+					value[id] = formulation.variableGetter().getEdgeValue(formulation, graph.source(id), graph.dest(id));
 				} catch (UnknownObjectException exc) {
-					value = 0.0;
+					value[id] = 0.0;
 					//e.printStackTrace();
 				} catch (IloException exc) {
-					value = 0.0;
+					value[id] = 0.0;
 					//e.printStackTrace();
 				}
-				
-				edgesId.put(e, value);
-		}
-		
-		
-		List<Map.Entry<Edge, Double>> entryList;
-		entryList = new ArrayList<Map.Entry<Edge, Double>>(edgesId.entrySet());
-	    Collections.sort(entryList, new Comparator<Map.Entry<Edge, Double>>() {
-	        @Override
-	        public int compare(Entry<Edge, Double> o1, Entry<Edge, Double> o2) {
-	            return o2.getValue().compareTo(o1.getValue());
-	        }
-	    });
-	    
-	    
-	    // ======================================================
-	    
-	    
-	    double best = Double.MAX_VALUE;
-	    int[] membership =  new int [formulation.n()];
-		for(int m = 0 ; m < formulation.n() ; ++m)
-			membership[m] = m+1; // assign each node to different cluster (starting from 1)
-	    
-		
-		// ------------------------------------------------------------------
-	    // after sorting
-		// ------------------------------------------------------------------
-
-		
-		boolean changed = true;
-		while(changed) {
-			changed = false;
-//			System.out.println(" ------------- iteration begin --------------");
-			
-			for(Map.Entry<Edge, Double> entry : entryList){
-	        	Edge e = entry.getKey();
-	        	int i = e.getSource();
-	        	int j = e.getDest();
-	        	double value = entry.getValue();
-	        	
- 
-	        	if(value > 0.5){ // OLD: value > 1E-4
-
-					int c_i = membership[i];
-					int c_j = membership[j];
-
-					// merge both clusters as the value of their edge variable is > 0.5
-					membership[j] = c_i;
-					
-					/* if there are other other nodes being in the 'c_j' cluster,
-					 *  put them also in the 'c_i' cluster */
-					for(int m = 0 ; m < formulation.n() ; ++m){						
-						if(membership[m] == c_j)
-							membership[m]=c_i;
-					}
-					
-
-				
-					double newObjVal = evaluate(membership);
-					if(newObjVal < best) { // improved
-						changed = true;
-						best = newObjVal;
-						
-						for(int m = 0 ; m < formulation.n() ; ++m)
-							bestMembership[m] = membership[m];
-												
-					} else { // if not improved
-						
-						// restore the 'membership' vector based on best membership
-						for(int m = 0 ; m < formulation.n() ; ++m)
-							membership[m] = bestMembership[m];
-					}
-				
-					
-				}
-	
-	        }
-			
-			
-			
-//			System.out.println(" ---------- iteration end ------------");
 		}
-		// ------------------------------------------------------------------
-
 		
+		if(rounding == null)
+			rounding = new UnionFindRounding(graph);
 		
+		/* If no edge has a value greater than 0.5, the previous best membership is kept */
+		rounding.round(value, bestMembership);
 		
-//		// ---------------------------------------------------------------------
-//		for(int m = 0 ; m < formulation.n() ; ++m)
-//			membership[m] = 0;
-//		
-//		
-//		for(int i=1; i<formulation.n(); i++) {
-//			for(int j=0; j<i; j++) {
-//				if(bestMembership[i] == bestMembership[j]) {
-//					membership[i] = 1;
-//					membership[j] = 1
-//				}
-//			}
-//		}
-//		// ---------------------------------------------------------------------
-//		
+		if(improver != null)
+			improver.improve(bestMembership);
 		
 		for(Edge e : formulation.getEdges()){
 			if(bestMembership[e.getSource()] == bestMembership[e.getDest()])
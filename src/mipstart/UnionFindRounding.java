@@ -0,0 +1,210 @@
+package mipstart;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import myUtils.CSRGraph;
+
+
+/**
+ * Greedy rounding engine of PrimalHeuristicRounding based on a union-find structure.
+ *
+ * The edges whose value is greater than 0.5 are considered by decreasing value (the ties are
+ *  kept in the order of their ids) and the clusters of their extremities are merged if it
+ *  decreases the objective. Since merging two clusters A and B changes the objective by
+ *  -w(A,B) (the sum of the weights of the edges between A and B), the total weight between
+ *  each pair of adjacent clusters is maintained instead of evaluating each partition:
+ *  a merge is tested in O(1) and the maps of the clusters are merged from the smallest to
+ *  the largest, which gives a near-linear time for a pass over the edges.
+ *
+ * The partitions (and the cluster numbers) are the same as in the former implementation
+ *  which relabeled and evaluated the whole membership for each edge.
+ */
+public class UnionFindRounding {
+
+	final CSRGraph graph;
+	final int n;
+
+	/* Union-find structure (union by size of the maps, path halving) */
+	int[] parent;
+
+	/* Number of the cluster of each root (from 1 to n) */
+	int[] label;
+
+	/* Total weight between the cluster of each root and its adjacent clusters (null if not a root) */
+	HashMap<Integer, Double>[] between;
+
+	/* Extremities of the edges whose value is greater than 0.5, by decreasing value */
+	int[] candidateSource;
+	int[] candidateDest;
+	int candidateNb;
+
+	public UnionFindRounding(CSRGraph graph) {
+		this.graph = graph;
+		this.n = graph.n();
+
+		parent = new int[n];
+		label = new int[n];
+		candidateSource = new int[graph.m()];
+		candidateDest = new int[graph.m()];
+	}
+
+
+	/**
+	 * Compute the partition obtained by the greedy rounding of the edge values.
+	 *
+	 * @param value  value of each edge, indexed by edge id in the graph
+	 * @param membership  filled with the cluster of each node (from 1 to n). It is not
+	 * 			modified if no edge has a value greater than 0.5
+	 * @return True if the membership has been set
+	 */
+	public boolean round(double[] value, int[] membership) {
+
+		sortCandidates(value);
+
+		if(candidateNb == 0)
+			return false;
+
+		initializeClusters();
+
+		/* The first merge is always done since the initial best objective is +infinity */
+		boolean isFirstMerge = true;
+
+		/* While a merge has been done in the previous pass */
+		boolean changed = true;
+		while(changed) {
+			changed = false;
+
+			for(int c = 0 ; c < candidateNb ; ++c) {
+				int ri = find(candidateSource[c]);
+				int rj = find(candidateDest[c]);
+
+				if(ri == rj)
+					continue;
+
+				/* The objective decreases iff the weight between the two clusters is positive */
+				Double w = between[ri].get(rj);
+				if(isFirstMerge || (w != null && w > 0)) {
+					union(ri, rj);
+					isFirstMerge = false;
+					changed = true;
+				}
+			}
+		}
+
+		for(int v = 0 ; v < n ; ++v)
+			membership[v] = label[find(v)];
+
+		return true;
+	}
+
+
+	/**
+	 * Keep the edges whose value is greater than 0.5 and sort them by decreasing value (stable merge sort)
+	 */
+	private void sortCandidates(double[] value) {
+
+		int[] ids = new int[graph.m()];
+		candidateNb = 0;
+		for(int id = 0 ; id < graph.m() ; ++id)
+			if(value[id] > 0.5)
+				ids[candidateNb++] = id;
+
+		int[] buffer = new int[candidateNb];
+
+		for(int width = 1 ; width < candidateNb ; width *= 2) {
+			for(int lo = 0 ; lo < candidateNb - width ; lo += 2*width) {
+				int mid = lo + width;
+				int hi = Math.min(lo + 2*width, candidateNb);
+
+				int a = lo, b = mid, k = lo;
+				while(a < mid && b < hi)
+					buffer[k++] = value[ids[b]] > value[ids[a]] ? ids[b++] : ids[a++];
+				while(a < mid)
+					buffer[k++] = ids[a++];
+				while(b < hi)
+					buffer[k++] = ids[b++];
+
+				System.arraycopy(buffer, lo, ids, lo, hi - lo);
+			}
+		}
+
+		for(int c = 0 ; c < candidateNb ; ++c) {
+			candidateSource[c] = graph.source(ids[c]);
+			candidateDest[c] = graph.dest(ids[c]);
+		}
+	}
+
+
+	/**
+	 * Each node is in its own cluster, adjacent to the clusters of its neighbors
+	 */
+	@SuppressWarnings("unchecked")
+	private void initializeClusters() {
+
+		between = new HashMap[n];
+		for(int v = 0 ; v < n ; ++v) {
+			parent[v] = v;
+			label[v] = v+1;
+			between[v] = new HashMap<Integer, Double>();
+		}
+
+		for(int id = 0 ; id < graph.m() ; ++id) {
+			int i = graph.source(id);
+			int j = graph.dest(id);
+			double w = graph.weight(id);
+
+			add(between[i], j, w);
+			add(between[j], i, w);
+		}
+	}
+
+
+	private int find(int v) {
+		while(parent[v] != v) {
+			parent[v] = parent[parent[v]];
+			v = parent[v];
+		}
+		return v;
+	}
+
+
+	/**
+	 * Merge the cluster of the root rj into the cluster of the root ri (the merged cluster keeps the number of ri)
+	 */
+	private void union(int ri, int rj) {
+
+		int clusterLabel = label[ri];
+
+		/* The adjacent clusters of the smallest map are moved into the largest one */
+		int big = between[ri].size() >= between[rj].size() ? ri : rj;
+		int small = big == ri ? rj : ri;
+
+		HashMap<Integer, Double> bigMap = between[big];
+		bigMap.remove(small);
+
+		for(Map.Entry<Integer, Double> entry : between[small].entrySet()) {
+			int c = entry.getKey();
+			if(c == big)
+				continue;
+
+			double w = entry.getValue();
+			add(bigMap, c, w);
+
+			HashMap<Integer, Double> cMap = between[c];
+			cMap.remove(small);
+			add(cMap, big, w);
+		}
+
+		between[small] = null;
+		parent[small] = big;
+		label[big] = clusterLabel;
+	}
+
+
+	private static void add(HashMap<Integer, Double> map, int c, double w) {
+		Double old = map.get(c);
+		map.put(c, old == null ? w : old + w);
+	}
+
+}
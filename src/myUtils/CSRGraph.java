@@ -0,0 +1,223 @@
+package myUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+import formulation.Edge;
+
+
+/**
+ * Immutable undirected graph in compressed sparse row format.
+ *
+ * Each edge has an id between 0 and m-1 (its position in the collection given to the constructor).
+ * The neighbors of a node v are stored in 'neighbor' between start[v] and start[v+1]-1,
+ *  in increasing order. For each of these slots, 'edgeId' and 'weight' give the id and
+ *  the weight of the corresponding edge.
+ *
+ * The graph is built once (e.g. by the formulation) and it is never modified. The searches
+ *  on a subset of its edges (e.g. the edges whose value is at least 0.5 in the current
+ *  relaxation) are done with a CSRGraphView, which can be reused from one call to the next.
+ */
+public class CSRGraph {
+
+	final int n;
+	final int m;
+
+	final int[] start;
+	final int[] neighbor;
+	final int[] edgeId;
+	final double[] weight;
+
+	/* Extremities of each edge (source < dest) and the corresponding Edge object */
+	final int[] source;
+	final int[] dest;
+	final Edge[] edges;
+
+	/* Connected component of each node (all the edges are considered) */
+	final int[] component;
+
+	public CSRGraph(int n, Collection<Edge> edgeCollection) {
+		this.n = n;
+		this.m = edgeCollection.size();
+
+		source = new int[m];
+		dest = new int[m];
+		edges = new Edge[m];
+
+		int id = 0;
+		for(Edge e : edgeCollection) {
+			source[id] = e.getSource();
+			dest[id] = e.getDest();
+			edges[id] = e;
+			id++;
+		}
+
+		start = new int[n+1];
+		for(int e = 0 ; e < m ; ++e) {
+			start[source[e]+1]++;
+			start[dest[e]+1]++;
+		}
+		for(int v = 0 ; v < n ; ++v)
+			start[v+1] += start[v];
+
+		/* Unsorted incident edges of each node */
+		int[] incident = new int[2*m];
+		int[] fill = Arrays.copyOf(start, n);
+		for(int e = 0 ; e < m ; ++e) {
+			incident[fill[source[e]]++] = e;
+			incident[fill[dest[e]]++] = e;
+		}
+
+		/* The nodes are considered in increasing order, so the rows are sorted */
+		neighbor = new int[2*m];
+		edgeId = new int[2*m];
+		weight = new double[2*m];
+		fill = Arrays.copyOf(start, n);
+
+		for(int v = 0 ; v < n ; ++v)
+			for(int k = start[v] ; k < start[v+1] ; ++k) {
+				int e = incident[k];
+				int u = source[e] == v ? dest[e] : source[e];
+				int slot = fill[u]++;
+				neighbor[slot] = v;
+				edgeId[slot] = e;
+				weight[slot] = edges[e].getWeight();
+			}
+
+		component = new int[n];
+		boolean[] all = new boolean[m];
+		Arrays.fill(all, true);
+		computeComponents(all, component, new int[n]);
+	}
+
+
+	public int n() {
+		return n;
+	}
+
+	public int m() {
+		return m;
+	}
+
+	public int degree(int v) {
+		return start[v+1] - start[v];
+	}
+
+	public int source(int id) {
+		return source[id];
+	}
+
+	public int dest(int id) {
+		return dest[id];
+	}
+
+	public Edge edge(int id) {
+		return edges[id];
+	}
+
+	public double weight(int id) {
+		return edges[id].getWeight();
+	}
+
+
+	/**
+	 * @return the id of the edge (i,j), or -1 if there is no such edge (binary search in the row of i)
+	 */
+	public int edgeId(int i, int j) {
+		int pos = Arrays.binarySearch(neighbor, start[i], start[i+1], j);
+		return pos >= 0 ? edgeId[pos] : -1;
+	}
+
+	/**
+	 * @return the first slot of the row of v (the slots of v are firstSlot(v)..firstSlot(v+1)-1)
+	 */
+	public int firstSlot(int v) {
+		return start[v];
+	}
+
+	public int neighborAt(int slot) {
+		return neighbor[slot];
+	}
+
+	public double weightAt(int slot) {
+		return weight[slot];
+	}
+
+	public int edgeIdAt(int slot) {
+		return edgeId[slot];
+	}
+
+	public boolean isAdjacent(int i, int j) {
+		return Arrays.binarySearch(neighbor, start[i], start[i+1], j) >= 0;
+	}
+
+	public boolean isInSameConnComp(int i, int j) {
+		return component[i] == component[j];
+	}
+
+
+	/**
+	 * Connected components of the graph restricted to the edges e such that isSelected[e] is true
+	 *  (breadth-first search).
+	 *
+	 * @param isSelected  selected edges, indexed by edge id
+	 * @param comp  filled with the component of each node (from 0)
+	 * @param queue  array of size n used as a queue
+	 * @return the number of components
+	 */
+	int computeComponents(boolean[] isSelected, int[] comp, int[] queue) {
+
+		Arrays.fill(comp, -1);
+		int nb = 0;
+
+		for(int s = 0 ; s < n ; ++s)
+			if(comp[s] == -1) {
+				int head = 0, tail = 0;
+				queue[tail++] = s;
+				comp[s] = nb;
+
+				while(head < tail) {
+					int v = queue[head++];
+
+					for(int k = start[v] ; k < start[v+1] ; ++k)
+						if(isSelected[edgeId[k]] && comp[neighbor[k]] == -1) {
+							comp[neighbor[k]] = nb;
+							queue[tail++] = neighbor[k];
+						}
+				}
+
+				nb++;
+			}
+
+		return nb;
+	}
+
+
+	/**
+	 * A path closed by the edge between its two extremities is a chordless cycle if no other
+	 *  pair of non consecutive nodes of the path is adjacent in the graph.
+	 *
+	 * @param path  nodes of the path (at least 3)
+	 */
+	public boolean isPathChordless(ArrayList<Integer> path) {
+
+		int last = path.size() - 1;
+
+		for(int a = 0 ; a < last ; ++a)
+			for(int b = a + 2 ; b <= last ; ++b)
+				if(!(a == 0 && b == last) && isAdjacent(path.get(a), path.get(b)))
+					return false;
+
+		return true;
+	}
+
+
+	/**
+	 * @return a new view of this graph in which no edge is selected
+	 */
+	public CSRGraphView view() {
+		return new CSRGraphView(this);
+	}
+
+}
@@ -0,0 +1,274 @@
+package myUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+
+/**
+ * Subgraph of a CSRGraph which contains the selected edges only (e.g. the edges whose value is
+ *  at least 0.5 in the current relaxation), with an optional length for each edge.
+ *
+ * The selection is a mask over the edge ids, so a view is built without creating any edge or set.
+ * A view and its working arrays are allocated once and reused by the successive searches:
+ *  the marks of the visited nodes are stamped, so a search only resets the nodes it visited.
+ *  A view must not be used by several threads at the same time.
+ */
+public class CSRGraphView {
+
+	public final CSRGraph graph;
+
+	/** True if the edge is in the view (indexed by edge id) */
+	public final boolean[] isSelected;
+
+	/** Length of each edge, used by the Dijkstra algorithm (indexed by edge id) */
+	public final double[] length;
+
+	/* Connected components of the view (valid after computeComponents()) */
+	int[] component;
+
+	/* Working arrays of the searches */
+	int[] queue;
+	int[] parent;
+	int[] visited;
+	int stamp = 0;
+
+	/* Engine of the Dijkstra algorithm (created at the first search) */
+	ShortestPathEngine engine = null;
+
+	CSRGraphView(CSRGraph graph) {
+		this.graph = graph;
+
+		isSelected = new boolean[graph.m];
+		length = new double[graph.m];
+
+		component = new int[graph.n];
+		queue = new int[graph.n];
+		parent = new int[graph.n];
+		visited = new int[graph.n];
+	}
+
+
+	/**
+	 * Remove all the edges from the view
+	 */
+	public void clear() {
+		Arrays.fill(isSelected, false);
+	}
+
+	/**
+	 * Add all the edges of the graph in the view
+	 */
+	public void selectAll() {
+		Arrays.fill(isSelected, true);
+	}
+
+	public void select(int id) {
+		isSelected[id] = true;
+	}
+
+	public void setLength(int id, double value) {
+		length[id] = value;
+	}
+
+
+	/**
+	 * Compute the connected components of the view (must be called again when the selection changes)
+	 *
+	 * @return the number of components
+	 */
+	public int computeComponents() {
+		return graph.computeComponents(isSelected, component, queue);
+	}
+
+	public boolean isInSameConnComp(int i, int j) {
+		return component[i] == component[j];
+	}
+
+
+	private void newSearch() {
+		stamp++;
+
+		/* The stamps overflow after 2^31 searches */
+		if(stamp == Integer.MAX_VALUE) {
+			Arrays.fill(visited, 0);
+			stamp = 1;
+		}
+	}
+
+
+	/**
+	 * Path with the lowest number of edges between u and v in the view (breadth-first search)
+	 *
+	 * @return the nodes of the path from v to u (both included), or an empty list if u and v are not connected
+	 */
+	public ArrayList<Integer> searchShortestPathBFS(int u, int v) {
+
+		ArrayList<Integer> path = new ArrayList<Integer>();
+
+		if(u == v)
+			return path;
+
+		newSearch();
+
+		int head = 0, tail = 0;
+		queue[tail++] = u;
+		visited[u] = stamp;
+		parent[u] = -1;
+
+		boolean isFound = false;
+
+		while(head < tail && !isFound) {
+			int i = queue[head++];
+
+			for(int k = graph.start[i] ; k < graph.start[i+1] ; ++k) {
+				if(!isSelected[graph.edgeId[k]])
+					continue;
+
+				int j = graph.neighbor[k];
+
+				if(visited[j] != stamp) {
+					visited[j] = stamp;
+					parent[j] = i;
+					queue[tail++] = j;
+
+					if(j == v) {
+						isFound = true;
+						break;
+					}
+				}
+			}
+		}
+
+		if(isFound)
+			tracePath(v, path);
+
+		return path;
+	}
+
+
+	/**
+	 * @return a new breadth-first search tree of this view
+	 */
+	public BFSTree newBFSTree() {
+		return new BFSTree();
+	}
+
+
+	/**
+	 * Breadth-first search tree of the view rooted at a node. A single tree gives a path with the
+	 *  lowest number of edges from its root to each of the nodes it reaches.
+	 * Each tree has its own working arrays, so several trees of the same view can be computed
+	 *  in parallel (as long as the selection of the view does not change).
+	 */
+	public class BFSTree {
+
+		int root = -1;
+
+		int[] treeParent = new int[graph.n];
+		int[] reached = new int[graph.n];
+		int[] isTarget = new int[graph.n];
+		int[] treeQueue = new int[graph.n];
+		int treeStamp = 0;
+
+		/**
+		 * Grow the tree from u until all the targets are reached or all the nodes connected to u are reached
+		 *
+		 * @param targets  array which contains the targets between the indexes from (included) and to (excluded)
+		 * @return the number of targets reached
+		 */
+		public int search(int u, int[] targets, int from, int to) {
+
+			treeStamp++;
+			if(treeStamp == Integer.MAX_VALUE) {
+				Arrays.fill(reached, 0);
+				Arrays.fill(isTarget, 0);
+				treeStamp = 1;
+			}
+
+			root = u;
+			int remaining = 0;
+			for(int t = from ; t < to ; ++t)
+				if(isTarget[targets[t]] != treeStamp && targets[t] != u) {
+					isTarget[targets[t]] = treeStamp;
+					remaining++;
+				}
+			int targetNb = remaining;
+
+			int head = 0, tail = 0;
+			treeQueue[tail++] = u;
+			reached[u] = treeStamp;
+			treeParent[u] = -1;
+
+			while(head < tail && remaining > 0) {
+				int i = treeQueue[head++];
+
+				for(int k = graph.start[i] ; k < graph.start[i+1] && remaining > 0 ; ++k) {
+					if(!isSelected[graph.edgeId[k]])
+						continue;
+
+					int j = graph.neighbor[k];
+
+					if(reached[j] != treeStamp) {
+						reached[j] = treeStamp;
+						treeParent[j] = i;
+						treeQueue[tail++] = j;
+
+						if(isTarget[j] == treeStamp)
+							remaining--;
+					}
+				}
+			}
+
+			return targetNb - remaining;
+		}
+
+		public boolean isReached(int v) {
+			return reached[v] == treeStamp;
+		}
+
+		/**
+		 * @return the nodes of the path from v to the root of the tree (both included),
+		 *  or an empty list if v has not been reached
+		 */
+		public ArrayList<Integer> path(int v) {
+			ArrayList<Integer> path = new ArrayList<Integer>();
+
+			if(v != root && isReached(v)) {
+				int j = v;
+				path.add(j);
+				while(treeParent[j] >= 0) {
+					j = treeParent[j];
+					path.add(j);
+				}
+			}
+
+			return path;
+		}
+	}
+
+
+	/**
+	 * Shortest path between u and v in the view according to 'length' (Dijkstra algorithm).
+	 * The edge (u,v) itself is not used.
+	 *
+	 * @return the nodes of the path from v to u (both included), or an empty list if there is no such path
+	 */
+	public ArrayList<Integer> searchShortestPathDijkstra(int u, int v) {
+
+		if(engine == null)
+			engine = new ShortestPathEngine(this);
+
+		return engine.searchShortestPath(u, v);
+	}
+
+
+	private void tracePath(int v, ArrayList<Integer> path) {
+		int j = v;
+		path.add(j);
+		while(parent[j] >= 0) {
+			j = parent[j];
+			path.add(j);
+		}
+	}
+
+}
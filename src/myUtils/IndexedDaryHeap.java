@@ -0,0 +1,149 @@
+package myUtils;
+
+import java.util.Arrays;
+
+
+/**
+ * Min-heap of the nodes 0..n-1 with a key for each node, stored in primitive arrays.
+ * The position of each node in the heap is known, so the key of a node can be decreased
+ *  in O(log_d n). Each node has d children, which makes the heap flatter than a binary heap
+ *  (a larger d favors the decrease-key operations over the removals).
+ */
+public class IndexedDaryHeap {
+
+	final int d;
+
+	int size = 0;
+	int[] heap;
+
+	/* Position of each node in 'heap' (-1 if it is not in the heap) */
+	int[] position;
+	double[] key;
+
+	public IndexedDaryHeap(int n, int d) {
+		this.d = d;
+		heap = new int[n];
+		position = new int[n];
+		key = new double[n];
+		Arrays.fill(position, -1);
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean contains(int node) {
+		return position[node] != -1;
+	}
+
+	public int minNode() {
+		return heap[0];
+	}
+
+	public double minKey() {
+		return key[heap[0]];
+	}
+
+	public double key(int node) {
+		return key[node];
+	}
+
+
+	/**
+	 * Insert the node if it is not in the heap, otherwise decrease its key if the new key is lower
+	 *
+	 * @return true if the node has been inserted or its key has been decreased
+	 */
+	public boolean insertOrDecrease(int node, double newKey) {
+
+		int pos = position[node];
+
+		if(pos == -1) {
+			pos = size++;
+		}
+		else if(newKey >= key[node])
+			return false;
+
+		key[node] = newKey;
+		siftUp(node, pos);
+		return true;
+	}
+
+
+	/**
+	 * Remove the node with the lowest key
+	 */
+	public int pop() {
+
+		int result = heap[0];
+		position[result] = -1;
+		size--;
+
+		if(size > 0)
+			siftDown(heap[size], 0);
+
+		return result;
+	}
+
+
+	/**
+	 * Remove all the nodes (in O(size))
+	 */
+	public void clear() {
+		for(int k = 0 ; k < size ; ++k)
+			position[heap[k]] = -1;
+		size = 0;
+	}
+
+
+	private void siftUp(int node, int pos) {
+
+		double k = key[node];
+
+		while(pos > 0) {
+			int up = (pos - 1) / d;
+			if(key[heap[up]] <= k)
+				break;
+			heap[pos] = heap[up];
+			position[heap[pos]] = pos;
+			pos = up;
+		}
+
+		heap[pos] = node;
+		position[node] = pos;
+	}
+
+
+	private void siftDown(int node, int pos) {
+
+		double k = key[node];
+
+		while(true) {
+			int first = d * pos + 1;
+			if(first >= size)
+				break;
+
+			/* Child with the lowest key */
+			int best = first;
+			int last = Math.min(first + d, size);
+			for(int c = first + 1 ; c < last ; ++c)
+				if(key[heap[c]] < key[heap[best]])
+					best = c;
+
+			if(k <= key[heap[best]])
+				break;
+
+			heap[pos] = heap[best];
+			position[heap[pos]] = pos;
+			pos = best;
+		}
+
+		heap[pos] = node;
+		position[node] = pos;
+	}
+
+}
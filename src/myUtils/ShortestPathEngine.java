@@ -0,0 +1,213 @@
+package myUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+
+/**
+ * Dijkstra algorithm on a CSRGraphView, according to the lengths of the view (which must be non negative).
+ *
+ * The engine is allocated once and reused by the successive searches. Its arrays are only reset
+ *  for the nodes touched by the previous search, so a search which stops early (all its targets are
+ *  settled or the distance exceeds a bound) does not cost O(n).
+ * Some edges can be forbidden for the next search only (e.g. the edge (u,v) when a path between
+ *  u and v is searched). An engine must not be used by several threads at the same time.
+ */
+public class ShortestPathEngine {
+
+	/** Number of children of the nodes of the heap */
+	public static final int DEFAULT_ARITY = 4;
+
+	final CSRGraphView view;
+	final IndexedDaryHeap heap;
+
+	int source = -1;
+	double[] dist;
+	int[] parent;
+	boolean[] isSettled;
+	boolean[] isTarget;
+
+	/* Nodes whose distance has been set in the last search */
+	int[] touched;
+	int touchedNb = 0;
+
+	/* Edges forbidden in the next search */
+	boolean[] isForbidden;
+	int[] forbidden;
+	int forbiddenNb = 0;
+
+	public ShortestPathEngine(CSRGraphView view) {
+		this(view, DEFAULT_ARITY);
+	}
+
+	public ShortestPathEngine(CSRGraphView view, int arity) {
+		this.view = view;
+
+		int n = view.graph.n;
+		heap = new IndexedDaryHeap(n, arity);
+		dist = new double[n];
+		parent = new int[n];
+		isSettled = new boolean[n];
+		isTarget = new boolean[n];
+		touched = new int[n];
+
+		isForbidden = new boolean[view.graph.m];
+		forbidden = new int[view.graph.m];
+	}
+
+
+	/**
+	 * Forbid an edge in the next search
+	 */
+	public void forbid(int id) {
+		if(!isForbidden[id]) {
+			isForbidden[id] = true;
+			forbidden[forbiddenNb++] = id;
+		}
+	}
+
+
+	/**
+	 * Settle the nodes in increasing order of their distance to the source, until all the
+	 *  targets are settled or the distance of the next node is not lower than 'bound'.
+	 *
+	 * @param targets  array which contains the targets between the indexes from (included) and to (excluded)
+	 * @param bound  distance from which the search stops (Double.MAX_VALUE for no bound)
+	 * @return the number of targets settled
+	 */
+	public int search(int source, int[] targets, int from, int to, double bound) {
+
+		reset();
+		this.source = source;
+
+		int remaining = 0;
+		for(int t = from ; t < to ; ++t)
+			if(!isTarget[targets[t]]) {
+				isTarget[targets[t]] = true;
+				remaining++;
+			}
+		int targetNb = remaining;
+
+		CSRGraph graph = view.graph;
+
+		touch(source, 0.0, -1);
+		heap.insertOrDecrease(source, 0.0);
+
+		while(!heap.isEmpty() && remaining > 0 && heap.minKey() < bound) {
+			int i = heap.pop();
+			isSettled[i] = true;
+
+			if(isTarget[i])
+				remaining--;
+
+			for(int k = graph.start[i] ; k < graph.start[i+1] ; ++k) {
+				int e = graph.edgeId[k];
+				int j = graph.neighbor[k];
+
+				if(!view.isSelected[e] || isForbidden[e] || isSettled[j])
+					continue;
+
+				double newDist = dist[i] + view.length[e];
+
+				if(parent[j] == -2)
+					touch(j, newDist, i);
+				else if(newDist < dist[j]) {
+					dist[j] = newDist;
+					parent[j] = i;
+				}
+				else
+					continue;
+
+				heap.insertOrDecrease(j, newDist);
+			}
+		}
+
+		for(int t = from ; t < to ; ++t)
+			isTarget[targets[t]] = false;
+
+		/* The forbidden edges are only used by this search */
+		for(int c = 0 ; c < forbiddenNb ; ++c)
+			isForbidden[forbidden[c]] = false;
+		forbiddenNb = 0;
+
+		return targetNb - remaining;
+	}
+
+
+	/**
+	 * Shortest path between u and v in which the edge (u,v) is not used
+	 *
+	 * @return the nodes of the path from v to u (both included), or an empty list if there is no such path
+	 */
+	public ArrayList<Integer> searchShortestPath(int u, int v) {
+
+		if(u == v)
+			return new ArrayList<Integer>();
+
+		int id = view.graph.edgeId(u, v);
+		if(id != -1)
+			forbid(id);
+
+		search(u, new int[] {v}, 0, 1, Double.MAX_VALUE);
+		return path(v);
+	}
+
+
+	public boolean isSettled(int v) {
+		return isSettled[v];
+	}
+
+	/**
+	 * @return the distance of a settled node to the source of the last search
+	 */
+	public double distance(int v) {
+		return dist[v];
+	}
+
+	/**
+	 * @return the nodes of the shortest path from the settled node v to the source of the last
+	 *  search (both included), or an empty list if v is the source or is not settled
+	 */
+	public ArrayList<Integer> path(int v) {
+		ArrayList<Integer> path = new ArrayList<Integer>();
+
+		if(v != source && isSettled[v]) {
+			int j = v;
+			path.add(j);
+			while(parent[j] >= 0) {
+				j = parent[j];
+				path.add(j);
+			}
+		}
+
+		return path;
+	}
+
+
+	private void touch(int v, double d, int p) {
+		dist[v] = d;
+		parent[v] = p;
+		touched[touchedNb++] = v;
+	}
+
+	/**
+	 * Reset the nodes touched by the last search (parent -2 means that the node has not been reached)
+	 */
+	private void reset() {
+
+		if(source == -1) {
+			Arrays.fill(parent, -2);
+		}
+		else {
+			for(int c = 0 ; c < touchedNb ; ++c) {
+				int v = touched[c];
+				parent[v] = -2;
+				isSettled[v] = false;
+			}
+		}
+
+		touchedNb = 0;
+		heap.clear();
+	}
+
+}
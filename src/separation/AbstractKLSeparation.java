@@ -1,6 +1,9 @@
 package separation;
 
 import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import formulation.AbstractFormulation;
 import ilog.concert.IloException;
@@ -19,6 +22,11 @@ import variable.VariableGetter;
  *  In each iteration, several phases are carried out
  *   until the best transformation found in a phase is not better than the one found
  *    in the previous phase.
+ *    
+ * The iterations are independent random restarts. If formulation.p.nbSeparationThread > 1,
+ *  they are performed concurrently by workers (see createWorker()) in the separation pool of the formulation.
+ *  Each restart seeds the random generator with its id, so the cuts found are the same
+ *  whatever the number of threads.
  **/
 public abstract class AbstractKLSeparation<Formulation extends AbstractFormulation> extends AbstractSeparation<Formulation>{
 
@@ -28,6 +36,10 @@ public abstract class AbstractKLSeparation<Formulation extends AbstractFormulati
 
 	/** Represent the best cut found so far in an iteration */
 	protected Cut bestCut;
+	
+	/** Best cuts found in the current and the previous phases of an iteration */
+	protected Cut bestInCurrentPhase;
+	protected Cut bestInPreviousPhase;
 
 	/** Slack of the currently considered cut */
 	protected double currentCutSlack;
@@ -36,7 +48,7 @@ public abstract class AbstractKLSeparation<Formulation extends AbstractFormulati
 	protected AbstractInequality<Formulation> currentSets;
 
 	/** Contain for each iteration the most violated cut found (if any) */
-	private ArrayList<Cut> violatedCut;
+	private ArrayList<AbstractInequality<Formulation>> violatedCut;
 
 	/** Total number of iterations */
 	int iterations_nb;
@@ -46,6 +58,20 @@ public abstract class AbstractKLSeparation<Formulation extends AbstractFormulati
 
 	public double worstValue;
 	boolean stopIteratingWhenCutFound;
+	
+	/** Random generator used to create the first sets of a restart (seeded in each restart) */
+	protected Random random = new Random();
+	
+	static final long SEED = 2463534242L;
+	
+	/** Number of calls to separate() */
+	long separationNb = 0;
+	
+	/** Number of restarts performed concurrently (formulation.p.nbSeparationThread) */
+	int parallelism = 1;
+	
+	/** Separation algorithms used by the threads, each one with its own sets and arrays */
+	ArrayList<AbstractKLSeparation<Formulation>> workers = null;
 
 	public AbstractKLSeparation(String name, Formulation formulation, VariableGetter vg,
 			int iterations, boolean stopIteratingWhenCutFound){
@@ -53,127 +79,278 @@ public abstract class AbstractKLSeparation<Formulation extends AbstractFormulati
 		this.iterations_nb = iterations;
 		this.stopIteratingWhenCutFound = stopIteratingWhenCutFound;
 		worstValue = Double.MAX_VALUE;
+		
+		if(formulation.p != null)
+			this.parallelism = Math.max(1, formulation.p.nbSeparationThread);
 
 	}
 
 	@Override
 	public ArrayList<AbstractInequality<? extends AbstractFormulation>> separate(){
 
-		violatedCut = new ArrayList<Cut>();
-
-		for(it = 0 ; it < iterations_nb ; ++it){			
-
-			Cut bestInCurrentPhase = new Cut();
-			Cut bestInPreviousPhase = new Cut();
-
-			/* Randomly create the first sets */
-			initializeSets();
-
-			boolean isOver = false;
+		violatedCut = new ArrayList<>();
+		boolean isSnapshotOwner = takeEdgeSnapshot();
+		try {
+		
+			ArrayList<AbstractInequality<Formulation>> restartCut;
+		
+			if(parallelism > 1 && iterations_nb > 1)
+				restartCut = runRestartsInParallel();
+			else{
+				restartCut = new ArrayList<>();
+			
+				for(it = 0 ; it < iterations_nb && !isTimeUp() ; ++it){
+					AbstractInequality<Formulation> c = runRestart(it);
+					restartCut.add(c);
+				
+					if(c != null && this.stopIteratingWhenCutFound)
+						it = iterations_nb;
+				}
+			}
+		
+			/* Add the violated cuts in the order of the restarts */
+			for(int i = 0 ; i < restartCut.size() ; ++i)
+				if(restartCut.get(i) != null){
+				
+					AbstractInequality<Formulation> new_vcut = restartCut.get(i);
+				
+					boolean already_found = false;
+					int j = 0;
+
+					while(j < violatedCut.size() && !already_found){
+
+						if(new_vcut.getCutKey().equals(violatedCut.get(j).getCutKey()))
+							already_found = true;
+
+						++j;					
+					}
 
-//			int phaseNb = 0;			
+					if(!already_found)
+						violatedCut.add(new_vcut);
+					if(this.stopIteratingWhenCutFound)
+						break;
+				}
+		
+			separationNb++;
 
-			try{
-				/* While a better transformation has been found in the previous phase */
-				while(!isOver){
+			ArrayList<AbstractInequality<? extends AbstractFormulation>> ineq = new ArrayList<>();
 
-//					phaseNb++;
-					/* Initialize the subscores according to the current Sets and
-					 *  set the current cut to the currently best cut */
-					initializeTransformationArrays();
-					initializeSubSlacks();
-					currentCutSlack = currentSets.getSlack(vg);
-					bestCut = new Cut(currentSets, currentCutSlack);
+			for(int i = 0 ; i < violatedCut.size() ; ++i){
+				AbstractInequality<Formulation> i_c = violatedCut.get(i);
 
-					/* Compute the slacks and get the best transformation */
-					computeTransformationSlacks();
+				ineq.add(i_c);		
+			}
 
-					/* While there is still some possible transformations */
-					while(bestNextTransformation.slack != worstValue){
+			return ineq;
+		}
+		finally {
+			releaseEdgeSnapshot(isSnapshotOwner);
+		}
+	}
+	
+	
+	/**
+	 * Perform one iteration of the algorithm (i.e. one random restart)
+	 * 
+	 * The candidate cuts are stored in the reusable Cut objects of the separation algorithm,
+	 *  only the violated cut returned is created as an inequality.
+	 * 
+	 * @param restartId  id of the restart in [0, iterations_nb[, used to seed the random generator
+	 * @return The best cut found in this restart if it is violated; null otherwise
+	 */
+	AbstractInequality<Formulation> runRestart(int restartId){
+
+		random.setSeed(restartSeed(restartId));
+		
+		int candidateSize = candidateSize();
+		if(bestCut == null || bestCut.sets.length != candidateSize){
+			bestCut = new Cut(candidateSize);
+			bestInCurrentPhase = new Cut(candidateSize);
+			bestInPreviousPhase = new Cut(candidateSize);
+		}
+		
+		bestInCurrentPhase.slack = worstValue;
+		bestInPreviousPhase.slack = worstValue;
 
-						/* Apply the transformation on the sets */
-						updateSets(bestNextTransformation);
+		/* Randomly create the first sets */
+		initializeSets();
 
-						/* Update the current slack */
-						currentCutSlack += bestNextTransformation.slack;				
+		boolean isOver = false;
 
-						/* If the current slack is lower than the best already found */
-						if(currentCutSlack < bestCut.slack){
-							bestCut.set(currentSets, currentCutSlack);
-						}
+//		int phaseNb = 0;			
 
-//						//Use this condition to check that the slacks are updated properly
-//						if(Math.abs(currentCutSlack-currentSets.getSlack()) > eps){
-//							System.out.println("Error: currentslack: " + currentCutSlack
-//						+ " but currentSet real slack: " + currentSets.getSlack());
-//							System.exit(0);
-//						}
-
-//						
-//						if(currentSets instanceof ST_Inequality){
-//							System.out.println("abs: "
-//							+ Math.round(((ST_Inequality)currentSets).evaluate()) + "\n");
-//					}
+		try{
+			/* While a better transformation has been found in the previous phase */
+			while(!isOver){
 
+//				phaseNb++;
+				/* Initialize the subscores according to the current Sets and
+				 *  set the current cut to the currently best cut */
+				initializeTransformationArrays();
+				initializeSubSlacks();
+				currentCutSlack = currentSets.getSlack(vg);
+				bestCut.set(currentCutSlack);
 
-						/* Update the subslacks */
-						updateSubSlacks(bestNextTransformation);
+				/* Compute the slacks and get the best transformation */
+				computeTransformationSlacks();
 
-						/* Compute the scores and get the best transformation */
-						computeTransformationSlacks();
+				/* While there is still some possible transformations */
+				while(bestNextTransformation.slack != worstValue && !isTimeUp()){
 
-					} // End: while(bestTransformation.score != worstValue){
+					/* Apply the transformation on the sets */
+					updateSets(bestNextTransformation);
 
-					bestInPreviousPhase = new Cut(bestInCurrentPhase);
-					bestInCurrentPhase = new Cut(bestCut);
+					/* Update the current slack */
+					currentCutSlack += bestNextTransformation.slack;				
 
-					/* If the best cut of this iteration is not better than the previous one,
-					 *  the iteration end */
-					if(bestInCurrentPhase.slack >= bestInPreviousPhase.slack - eps)
-						isOver = true;
-					/* Else start a new iteration with the best sets of this iteration */
-					else{
-						setSets(bestInCurrentPhase.sets);
+					/* If the current slack is lower than the best already found */
+					if(currentCutSlack < bestCut.slack){
+						bestCut.set(currentCutSlack);
 					}
 
-				} // End: while(!isOver){
-			}catch(IloException e){e.printStackTrace();}
-
-//			System.out.println("\nNbOfPhases: " + phaseNb);
-
-			/* If a violated inequality is found */
-			if(isViolated(bestInPreviousPhase)){
+//					//Use this condition to check that the slacks are updated properly
+//					if(Math.abs(currentCutSlack-currentSets.getSlack()) > eps){
+//						System.out.println("Error: currentslack: " + currentCutSlack
+//					+ " but currentSet real slack: " + currentSets.getSlack());
+//						System.exit(0);
+//					}
 
-				Cut new_vcut = new Cut(bestInPreviousPhase);
+					/* Update the subslacks */
+					updateSubSlacks(bestNextTransformation);
 
-				boolean already_found = false;
-				int j = 0;
+					/* Compute the scores and get the best transformation */
+					computeTransformationSlacks();
 
-				while(j < violatedCut.size() && !already_found){
+				} // End: while(bestTransformation.score != worstValue){
 
-					if(new_vcut.equals(violatedCut.get(j)))
-						already_found = true;
+				bestInPreviousPhase.copy(bestInCurrentPhase);
+				bestInCurrentPhase.copy(bestCut);
 
-					++j;					
+				/* If the best cut of this iteration is not better than the previous one,
+				 *  the iteration end */
+				if(bestInCurrentPhase.slack >= bestInPreviousPhase.slack - eps)
+					isOver = true;
+				/* If the time is up, the best sets of this phase are kept */
+				else if(isTimeUp()){
+					bestInPreviousPhase.copy(bestInCurrentPhase);
+					isOver = true;
+				}
+				/* Else start a new iteration with the best sets of this iteration */
+				else{
+					setSets(bestInCurrentPhase.sets);
 				}
 
-				if(!already_found)
-					violatedCut.add(new_vcut);
-				if(this.stopIteratingWhenCutFound)
-					it = iterations_nb;
-			}
-
-		} /* End: for(it = 0 ; it < iterations_nb ; ++it){	*/
-
-		ArrayList<AbstractInequality<? extends AbstractFormulation>> ineq = new ArrayList<>();
+			} // End: while(!isOver){
+		}catch(IloException e){e.printStackTrace();}
 
-		for(int i = 0 ; i < violatedCut.size() ; ++i){
-			AbstractInequality<Formulation> i_c = violatedCut.get(i).sets;
+//		System.out.println("\nNbOfPhases: " + phaseNb);
 
-			ineq.add(i_c);		
+		/* If a violated inequality is found */
+		if(isViolated(bestInPreviousPhase))
+			return createInequality(bestInPreviousPhase.sets);
+		else
+			return null;
+	}
+	
+	
+	/**
+	 * Perform the iterations of the algorithm concurrently: each worker repeatedly takes the
+	 *  next restart id and runs it with its own sets and transformation arrays.
+	 *  
+	 * If stopIteratingWhenCutFound is true, a restart is not started if a restart with a lower id
+	 *  already found a violated cut. Since the ids are taken in increasing order, all the restarts
+	 *  before the first successful one are completed, as in the sequential version.
+	 * 
+	 * @return For each restart, the violated cut found (null if there is none)
+	 */
+	ArrayList<AbstractInequality<Formulation>> runRestartsInParallel(){
+		
+		/* Each restart only sets its own element */
+		final ArrayList<AbstractInequality<Formulation>> restartCut = new ArrayList<>();
+		for(int i = 0 ; i < iterations_nb ; ++i)
+			restartCut.add(null);
+		
+		final AtomicInteger nextRestart = new AtomicInteger(0);
+		final AtomicInteger firstViolatedRestart = new AtomicInteger(iterations_nb);
+		
+		int workersNb = Math.min(parallelism, iterations_nb);
+		ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>();
+		
+		for(int w = 0 ; w < workersNb ; ++w){
+			
+			final AbstractKLSeparation<Formulation> worker = getWorker(w);
+			prepareWorker(worker);
+			
+			tasks.add(getPool().submit(new Runnable(){
+
+				@Override
+				public void run() {
+					
+					int restartId = nextRestart.getAndIncrement();
+					
+					while(restartId < firstViolatedRestart.get() && !worker.isTimeUp()){
+						
+						AbstractInequality<Formulation> c = worker.runRestart(restartId);
+						
+						if(c != null){
+							restartCut.set(restartId, c);
+							
+							if(stopIteratingWhenCutFound){
+								int first = firstViolatedRestart.get();
+								while(restartId < first && !firstViolatedRestart.compareAndSet(first, restartId))
+									first = firstViolatedRestart.get();
+							}
+						}
+						
+						restartId = nextRestart.getAndIncrement();
+					}
+				}
+			}));
 		}
-
-		return ineq;
+		
+		for(ForkJoinTask<?> task : tasks)
+			task.join();
+		
+		return restartCut;
+	}
+	
+	
+	/**
+	 * Seed of the random generator in a given restart. 
+	 * It only depends on the restart and on the number of previous separations, 
+	 *  so the cuts found do not depend on the number of threads.
+	 */
+	long restartSeed(int restartId){
+		return SEED + 1000003L * separationNb + restartId;
+	}
+	
+	private AbstractKLSeparation<Formulation> getWorker(int w){
+		
+		if(workers == null)
+			workers = new ArrayList<>();
+		
+		while(workers.size() <= w)
+			workers.add(createWorker());
+		
+		return workers.get(w);
+	}
+	
+	/**
+	 * Create a separation algorithm of the same type which can perform 
+	 *  restarts concurrently with this one
+	 */
+	protected abstract AbstractKLSeparation<Formulation> createWorker();
+	
+	/**
+	 * Give to a worker the data of the current separation
+	 * (a subclass with additional parameters must also copy them)
+	 */
+	protected void prepareWorker(AbstractKLSeparation<Formulation> worker){
+		worker.x = x;
+		worker.vg = vg;
+		worker.deadline = deadline;
+		worker.eps = eps;
+		worker.separationNb = separationNb;
 	}
 
 	/**
@@ -187,9 +364,25 @@ public abstract class AbstractKLSeparation<Formulation extends AbstractFormulati
 
 	/**
 	 * Set the value of the considered sets
-	 * @param sets
+	 * @param sets Compact representation of the sets (see storeSets())
+	 */
+	public abstract void setSets(int[] sets);
+	
+	/**
+	 * Length of the compact representation of the sets
 	 */
-	public abstract void setSets(AbstractInequality<Formulation> sets);
+	public abstract int candidateSize();
+	
+	/**
+	 * Write the currently considered sets in a compact representation
+	 * @param sets Array of size candidateSize()
+	 */
+	public abstract void storeSets(int[] sets);
+	
+	/**
+	 * Create the inequality corresponding to sets in compact representation
+	 */
+	public abstract AbstractInequality<Formulation> createInequality(int[] sets);
 
 	/**
 	 * Update the sets according to the transformation
@@ -210,43 +403,29 @@ public abstract class AbstractKLSeparation<Formulation extends AbstractFormulati
 
 	public abstract void initializeTransformationArrays();
 
+	/**
+	 * A candidate cut: its slack and its sets in compact representation.
+	 * The objects are reused from one phase to another (the values are copied). 
+	 */
 	public class Cut{
 
 		public double slack;
-		public AbstractInequality<Formulation> sets;
+		public int[] sets;
 
-		public Cut(AbstractInequality<Formulation> s, double currentCutSlack){
-			this.slack = currentCutSlack;
-			sets = s;
+		public Cut(int candidateSize){
+			this.slack = worstValue;
+			sets = new int[candidateSize];
 		}
 
-		public void set(AbstractInequality<Formulation> currentSets, double currentCutSlack) {
+		/** Set the cut to the currently considered sets */
+		public void set(double currentCutSlack) {
 			this.slack = currentCutSlack;
-			this.sets = currentSets.clone();
-
-		}
-
-		public Cut(){
-			this.slack = worstValue;
-			sets = null;
+			storeSets(sets);
 		}
 
-		public Cut(Cut copy){
-
-			slack = copy.slack;
-
-//			try{
-//				System.out.println(copy.sets.toString());
-//			}
-//			catch(NullPointerException e){
-//				e.printStackTrace();
-//				System.exit(0);
-//			}
-
-			if(copy.sets != null)
-				sets = copy.sets.clone();
-			else
-				sets = null;
+		public void copy(Cut c){
+			slack = c.slack;
+			System.arraycopy(c.sets, 0, sets, 0, sets.length);
 		}
 
 	}
@@ -1,5 +1,6 @@
 package separation;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 import callback.cut_callback.AbstractCutCallback;
 import formulation.AbstractFormulation;
@@ -24,6 +25,12 @@ public abstract class AbstractSeparation<Formulation extends AbstractFormulation
 	public int added_cuts = 0;
 	protected VariableGetter vg;
 	protected Formulation formulation;
+	
+	/** Values of the edge variables during a separation, indexed by formulation.pairIndex(i,j) */
+	protected double[] x;
+	
+	/** Deadline of the current separation (null if it has no deadline) */
+	protected SeparationDeadline deadline = null;
 
 	public AbstractSeparation(String name, Formulation formulation, VariableGetter vg){
 		this.name = name;
@@ -41,6 +48,61 @@ public abstract class AbstractSeparation<Formulation extends AbstractFormulation
 	 * @throws IloException
 	 */
 	public abstract ArrayList<AbstractInequality<? extends AbstractFormulation>> separate();
+	
+	/**
+	 * Find cuts until the deadline is reached or cancelled.
+	 * The algorithm then stops as soon as possible and returns the cuts found so far.
+	 * 
+	 * @param deadline  deadline of the separation (null for no deadline)
+	 * @return The list of violated inequalities found.
+	 */
+	public ArrayList<AbstractInequality<? extends AbstractFormulation>> separate(SeparationDeadline deadline){
+		
+		this.deadline = deadline;
+		
+		try {
+			return separate();
+		} finally {
+			this.deadline = null;
+		}
+	}
+	
+	/**
+	 * Find cuts which separate the relaxation given by a variable getter (e.g. a frozen copy of
+	 *  the edge values) rather than the one of the variable getter of the separation.
+	 * The separation must not be used by another thread during the call.
+	 * 
+	 * @param vg  variable getter of the relaxation to separate
+	 * @param deadline  deadline of the separation (null for no deadline)
+	 * @return The list of violated inequalities found.
+	 */
+	public ArrayList<AbstractInequality<? extends AbstractFormulation>> separate(VariableGetter vg, SeparationDeadline deadline){
+		
+		VariableGetter previousVg = this.vg;
+		this.vg = vg;
+		
+		try {
+			return separate(deadline);
+		} finally {
+			this.vg = previousVg;
+		}
+	}
+	
+	/**
+	 * @return the pool in which the parallel tasks of the separation are run
+	 *  (p.nbSeparationThread threads, shared by the separations of the formulation)
+	 */
+	protected ForkJoinPool getPool() {
+		return formulation.separationPool();
+	}
+	
+	/**
+	 * @return True if the deadline of the current separation is reached or cancelled
+	 */
+	protected boolean isTimeUp() {
+		SeparationDeadline d = deadline;
+		return d != null && d.isReached();
+	}
 
 	public AbstractCutCallback createDefaultCallback(FormulationEdge p){
 		DefaultCallback d = new DefaultCallback(p);
@@ -75,5 +137,44 @@ public abstract class AbstractSeparation<Formulation extends AbstractFormulation
 	public void setVariableGetter(VariableGetter vg_){
 		vg = vg_;
 	}
+	
+	public VariableGetter getVariableGetter(){
+		return vg;
+	}
+	
+	
+	/**
+	 * Retrieve the values of all the edge variables with a single bulk call, unless the 
+	 *  caller (e.g. the cutting plane loop) already took a snapshot of the current solution.
+	 * 
+	 * @return True if the snapshot has been taken by this call. In this case, it must be
+	 *  released at the end of the separation with releaseEdgeSnapshot()
+	 */
+	protected boolean takeEdgeSnapshot() {
+		
+		if(vg.hasEdgeSnapshot()){
+			x = vg.getEdgeSnapshot();
+			return false;
+		}
+		
+		try {
+			x = vg.takeEdgeSnapshot(formulation);
+		} catch (IloException e) {
+			e.printStackTrace();
+		}
+		return true;
+	}
+	
+	protected void releaseEdgeSnapshot(boolean isOwner) {
+		if(isOwner)
+			vg.releaseEdgeSnapshot();
+	}
+	
+	/**
+	 * Value of the edge variable x_ij in the current snapshot
+	 */
+	protected double edgeValue(int i, int j) {
+		return x[formulation.pairIndex(i, j)];
+	}
 
 }
@@ -1,25 +1,34 @@
 package separation;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Random;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.RecursiveTask;
 
-import formulation.Edge;
 import formulation.AbstractFormulation;
 import ilog.concert.IloException;
 import inequality_family.AbstractInequality;
 import inequality_family.CycleInequality;
-import myUtils.EdgeWeightedGraph;
+import myUtils.CSRGraph;
+import myUtils.CSRGraphView;
 import variable.VariableGetter;
 
 
 
 /**
  * Separate the cycle inequalities ...
- * 
+ *
+ * For each edge (i,j) whose value is lower than 0.5, a path with the lowest number of edges between
+ *  i and j is searched among the edges whose value is at least 0.5. The cycle made of this path and
+ *  of (i,j) gives a cycle inequality, which is added if it is violated.
+ *
+ * If isTreeShared is true (default), the edges (i,j) are grouped by extremity: a single breadth-first
+ *  search tree is grown from each extremity until all the other extremities of its group are reached,
+ *  instead of one search per edge. If formulation.p.nbSeparationThread > 1, the groups are cut into
+ *  blocks which are searched in parallel in the separation pool of the formulation. The inequalities of the blocks are
+ *  gathered in the order of the blocks, so the result does not depend on the number of threads.
+ *
+ * If onlyChordless is true, only the cycles without chord in the input graph are kept.
+ *
  * @author zach
  *
  */
@@ -32,13 +41,42 @@ public class SeparationCycleBFS extends AbstractSeparation<AbstractFormulation>{
 
 	//public TreeSet<ConflictedCycleInequality> foundIneq = new TreeSet<ConflictedCycleInequality>();
 	public ArrayList<CycleInequality> foundIneq = new ArrayList<CycleInequality>();
-	
+
+	public boolean isTreeShared = true;
+	public boolean onlyChordless = false;
+
+	/** Number of blocks of groups by thread */
+	static final int BLOCKS_BY_THREAD = 4;
+
+	int parallelism = 1;
+
+	/* Edges of the input graph whose value is at least 0.5 */
+	CSRGraphView oneEdges = null;
+
+	/* Tree used by the sequential search */
+	CSRGraphView.BFSTree tree = null;
+
+	/* Edges whose value is lower than 0.5, grouped by extremity: the edges of the group of the node
+	 * v are groupEdge[groupStart[v]..groupStart[v+1]-1] and their other extremities are in 'groupTarget' */
+	int[] groupStart;
+	int[] groupEdge;
+	int[] groupTarget;
+
 	public SeparationCycleBFS(AbstractFormulation formulation, VariableGetter vg, int MAXCUT) {
 		super("cycle bfs", formulation, vg);
-		
+
 		this.MAXCUT = MAXCUT;
 		MAXFOUND = 5*MAXCUT;
 
+		if(formulation.p != null)
+			this.parallelism = Math.max(1, formulation.p.nbSeparationThread);
+	}
+
+	public SeparationCycleBFS(AbstractFormulation formulation, VariableGetter vg, int MAXCUT, boolean isTreeShared, boolean onlyChordless) {
+		this(formulation, vg, MAXCUT);
+
+		this.isTreeShared = isTreeShared;
+		this.onlyChordless = onlyChordless;
 	}
 
 	@Override
@@ -46,94 +84,227 @@ public class SeparationCycleBFS extends AbstractSeparation<AbstractFormulation>{
 
 		ArrayList<AbstractInequality<? extends AbstractFormulation>> result = new ArrayList<>();
 
-		foundIneq.clear();	
-		
-		Set<Edge> zeroEdges = new HashSet<>();
-		Set<Edge> oneEdges = new HashSet<>();
-		
-		int n = formulation.n();
-		
+		foundIneq.clear();
+		boolean isSnapshotOwner = takeEdgeSnapshot();
 		try {
-			for(Edge e : formulation.getEdges()){
-				int i = e.getSource();
-				int j = e.getDest();
-				double val = vg.getValue(formulation.edgeVar(i, j));
-				if(val<0.5)
-					zeroEdges.add(e);
-				else
-					oneEdges.add(e);
+
+			int n = formulation.n();
+			CSRGraph graph = formulation.graph;
+
+			/* The view of the edges whose value is at least 0.5 is reused from one call to the next */
+			if(oneEdges == null || oneEdges.graph != graph){
+				oneEdges = graph.view();
+				tree = null;
 			}
 
-		} catch (IloException e1) {
-			// TODO Auto-generated catch block
-			e1.printStackTrace();
-		}
-		
-		EdgeWeightedGraph g = new EdgeWeightedGraph(n, formulation.getEdges(), false);
-		EdgeWeightedGraph g_aux = new EdgeWeightedGraph(n, oneEdges, false);
-		
-		for(Edge e : zeroEdges){
-			int i = e.getSource();
-			int j = e.getDest();
-
-			if(formulation.isInSameConnComp(i,j) && g_aux.isInSameConnComp(i, j)){
-				ArrayList<Integer> path = g_aux.searchShortestPathBFS(i,j);
-				
-				//if(path.size()>2 && isPathChordless(path, e, g.getAdj())){
-				if(path.size()>2){
-					CycleInequality c = new CycleInequality(this.formulation, n, e, path);
-					double res;
-					try {
-						res = c.getSlack(vg);
-						if(res < -eps){
-							//System.out.println("slack: " + res);					
-							//c.createRange();
-							foundIneq.add(c);
+			oneEdges.clear();
+			for(int id = 0 ; id < graph.m() ; ++id)
+				if(edgeValue(graph.source(id), graph.dest(id)) >= 0.5)
+					oneEdges.select(id);
+
+			oneEdges.computeComponents();
+
+			if(isTreeShared)
+				separateWithSharedTrees(graph);
+
+			else
+				for(int id = 0 ; id < graph.m() && !isTimeUp() ; ++id){
+					if(oneEdges.isSelected[id])
+						continue;
+
+					int i = graph.source(id);
+					int j = graph.dest(id);
+
+					if(formulation.isInSameConnComp(i,j) && oneEdges.isInSameConnComp(i, j)){
+						ArrayList<Integer> path = oneEdges.searchShortestPathBFS(i,j);
+
+						if(path.size()>2 && (!onlyChordless || graph.isPathChordless(path))){
+							CycleInequality c = new CycleInequality(this.formulation, n, graph.edge(id), path);
+							double res;
+							try {
+								res = c.getSlack(vg);
+								if(res < -eps){
+									//System.out.println("slack: " + res);
+									//c.createRange();
+									foundIneq.add(c);
+								}
+							} catch (IloException e1) {
+								// TODO Auto-generated catch block
+								e1.printStackTrace();
+							}
+
 						}
-					} catch (IloException e1) {
-						// TODO Auto-generated catch block
-						e1.printStackTrace();
 					}
-					
 				}
+
+
+
+			Iterator<CycleInequality> it = foundIneq.iterator();
+			int nb = 0;
+
+	//		while(it.hasNext() && nb < MAXCUT){
+			while(it.hasNext()){
+				result.add(it.next());
+				nb++;
 			}
+
+			return result;
 		}
-		
-		
+		finally {
+			releaseEdgeSnapshot(isSnapshotOwner);
+		}
+	}
 
-		Iterator<CycleInequality> it = foundIneq.iterator();
-		int nb = 0;
 
-//		while(it.hasNext() && nb < MAXCUT){
-		while(it.hasNext()){
-			result.add(it.next());
-			nb++;
+	/**
+	 * Group the edges whose value is lower than 0.5 by extremity and grow one tree by group
+	 */
+	private void separateWithSharedTrees(CSRGraph graph) {
+
+		int n = graph.n();
+
+		if(groupStart == null || groupStart.length != n+1){
+			groupStart = new int[n+1];
+			groupEdge = new int[graph.m()];
+			groupTarget = new int[graph.m()];
 		}
 
-		return result;
+		/* Number of candidate edges of each node */
+		int[] degree = new int[n];
+		for(int id = 0 ; id < graph.m() ; ++id)
+			if(isCandidate(graph, id)){
+				degree[graph.source(id)]++;
+				degree[graph.dest(id)]++;
+			}
+
+		/* Each edge is put in the group of its extremity with the most candidate edges,
+		 * so that a tree is shared by as many edges as possible */
+		int[] root = new int[graph.m()];
+		Arrays.fill(groupStart, 0);
+		for(int id = 0 ; id < graph.m() ; ++id)
+			if(isCandidate(graph, id)){
+				int i = graph.source(id);
+				int j = graph.dest(id);
+				root[id] = degree[j] > degree[i] ? j : i;
+				groupStart[root[id]+1]++;
+			}
+
+		for(int v = 0 ; v < n ; ++v)
+			groupStart[v+1] += groupStart[v];
+
+		int[] fill = Arrays.copyOf(groupStart, n);
+		for(int id = 0 ; id < graph.m() ; ++id)
+			if(isCandidate(graph, id)){
+				int slot = fill[root[id]]++;
+				groupEdge[slot] = id;
+				groupTarget[slot] = graph.source(id) == root[id] ? graph.dest(id) : graph.source(id);
+			}
+
+		int candidateNb = groupStart[n];
+		if(candidateNb == 0)
+			return;
+
+		if(parallelism == 1){
+			if(tree == null)
+				tree = oneEdges.newBFSTree();
+			foundIneq.addAll(searchGroups(0, n, tree));
+		}
+		else{
+			/* The blocks of nodes contain approximately the same number of candidate edges */
+			int blockNb = BLOCKS_BY_THREAD * parallelism;
+			ArrayList<GroupsSearchTask> tasks = new ArrayList<>();
+
+			int vBegin = 0;
+			for(int b = 1 ; b <= blockNb && vBegin < n ; ++b){
+				int vEnd = vBegin;
+				long bound = (long) candidateNb * b / blockNb;
+				while(vEnd < n && groupStart[vEnd] < bound)
+					vEnd++;
+				if(b == blockNb)
+					vEnd = n;
+
+				if(vEnd > vBegin){
+					GroupsSearchTask task = new GroupsSearchTask(vBegin, vEnd);
+					getPool().execute(task);
+					tasks.add(task);
+				}
+				vBegin = vEnd;
+			}
+
+			for(GroupsSearchTask task : tasks)
+				foundIneq.addAll(task.join());
+		}
 	}
-	
-	
-	public boolean isPathChordless(ArrayList<Integer> path, Edge e, Set<Edge>[] adj){
-		int i = e.getSource();
-		int j = e.getDest();
-		
-		
-		for(int v1=0; v1<path.size(); v1++){
-			for(int v2=v1+2; v2<path.size(); v2++){
-				if(!(path.get(v1)==j && path.get(v2)==i)){ // in case of triangle
-					Set<Edge> neighEdges = adj[path.get(v1)];
-					for(Edge neighEdge : neighEdges){
-						if(neighEdge.getOtherVertexId(path.get(v1)) == path.get(v2)){
-							return(false);
-						}
-					}
+
+
+	/**
+	 * @return true if the edge has a value lower than 0.5 and its extremities are connected by
+	 *  the edges whose value is at least 0.5
+	 */
+	private boolean isCandidate(CSRGraph graph, int id) {
+		int i = graph.source(id);
+		int j = graph.dest(id);
+		return !oneEdges.isSelected[id] && formulation.isInSameConnComp(i,j) && oneEdges.isInSameConnComp(i, j);
+	}
+
+
+	/**
+	 * Search the violated cycle inequalities of the groups of the nodes in [vBegin, vEnd[.
+	 * It only reads the view and the snapshot of the edge values, so several calls can be run
+	 *  concurrently with different trees.
+	 *
+	 * @return the violated inequalities in the order of the groups
+	 */
+	ArrayList<CycleInequality> searchGroups(int vBegin, int vEnd, CSRGraphView.BFSTree tree) {
+
+		ArrayList<CycleInequality> found = new ArrayList<>();
+		CSRGraph graph = oneEdges.graph;
+		int n = graph.n();
+
+		for(int v = vBegin ; v < vEnd && !isTimeUp() ; ++v){
+			if(groupStart[v] == groupStart[v+1])
+				continue;
+
+			tree.search(v, groupTarget, groupStart[v], groupStart[v+1]);
+
+			for(int slot = groupStart[v] ; slot < groupStart[v+1] ; ++slot){
+				ArrayList<Integer> path = tree.path(groupTarget[slot]);
+
+				if(path.size()>2 && (!onlyChordless || graph.isPathChordless(path))){
+
+					/* Slack of the inequality: |path|-2 - (x(path) - x_ij) */
+					double slack = path.size() - 2.0 + edgeValue(path.get(0), path.get(path.size()-1));
+					for(int k = 1 ; k < path.size() ; ++k)
+						slack -= edgeValue(path.get(k-1), path.get(k));
+
+					if(slack < -eps)
+						found.add(new CycleInequality(this.formulation, n, graph.edge(groupEdge[slot]), path));
 				}
 			}
 		}
-	
-		return(true);
+
+		return found;
 	}
 
 
+	/**
+	 * Search the groups of the nodes in [vBegin, vEnd[ with its own tree
+	 */
+	@SuppressWarnings("serial")
+	class GroupsSearchTask extends RecursiveTask<ArrayList<CycleInequality>> {
+
+		int vBegin;
+		int vEnd;
+
+		GroupsSearchTask(int vBegin, int vEnd) {
+			this.vBegin = vBegin;
+			this.vEnd = vEnd;
+		}
+
+		@Override
+		protected ArrayList<CycleInequality> compute() {
+			return searchGroups(vBegin, vEnd, oneEdges.newBFSTree());
+		}
+	}
+
 }
@@ -1,19 +1,15 @@
 package separation;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.List;
-import java.util.Random;
-import java.util.Set;
-import java.util.TreeSet;
 
-import formulation.Edge;
 import formulation.AbstractFormulation;
 import ilog.concert.IloException;
 import inequality_family.AbstractInequality;
 import inequality_family.CycleInequality;
-import myUtils.EdgeWeightedGraph;
+import myUtils.CSRGraph;
+import myUtils.CSRGraphView;
+import myUtils.ShortestPathEngine;
 import myUtils.StdRandom;
 import variable.VariableGetter;
 
@@ -24,6 +20,18 @@ import variable.VariableGetter;
  * 
  * source: /home/nejat/eclipse/workspace-neon/opengm-master/include/opengm/inference/multicut.hxx
  * 
+ * The cycle inequality of a cycle C and of an edge e of C is violated if and only if
+ *  sum_{f in C\e} (1 - x_f) < 1 - x_e. Thus, the separation is exact: for each edge e = (i,j) such that
+ *  x_e < 1, a shortest path between i and j without e is searched according to the lengths 1 - x
+ *  (only the edges such that x > 0 can belong to such a path).
+ * 
+ * The searches are done by a ShortestPathEngine which is reused from one call to the next.
+ *  The edges e are grouped by extremity: a single search from each extremity, in which all the
+ *  edges of the group are forbidden, stops as soon as all the other extremities are settled or
+ *  their distance is not lower than the bound 1 - x_e. An edge e is searched again alone (with only e
+ *  forbidden) if its cycle is not violated and if another edge of its group could shorten its path.
+ *  The groups are considered in a random order and the search stops once MAXCUT cycles are found.
+ * 
  * @author Nejat
  *
  */
@@ -37,6 +45,15 @@ public class SeparationCycleDijkstra extends AbstractSeparation<AbstractFormulat
 	//public TreeSet<ConflictedCycleInequality> foundIneq = new TreeSet<ConflictedCycleInequality>();
 	public ArrayList<CycleInequality> foundIneq = new ArrayList<CycleInequality>();
 	
+	/* Edges with a non zero value, with length 1 - x */
+	CSRGraphView nonZeroEdges = null;
+	ShortestPathEngine engine = null;
+	
+	/* Edges e such that x_e < 1, grouped by extremity (see SeparationCycleBFS) */
+	int[] groupStart;
+	int[] groupEdge;
+	int[] groupTarget;
+	
 	public SeparationCycleDijkstra(AbstractFormulation formulation, VariableGetter vg, int MAXCUT) {
 		super("cycle dijkstra", formulation, vg);
 		
@@ -51,94 +68,151 @@ public class SeparationCycleDijkstra extends AbstractSeparation<AbstractFormulat
 		ArrayList<AbstractInequality<? extends AbstractFormulation>> result = new ArrayList<>();
 
 		foundIneq.clear();	
+		boolean isSnapshotOwner = takeEdgeSnapshot();
+		try {
 		
-		int n = formulation.n();
-		Set<Edge> edges = new HashSet<Edge>();
-		Set<Edge> nonZeroEdges = new HashSet<>();
-
-		int[] indexs = new int[formulation.getEdges().size()];
-		for(int i=0; i<formulation.getEdges().size(); i++)
-			indexs[i] = i;
-		StdRandom.shuffle(indexs);
+			int n = formulation.n();
+			CSRGraph graph = formulation.graph;
 		
-		try {
-			List<Edge> edgesList = new ArrayList<>(formulation.getEdges());
-			for(int c=0; c<formulation.getEdges().size(); c++){
-				Edge e = edgesList.get(indexs[c]);
-				int i = e.getSource();
-				int j = e.getDest();
-				double val = vg.getValue(formulation.edgeVar(i, j));
-				Edge enew = new Edge(n, i, j);
-				enew.setWeight(val);
-				if(val>1E-4)
-					nonZeroEdges.add(enew);
-				edges.add(enew);
+			/* The view and the engine are reused from one call to the next */
+			if(nonZeroEdges == null || nonZeroEdges.graph != graph){
+				nonZeroEdges = graph.view();
+				engine = new ShortestPathEngine(nonZeroEdges);
+				groupStart = new int[n+1];
+				groupEdge = new int[graph.m()];
+				groupTarget = new int[graph.m()];
 			}
-
-			EdgeWeightedGraph g = new EdgeWeightedGraph(n, edges, false);
-			EdgeWeightedGraph g_aux = new EdgeWeightedGraph(n, nonZeroEdges, false);
-			
-				
-			for(Edge e : edges){
-				int i = e.getSource();
-				int j = e.getDest();
-				double oneEps = 1-1E-4;
-				if(e.getWeight()<oneEps){
-	
-					if(formulation.isInSameConnComp(i,j) && g_aux.isInSameConnComp(i, j)){
-						ArrayList<Integer> path = g.searchShortestPathDijkstra(i,j);
-						
-						if(path.size()>2 && isPathChordless(path, e, g.getAdj())){
-							CycleInequality c = new CycleInequality(this.formulation, n, e, path);
-							//c.createRange();
-							double res = c.getSlack(vg);
-							if(res < -eps){
-								//System.out.println("slack: " + res);
-
-								foundIneq.add(c);
-							}
-						}
-					}
+		
+			double[] value = new double[graph.m()];
+			nonZeroEdges.clear();
+			for(int id = 0 ; id < graph.m() ; ++id){
+				value[id] = edgeValue(graph.source(id), graph.dest(id));
+				if(value[id]>1E-4){
+					nonZeroEdges.select(id);
+					nonZeroEdges.setLength(id, Math.max(0.0, 1.0 - value[id]));
 				}
 			}
-			
-	
+			nonZeroEdges.computeComponents();
+		
+			/* Group the candidate edges by the extremity with the most candidate edges */
+			double oneEps = 1-1E-4;
+			boolean[] isCandidate = new boolean[graph.m()];
+			int[] degree = new int[n];
+			for(int id = 0 ; id < graph.m() ; ++id){
+				int i = graph.source(id);
+				int j = graph.dest(id);
+				if(value[id]<oneEps && formulation.isInSameConnComp(i,j) && nonZeroEdges.isInSameConnComp(i, j)){
+					isCandidate[id] = true;
+					degree[i]++;
+					degree[j]++;
+				}
+			}
+		
+			int[] root = new int[graph.m()];
+			Arrays.fill(groupStart, 0);
+			for(int id = 0 ; id < graph.m() ; ++id)
+				if(isCandidate[id]){
+					root[id] = degree[graph.dest(id)] > degree[graph.source(id)] ? graph.dest(id) : graph.source(id);
+					groupStart[root[id]+1]++;
+				}
+			for(int v = 0 ; v < n ; ++v)
+				groupStart[v+1] += groupStart[v];
+		
+			int[] fill = Arrays.copyOf(groupStart, n);
+			for(int id = 0 ; id < graph.m() ; ++id)
+				if(isCandidate[id]){
+					int slot = fill[root[id]]++;
+					groupEdge[slot] = id;
+					groupTarget[slot] = graph.source(id) == root[id] ? graph.dest(id) : graph.source(id);
+				}
+		
+			/* The groups are considered in a random order since at most MAXCUT cycles are returned */
+			int rootNb = 0;
+			int[] roots = new int[n];
+			for(int v = 0 ; v < n ; ++v)
+				if(groupStart[v+1] > groupStart[v])
+					roots[rootNb++] = v;
+			StdRandom.shuffle(roots, 0, rootNb);
+		
+			try {
+				for(int r = 0 ; r < rootNb && foundIneq.size() < MAXCUT && !isTimeUp() ; ++r)
+					separateGroup(graph, roots[r], value);
+			} catch (IloException e1) {
+				// TODO Auto-generated catch block
+				e1.printStackTrace();
+			}
+		
 			Iterator<CycleInequality> it = foundIneq.iterator();
 			int nb = 0;
 			while(it.hasNext() && nb < MAXCUT){
 				result.add(it.next());
 				nb++;
 			}
-		
-		} catch (IloException e1) {
-			// TODO Auto-generated catch block
-			e1.printStackTrace();
-		}
 
-		return result;
+			return result;
+		}
+		finally {
+			releaseEdgeSnapshot(isSnapshotOwner);
+		}
 	}
 	
 	
-	public boolean isPathChordless(ArrayList<Integer> path, Edge e, Set<Edge>[] adj){
-		int i = e.getSource();
-		int j = e.getDest();
+	/**
+	 * Search the violated cycles of the candidate edges of the group of v
+	 */
+	private void separateGroup(CSRGraph graph, int v, double[] value) throws IloException {
 		
+		int from = groupStart[v];
+		int to = groupStart[v+1];
 		
-		for(int v1=0; v1<path.size(); v1++){
-			for(int v2=v1+2; v2<path.size(); v2++){
-				if(!(path.get(v1)==j && path.get(v2)==i)){ // in case of triangle
-					Set<Edge> neighEdges = adj[path.get(v1)];
-					for(Edge neighEdge : neighEdges){
-						if(neighEdge.getOtherVertexId(path.get(v1)) == path.get(v2)){
-							return(false);
-						}
-					}
+		/* Largest bound of the group and shortest edge of the group in the view */
+		double bound = 0.0;
+		double minLength = Double.MAX_VALUE;
+		for(int slot = from ; slot < to ; ++slot){
+			int id = groupEdge[slot];
+			bound = Math.max(bound, 1.0 - value[id]);
+			if(nonZeroEdges.isSelected[id])
+				minLength = Math.min(minLength, nonZeroEdges.length[id]);
+			engine.forbid(id);
+		}
+		
+		engine.search(v, groupTarget, from, to, bound);
+		
+		ArrayList<ArrayList<Integer>> paths = new ArrayList<>();
+		for(int slot = from ; slot < to ; ++slot){
+			int t = groupTarget[slot];
+			if(engine.isSettled(t) && engine.distance(t) < 1.0 - value[groupEdge[slot]])
+				paths.add(engine.path(t));
+			else
+				paths.add(null);
+		}
+		
+		for(int slot = from ; slot < to ; ++slot){
+			int id = groupEdge[slot];
+			ArrayList<Integer> path = paths.get(slot - from);
+			double edgeBound = 1.0 - value[id];
+			
+			/* A path through another edge of the group is at least as long as this edge */
+			if(path == null && minLength < edgeBound){
+				engine.forbid(id);
+				engine.search(v, groupTarget, slot, slot+1, edgeBound);
+				if(engine.isSettled(groupTarget[slot]))
+					path = engine.path(groupTarget[slot]);
+			}
+			
+			if(path != null && path.size()>2 && graph.isPathChordless(path)){
+				CycleInequality c = new CycleInequality(this.formulation, graph.n(), graph.edge(id), path);
+				//c.createRange();
+				double res = c.getSlack(vg);
+				if(res < -eps){
+					//System.out.println("slack: " + res);
+
+					foundIneq.add(c);
+					if(foundIneq.size() >= MAXCUT)
+						return;
 				}
 			}
 		}
-	
-		return(true);
 	}
 
-
 }
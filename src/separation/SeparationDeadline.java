@@ -0,0 +1,48 @@
+package separation;
+
+
+/**
+ * Deadline of a separation, which can also be cancelled before it is reached
+ *  (e.g. by another thread when the result is not needed anymore).
+ *  
+ * The separation algorithms check it regularly (see AbstractSeparation.isTimeUp()).
+ *  When it is reached, they stop and return the cuts found so far.
+ */
+public class SeparationDeadline {
+	
+	/* Value of System.nanoTime() at which the deadline is reached */
+	final long end;
+	final boolean isBounded;
+	
+	volatile boolean isCancelled = false;
+	
+	/**
+	 * @param timeLimit  time given to the separation in seconds (no limit if it is negative)
+	 */
+	public SeparationDeadline(double timeLimit) {
+		isBounded = timeLimit >= 0;
+		end = System.nanoTime() + (isBounded ? (long) (timeLimit * 1E9) : 0);
+	}
+	
+	public void cancel() {
+		isCancelled = true;
+	}
+	
+	public boolean isCancelled() {
+		return isCancelled;
+	}
+	
+	public boolean isReached() {
+		return isCancelled || (isBounded && System.nanoTime() - end >= 0);
+	}
+	
+	/**
+	 * @return the remaining time in seconds (Double.MAX_VALUE if there is no limit)
+	 */
+	public double remainingTime() {
+		if(!isBounded)
+			return Double.MAX_VALUE;
+		return Math.max(0.0, (end - System.nanoTime()) / 1E9);
+	}
+
+}
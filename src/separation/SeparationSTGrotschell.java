@@ -1,9 +1,7 @@
 package separation;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.Iterator;
-import java.util.TreeSet;
 
 import formulation.AbstractFormulation;
 import ilog.concert.IloException;
@@ -12,132 +10,128 @@ import inequality_family.STInequality;
 import variable.VariableGetter;
 
 
+/**
+ * Separate the 2-partition inequalities x(S,T) - x(S) - x(T) <= |S| with |S| = 1 
+ *  (heuristics of Grotschell and Wakabayashi).
+ * The violated inequalities are searched until 5*MAXCUT of them are found, or until
+ *  MAXCUT inequalities whose gap is at least STRONG_VIOLATION are found.
+ *  Then the MAXCUT most violated inequalities are added. 
+ * Two inequalities with the same gap are ranked in the order in which they are found.
+ *
+ */
 public class SeparationSTGrotschell extends AbstractSeparation<AbstractFormulation>{
 
 	int MAXCUT;
 	int MAXFOUND;
+	
+	/** Minimal gap of a strongly violated inequality */
+	static final double STRONG_VIOLATION = 0.5;
 
 	public SeparationSTGrotschell(AbstractFormulation formulation, VariableGetter vg, int MAXCUT) {
 		super("ST_Grotschell", formulation, vg);
 		
 		this.MAXCUT = MAXCUT;
 		MAXFOUND = 5*MAXCUT;
+		foundIneq = new TopKCutSelector<>(MAXCUT);
 	}
 
-	public TreeSet<GapSTInequality> foundIneq = new TreeSet<GapSTInequality>(
-			new Comparator<GapSTInequality>(){
-				
-				@Override
-				public int compare(GapSTInequality o1, GapSTInequality o2) {
-					int value = o2.gap - o1.gap;
-					if(value == 0)
-						value = 1;
-					return value;
-				}
-			}
-	);
+	/** Most violated inequalities found, the key of an inequality is the order in which it is found */
+	public TopKCutSelector<GapSTInequality> foundIneq;
 
 	@Override
 	public ArrayList<AbstractInequality<? extends AbstractFormulation>> separate(){
 			
 		foundIneq.clear();
+		boolean isSnapshotOwner = takeEdgeSnapshot();
+		try {
 			boolean heuristic1Over = false;
 			int v = 0; 
-			
-			/* Search 2-partition inequalities such that S={v} (for all possible v) */
-			while(foundIneq.size() < MAXFOUND && v < formulation.n()){
 		
+			/* Search 2-partition inequalities such that S={v} (for all possible v) */
+			while(foundIneq.offeredNb() < MAXFOUND && v < formulation.n()
+					&& !(foundIneq.isFull() && foundIneq.minViolation() >= STRONG_VIOLATION) && !isTimeUp()){
+	
 				/* Find neighbors j of v such that v_rep[v][j] != 0 and 1 */
 				ArrayList<Integer> neighborV = new ArrayList<Integer>();
-				
+			
 				for(int j = 0 ; j < v ; ++j){
-					double value;
-					try {
-						value = vg.getValue(formulation.edgeVar(v,j));
-						if(value != 0 && value != 1)
-							neighborV.add(j);	
-					} catch (IloException e) {
-						e.printStackTrace();
-					}		
+					double value = edgeValue(v,j);
+					if(value != 0 && value != 1)
+						neighborV.add(j);	
 				}
-				
+			
 				for(int j = v+1 ; j < formulation.n() ; ++j){
-					double value;
-					try {
-						value = vg.getValue(formulation.edgeVar(j,v));
-						if(value != 0 && value != 1)
-							neighborV.add(j);
-					} catch (IloException e) {
-						e.printStackTrace();
-					}
+					double value = edgeValue(j,v);
+					if(value != 0 && value != 1)
+						neighborV.add(j);
 				}
-	
+
 				Collections.shuffle(neighborV);
-				
+			
 				try{
-				if(neighborV.size() > 0){
-					
-					/* Add the first neighbor in a set T */
-					ArrayList<Integer> T = new ArrayList<Integer>();
-					T.add(neighborV.get(0));
-		
-					/* For each neighbor w */
-					for(int i = 1 ; i < neighborV.size() ; ++i){
-					
-						Integer w = neighborV.get(i);
-						boolean w_valid = true;
-						Iterator<Integer> t = T.iterator();
+					if(neighborV.size() > 0){
+				
+						/* Add the first neighbor in a set T */
+						ArrayList<Integer> T = new ArrayList<Integer>();
+						T.add(neighborV.get(0));
+	
+						/* For each neighbor w */
+						for(int i = 1 ; i < neighborV.size() ; ++i){
+				
+							Integer w = neighborV.get(i);
+							boolean w_valid = true;
+							Iterator<Integer> t = T.iterator();
 
-						/* If we consider the first heuristic */
-						if(!heuristic1Over){
-							
-							/* If all the elements t of T verify  v_edge[w][t] = 0 */
-							while(t.hasNext() && w_valid)	
-								if(vg.getValue(formulation.edgeVar(w,t.next())) < eps)
-									w_valid = false;	
-						}
+							/* If we consider the first heuristic */
+							if(!heuristic1Over){
 						
-						/* If we consider the second heuristic */
-						else{
-							
-							double result = vg.getValue(formulation.edgeVar(w,v));
-							
-							/* If all the elements t of T verify  v_edge[w][t] = 0 */
-							while(t.hasNext() && result > (0 + eps))	
-								result -= vg.getValue(formulation.edgeVar(w,t.next()));
-							
-							if(result < (0 - eps))
-								w_valid = false;
-//							else
-//								System.out.println("Second valid");
-							
-						}
-							
-						if(w_valid){
-							
-							/* Add w in T */
-							T.add(w);
-						}
-						
-					}
+								/* If all the elements t of T verify  v_edge[w][t] = 0 */
+								while(t.hasNext() && w_valid)	
+									if(edgeValue(w,t.next()) < eps)
+										w_valid = false;	
+							}
 					
-					ArrayList<Integer> S = new ArrayList<Integer>();
-					S.add(v);
+							/* If we consider the second heuristic */
+							else{
+						
+								double result = edgeValue(w,v);
+						
+								/* If all the elements t of T verify  v_edge[w][t] = 0 */
+								while(t.hasNext() && result > (0 + eps))	
+									result -= edgeValue(w,t.next());
+						
+								if(result < (0 - eps))
+									w_valid = false;
+	//							else
+	//								System.out.println("Second valid");
+						
+							}
+						
+							if(w_valid){
+						
+								/* Add w in T */
+								T.add(w);
+							}
 					
-					GapSTInequality ineq = new GapSTInequality(S, T);
+						}
+				
+						ArrayList<Integer> S = new ArrayList<Integer>();
+						S.add(v);
+				
+						GapSTInequality ineq = new GapSTInequality(S, T);
+				
+						/* If the inequality is violated */
+						if(ineq.gap < -eps){
 					
-					/* If the inequality is violated */
-					if(ineq.gap < -eps){
-						
-						foundIneq.add(ineq);
+							foundIneq.offer(-ineq.gap, foundIneq.offeredNb(), ineq);
+						}
 					}
-				}
 				}catch(IloException e){
 					e.printStackTrace();
 				}
-				
+			
 				++v;
-				
+			
 				/* If this is the end of the first heuristic and no cut has been found,
 				 *  start the second */
 				if(v == formulation.n() && !heuristic1Over && foundIneq.size() == 0){
@@ -145,22 +139,19 @@ public class SeparationSTGrotschell extends AbstractSeparation<AbstractFormulati
 					v = 0;
 				}
 			}
-			
+		
 
 
 			ArrayList<AbstractInequality<? extends AbstractFormulation>> returned = new ArrayList<>();
-			
-			Iterator<GapSTInequality> it = foundIneq.iterator();
-			int nb = 0;
-			
-			while(it.hasNext() && nb < MAXCUT){
-				returned.add(it.next());
-				nb++;
-			}
-			
+			returned.addAll(foundIneq.sortedItems());
+		
 			return returned;
-			
 		}
+		finally {
+			releaseEdgeSnapshot(isSnapshotOwner);
+		}
+		
+	}
 
 
 	/**
@@ -172,13 +163,13 @@ public class SeparationSTGrotschell extends AbstractSeparation<AbstractFormulati
 	public class GapSTInequality extends STInequality{
 		
 		/** Gap between the value of the inequality and it's upper bound (1) */
-		public int gap;
+		public double gap;
 		
 		public GapSTInequality(ArrayList<Integer> s, ArrayList<Integer> t) throws IloException{
 			super(SeparationSTGrotschell.this.formulation);
 			S = s;
 			T = t;
-			gap = (int) (getSlack(vg) * 1000);
+			gap = getSlack(vg);
 		}
 		
 	}
@@ -1,6 +1,6 @@
 package separation;
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.Arrays;
 
 import formulation.AbstractFormulation;
 import ilog.concert.IloException;
@@ -69,8 +69,57 @@ public class SeparationSTKL extends AbstractKLSeparation<AbstractFormulation>{
 	}
 	
 	@Override
-	public void setSets(AbstractInequality<AbstractFormulation> sets) {
-		currentSets = ((STInequality)sets).clone();
+	protected SeparationSTKL createWorker() {
+		SeparationSTKL worker = new SeparationSTKL(formulation, vg, iterations_nb, stopIteratingWhenCutFound);
+		worker.ratioEvaluation = ratioEvaluation;
+		return worker;
+	}
+	
+	@Override
+	public void setSets(int[] sets) {
+		STInequality set = currentSet();
+		
+		set.S.clear();
+		set.T.clear();
+		
+		for(int i = 0 ; i < formulation.n() ; ++i){
+			set.inS[i] = false;
+			set.inT[i] = false;
+			
+			switch(sets[i]){
+			case 0: addToS(i); break;
+			case 1: addToT(i); break;
+			}
+		}
+	}
+	
+	/**
+	 * The sets are represented by the set of each node: 0 for S, 1 for T and 2 for U
+	 */
+	@Override
+	public int candidateSize() {
+		return formulation.n();
+	}
+	
+	@Override
+	public void storeSets(int[] sets) {
+		STInequality set = currentSet();
+		
+		for(int i = 0 ; i < formulation.n() ; ++i)
+			sets[i] = set.inS[i] ? 0 : (set.inT[i] ? 1 : 2);
+	}
+	
+	@Override
+	public STInequality createInequality(int[] sets) {
+		STInequality ineq = new STInequality(formulation);
+		
+		for(int i = 0 ; i < formulation.n() ; ++i)
+			switch(sets[i]){
+			case 0: ineq.S.add(i); ineq.inS[i] = true; break;
+			case 1: ineq.T.add(i); ineq.inT[i] = true; break;
+			}
+		
+		return ineq;
 	}
 
 	@Override
@@ -121,9 +170,13 @@ public class SeparationSTKL extends AbstractKLSeparation<AbstractFormulation>{
 	@Override
 	public void initializeSets() {
 		
-		currentSets = new STInequality(formulation);
-		
-		Random random = new Random();
+		/* The same object is used in all the iterations */
+		if(currentSets == null)
+			currentSets = new STInequality(formulation);
+		else{
+			currentSet().S.clear();
+			currentSet().T.clear();
+		}
 		
 		/* Create S and T randomly */
 		for(int i = 0 ; i < formulation.n() ; ++i){
@@ -300,8 +353,10 @@ public class SeparationSTKL extends AbstractKLSeparation<AbstractFormulation>{
 		 * 		- t : x(t,S ) and x(t,T2)
 		 * 		- u : x(u,S ) and x(u,T )
 		 */
-		xiS = new double[formulation.n()];
-		xiT  = new double[formulation.n()];
+		if(xiS == null){
+			xiS = new double[formulation.n()];
+			xiT  = new double[formulation.n()];
+		}
 		
 		/* Compute xsS and xsT */
 		for(int s = 0 ; s < currentSet().S.size() ; s++){
@@ -312,11 +367,11 @@ public class SeparationSTKL extends AbstractKLSeparation<AbstractFormulation>{
 			
 			for(int s2 = 0 ; s2 < currentSet().S.size() ; ++s2)
 				if(s != s2){
-					xiS[s_id] += this.vg.getValue(formulation.edgeVar(s_id,currentSet().S.get(s2)));
+					xiS[s_id] += edgeValue(s_id,currentSet().S.get(s2));
 				}
 			
 			for(int t = 0 ; t < currentSet().T.size() ; ++t){
-				xiT[s_id] += this.vg.getValue(formulation.edgeVar(s_id,currentSet().T.get(t)));
+				xiT[s_id] += edgeValue(s_id,currentSet().T.get(t));
 			}
 			
 		}
@@ -330,11 +385,11 @@ public class SeparationSTKL extends AbstractKLSeparation<AbstractFormulation>{
 			
 			for(int t2 = 0 ; t2 < currentSet().T.size() ; ++t2)
 				if(t!= t2){
-					xiT[t_id] += vg.getValue(formulation.edgeVar(t_id,currentSet().T.get(t2)));
+					xiT[t_id] += edgeValue(t_id,currentSet().T.get(t2));
 				}
 			
 			for(int s = 0 ; s < currentSet().S.size() ; ++s){
-				xiS[t_id] += this.vg.getValue(formulation.edgeVar(t_id, currentSet().S.get(s)));
+				xiS[t_id] += edgeValue(t_id, currentSet().S.get(s));
 			}
 			
 		}
@@ -344,21 +399,15 @@ public class SeparationSTKL extends AbstractKLSeparation<AbstractFormulation>{
 		for(int s = 0 ; s < currentSet().S.size() ; ++s){
 			
 			for(int t = 0 ; t < currentSet().T.size() ; ++t)
-				leftHandSide += this.vg.getValue(
-						formulation.edgeVar(currentSet().S.get(s), currentSet().T.get(t))
-						);
+				leftHandSide += edgeValue(currentSet().S.get(s), currentSet().T.get(t));
 			
 			for(int s2 = s+1 ; s2 < currentSet().S.size() ; ++s2)
-				leftHandSide -= this.vg.getValue(
-						formulation.edgeVar(currentSet().S.get(s), currentSet().S.get(s2))
-						);
+				leftHandSide -= edgeValue(currentSet().S.get(s), currentSet().S.get(s2));
 		}
 		
 		for(int t = 0 ; t < currentSet().T.size() ; ++t)
 			for(int t2 = t+1 ; t2 < currentSet().T.size() ; ++t2)
-				leftHandSide -= this.vg.getValue(
-						formulation.edgeVar(currentSet().T.get(t), currentSet().T.get(t2))
-						);
+				leftHandSide -= edgeValue(currentSet().T.get(t), currentSet().T.get(t2));
 		
 
 		/* Compute xuS and xuT */
@@ -370,10 +419,10 @@ public class SeparationSTKL extends AbstractKLSeparation<AbstractFormulation>{
 				xiS[u] = 0;
 				
 				for(int s = 0 ; s < currentSet().S.size() ; ++s)
-					xiS[u] += this.vg.getValue(formulation.edgeVar(u, currentSet().S.get(s)));
+					xiS[u] += edgeValue(u, currentSet().S.get(s));
 				
 				for(int t = 0 ; t < currentSet().T.size() ; ++t)
-					xiT[u] += vg.getValue(formulation.edgeVar(u, currentSet().T.get(t)));
+					xiT[u] += edgeValue(u, currentSet().T.get(t));
 			}
 			
 		}
@@ -381,8 +430,17 @@ public class SeparationSTKL extends AbstractKLSeparation<AbstractFormulation>{
 
 	@Override
 	public void initializeTransformationArrays() {
-		exchange = new double[formulation.n()][formulation.n()];
-		move = new double[formulation.n()][3];
+		
+		/* The arrays are allocated once and reset at each phase */
+		if(exchange == null){
+			exchange = new double[formulation.n()][formulation.n()];
+			move = new double[formulation.n()][3];
+		}
+		else
+			for(int i = 0 ; i < formulation.n() ; ++i){
+				Arrays.fill(exchange[i], 0.0);
+				Arrays.fill(move[i], 0.0);
+			}
 	}
 
 	@Override
@@ -447,7 +505,7 @@ public class SeparationSTKL extends AbstractKLSeparation<AbstractFormulation>{
 					
 					/* 7 : S <-> T : -2(x(t,T2) + x(formulation,S2)) - x(formulation,T2) - x(t,S2) */
 					if(exchange[i][t_id] != worstValue){
-						double xst = vg.getValue(formulation.edgeVar(i, t_id));
+						double xst = edgeValue(i, t_id);
 						exchange[i][t_id] = - 2*(xiT[t_id] + xiS[i] - (xiT[i]-xst) - (xiS[t_id]-xst));
 						exchange[t_id][i] = exchange[i][t_id];
 
@@ -552,7 +610,7 @@ public class SeparationSTKL extends AbstractKLSeparation<AbstractFormulation>{
 				
 				for(int s = 0 ; s < set.S.size() ; ++s){
 					int s_id = set.S.get(s);
-					double xus = this.vg.getValue(formulation.edgeVar(i, s_id));
+					double xus = edgeValue(i, s_id);
 
 					/* 8 : S <-> U :   - x(u,T ) -  x(formulation,S2) + x(formulation,T ) + x(u,S2) */
 					if(exchange[i][s_id] != worstValue){
@@ -576,7 +634,7 @@ public class SeparationSTKL extends AbstractKLSeparation<AbstractFormulation>{
 				
 				for(int t = 0 ; t < set.T.size() ; ++t){
 					int t_id = set.T.get(t);
-					double xut = vg.getValue(formulation.edgeVar(i, t_id));
+					double xut = edgeValue(i, t_id);
 
 					/* 9 : T <-> U :   - x(u,S ) - x(t,T2) + x(t,S ) + x(u,T2) */
 					if(exchange[i][t_id] != worstValue){
@@ -657,13 +715,13 @@ public class SeparationSTKL extends AbstractKLSeparation<AbstractFormulation>{
 			
 			for(int i = 0 ; i < formulation.n() ; ++i)
 				if(i != idS)
-					xiS[i] -= vg.getValue(formulation.edgeVar(i, idS));
+					xiS[i] -= edgeValue(i, idS);
 			
 			/* If idS was added in T */
 			if(set.inT[idS]){
 				for(int i = 0 ; i < formulation.n() ; ++i)
 					if(i != idS)
-						xiT[i] += vg.getValue(formulation.edgeVar(i, idS));
+						xiT[i] += edgeValue(i, idS);
 				
 				for(int t = 0 ; t < set.T.size() ; ++t){
 					exchange[set.T.get(t)][idS] = worstValue;
@@ -690,13 +748,13 @@ public class SeparationSTKL extends AbstractKLSeparation<AbstractFormulation>{
 			
 			for(int i = 0 ; i < formulation.n() ; ++i)
 				if(i != idT)
-					xiT[i] -= vg.getValue(formulation.edgeVar(i, idT));
+					xiT[i] -= edgeValue(i, idT);
 
 			/* If idT was added in S */
 			if(set.inS[idT]){
 				for(int i = 0 ; i < formulation.n() ; ++i)
 					if(i != idT)
-						xiS[i] += vg.getValue(formulation.edgeVar(i, idT));
+						xiS[i] += edgeValue(i, idT);
 
 				for(int s = 0 ; s < set.S.size() ; ++s){
 					exchange[set.S.get(s)][idT] = worstValue;
@@ -724,7 +782,7 @@ public class SeparationSTKL extends AbstractKLSeparation<AbstractFormulation>{
 			if(set.inS[idU]){
 				for(int i = 0 ; i < formulation.n() ; ++i)
 					if(i != idU)
-						xiS[i] += vg.getValue(formulation.edgeVar(i, idU));
+						xiS[i] += edgeValue(i, idU);
 
 				for(int s = 0 ; s < set.S.size() ; ++s){
 					exchange[set.S.get(s)][idU] = worstValue;
@@ -735,7 +793,7 @@ public class SeparationSTKL extends AbstractKLSeparation<AbstractFormulation>{
 			if(set.inT[idU]){
 				for(int i = 0 ; i < formulation.n() ; ++i)
 					if(i != idU)
-						xiT[i] += vg.getValue(formulation.edgeVar(i, idU));
+						xiT[i] += edgeValue(i, idU);
 
 				for(int t = 0 ; t < set.T.size() ; ++t){
 					exchange[set.T.get(t)][idU] = worstValue;
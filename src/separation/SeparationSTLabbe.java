@@ -28,91 +28,93 @@ public class SeparationSTLabbe extends AbstractSeparation<AbstractFormulation>{
 	public ArrayList<AbstractInequality<? extends AbstractFormulation>> separate() {
 
 		rgen = new Random();
+		boolean isSnapshotOwner = takeEdgeSnapshot();
+		try {
 		
-		/* Shuffle the n nodes */
+			/* Shuffle the n nodes */
 		
-		int[] nodes = new int[formulation.n()];
+			int[] nodes = new int[formulation.n()];
 		 
-		for (int i=0; i < nodes.length; i++) {
-			nodes[i] = i;
-		}
+			for (int i=0; i < nodes.length; i++) {
+				nodes[i] = i;
+			}
 		 
-		/* Shuffle by exchanging each element randomly */
-		for (int i=0; i < nodes.length; i++) {
-			int randomPosition = rgen.nextInt(nodes.length);
-			int temp = nodes[i];
-			nodes[i] = nodes[randomPosition];
-			nodes[randomPosition] = temp;
-		}
+			/* Shuffle by exchanging each element randomly */
+			for (int i=0; i < nodes.length; i++) {
+				int randomPosition = rgen.nextInt(nodes.length);
+				int temp = nodes[i];
+				nodes[i] = nodes[randomPosition];
+				nodes[randomPosition] = temp;
+			}
 		
-		/* Find a cut */
-		boolean cutFound = false;
+			/* Find a cut */
+			boolean cutFound = false;
 
-		int s = 0;
-		ArrayList<Integer> t = new ArrayList<Integer>();
+			int s = 0;
+			ArrayList<Integer> t = new ArrayList<Integer>();
 		
-		/* Id of the node which will be equal to S */
-		int s_id = 0;
+			/* Id of the node which will be equal to S */
+			int s_id = 0;
 		
-		while(!cutFound && s_id < this.formulation.n()){
+			while(!cutFound && s_id < this.formulation.n() && !isTimeUp()){
 			
-			s = nodes[s_id];
-			t = new ArrayList<Integer>();
-			ArrayList<Integer> w = new ArrayList<Integer>();
+				s = nodes[s_id];
+				t = new ArrayList<Integer>();
+				ArrayList<Integer> w = new ArrayList<Integer>();
 			
-			/* Score of the cut */
-			double score = 0.0;
+				/* Score of the cut */
+				double score = 0.0;
 			
-			/* Find all the potential nodes to put in T */
-			for(int i = 0 ; i < this.formulation.n() ; ++i){
-//				System.out.println("i: " + i + " s: " + s);
-				try {
-					if(i != s && this.vg.getValue(formulation.edgeVar(s,i)) > 0 + eps)
+				/* Find all the potential nodes to put in T */
+				for(int i = 0 ; i < this.formulation.n() ; ++i){
+	//				System.out.println("i: " + i + " s: " + s);
+					if(i != s && edgeValue(s,i) > 0 + eps)
 						w.add(i);
-				} catch (IloException e) {
-					e.printStackTrace();
 				}
-			}
 			
-			int candidate_id = 0; 
+				int candidate_id = 0; 
 			
-			/* Until no violated cut is found try to put successively all the node of w in T */
-			while(!cutFound && candidate_id < w.size()){
+				/* Until no violated cut is found try to put successively all the node of w in T */
+				while(!cutFound && candidate_id < w.size()){
 				
-				int candidate = w.get(candidate_id);
-				double scoreGap;
-				try {
-					scoreGap = scoreGap(s, t, candidate);
+					int candidate = w.get(candidate_id);
+					double scoreGap;
+					try {
+						scoreGap = scoreGap(s, t, candidate);
 					
-					if(scoreGap > 0 + eps){
-						t.add(candidate);
-						score += scoreGap;
+						if(scoreGap > 0 + eps){
+							t.add(candidate);
+							score += scoreGap;
 						
-						/* If the inequality is a violated one
-						 *  (i.e. if it's score is greater than 1 
-						 *  	(since a 2-partition corresponds to : 
-						 *  		x(S,T) - x(S) - x(T) <= |S| and here |S| = 1) 
-						 * 	 and if |T| > 2
-						 * 		 (since otherwise it corresponds to a triangle inequality) */
-						if(t.size() > 2 && score > 1 + eps)
-							cutFound = true;
+							/* If the inequality is a violated one
+							 *  (i.e. if it's score is greater than 1 
+							 *  	(since a 2-partition corresponds to : 
+							 *  		x(S,T) - x(S) - x(T) <= |S| and here |S| = 1) 
+							 * 	 and if |T| > 2
+							 * 		 (since otherwise it corresponds to a triangle inequality) */
+							if(t.size() > 2 && score > 1 + eps)
+								cutFound = true;
+						}
+					} catch (IloException e) {
+						e.printStackTrace();
 					}
-				} catch (IloException e) {
-					e.printStackTrace();
-				}
 					
-				candidate_id++;
+					candidate_id++;
+				}
+	//System.out.println("score: " + score);
+				++s_id;
 			}
-//System.out.println("score: " + score);
-			++s_id;
-		}
 		
-		ArrayList<AbstractInequality<? extends AbstractFormulation>> r = new ArrayList<>();
+			ArrayList<AbstractInequality<? extends AbstractFormulation>> r = new ArrayList<>();
 		
-		if(cutFound)
-			r.add(getInequality(s, t));
+			if(cutFound)
+				r.add(getInequality(s, t));
 
-		return r;
+			return r;
+		}
+		finally {
+			releaseEdgeSnapshot(isSnapshotOwner);
+		}
 		
 	}
 
@@ -126,10 +128,10 @@ public class SeparationSTLabbe extends AbstractSeparation<AbstractFormulation>{
 	 */
 	private double scoreGap(int s, ArrayList<Integer> t, int candidate) throws IloException {
 		
-		double result = this.vg.getValue(formulation.edgeVar(s,candidate));
+		double result = edgeValue(s,candidate);
 		
 		for(int i = 0 ; i < t.size() ; ++i)
-			result -= this.vg.getValue(formulation.edgeVar(candidate,t.get(i)));
+			result -= edgeValue(candidate,t.get(i));
 		
 		return result;
 	}
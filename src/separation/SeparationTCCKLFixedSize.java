@@ -1,6 +1,6 @@
 package separation;
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.Arrays;
 
 import formulation.AbstractFormulation;
 import ilog.concert.IloException;
@@ -74,29 +74,80 @@ public class SeparationTCCKLFixedSize extends AbstractKLSeparation<AbstractFormu
 		}
 		
 		ArrayList<AbstractInequality<? extends AbstractFormulation>> result = new ArrayList<>();
+		boolean isSnapshotOwner = takeEdgeSnapshot();
+		try {
 		
-		/* For each size of cycle */
-		for(int s = 0 ; s < sizesCycle.size() ; s++){
+			/* For each size of cycle */
+			for(int s = 0 ; s < sizesCycle.size() && !isTimeUp() ; s++){
 					
-			if(!stopIteratingWhenCutFound || result.size() == 0){
-				size = sizesCycle.get(s);
-				result.addAll(super.separate());
+				if(!stopIteratingWhenCutFound || result.size() == 0){
+					size = sizesCycle.get(s);
+					result.addAll(super.separate());
+				}
 			}
+		
+			return result;
+		}
+		finally {
+			releaseEdgeSnapshot(isSnapshotOwner);
 		}
+	}
 		
-		return result;
+	@Override
+	protected SeparationTCCKLFixedSize createWorker() {
+		return new SeparationTCCKLFixedSize(formulation, vg, iterations_nb, sizesCycle, stopIteratingWhenCutFound);
+	}
+	
+	@Override
+	protected void prepareWorker(AbstractKLSeparation<AbstractFormulation> worker) {
+		super.prepareWorker(worker);
+		((SeparationTCCKLFixedSize)worker).size = size;
 	}
 		
 	@Override
-	public void setSets(AbstractInequality<AbstractFormulation> sets) {
-		try{
-			
-		currentSets = ((TCCInequality)sets).clone();
-		}catch(NullPointerException e){
-			e.printStackTrace();
-			System.exit(0);
+	public void setSets(int[] sets) {
+		TCCInequality set = currentSet();
+		
+		for(int i = 0 ; i < formulation.n() ; ++i)
+			set.inC[i] = -1;
+		
+		set.C.clear();
+		for(int pos = 0 ; pos < size ; ++pos){
+			set.C.add(0);
+			addToC(sets[pos], pos);
 		}
 	}
+	
+	/**
+	 * The sets are represented by the nodes of the cycle C, in their order in the cycle
+	 */
+	@Override
+	public int candidateSize() {
+		return size;
+	}
+	
+	@Override
+	public void storeSets(int[] sets) {
+		TCCInequality set = currentSet();
+		
+		for(int pos = 0 ; pos < size ; ++pos)
+			sets[pos] = set.C.get(pos);
+	}
+	
+	@Override
+	public TCCInequality createInequality(int[] sets) {
+		TCCInequality ineq = new TCCInequality(formulation, size);
+		
+		for(int i = 0 ; i < formulation.n() ; ++i)
+			ineq.inC[i] = -1;
+		
+		for(int pos = 0 ; pos < size ; ++pos){
+			ineq.C.add(sets[pos]);
+			ineq.inC[sets[pos]] = pos;
+		}
+		
+		return ineq;
+	}
 
 	@Override
 	public void updateSets(Transformation t) {
@@ -142,8 +193,13 @@ public class SeparationTCCKLFixedSize extends AbstractKLSeparation<AbstractFormu
 	@Override
 	public void initializeSets() {
 		
-		Random random = new Random();
-		currentSets = new TCCInequality(formulation, size);
+		/* The same object is used in all the iterations */
+		if(currentSets == null)
+			currentSets = new TCCInequality(formulation, size);
+		else{
+			currentSet().p = (size-1)/2;
+			currentSet().C.clear();
+		}
 		TCCInequality set = currentSet();
 		
 		/* Create C randomly */
@@ -180,7 +236,9 @@ public class SeparationTCCKLFixedSize extends AbstractKLSeparation<AbstractFormu
 		 * 			 -x_a,c + x_b,c + x_d,c - x_e,c = + xiC[c][p_c]
 		 * 		
 		 */
-		xiC = new double[formulation.n()][size];
+		/* Allocated once for the largest possible cycle, only the first 'size' columns are used */
+		if(xiC == null)
+			xiC = new double[formulation.n()][formulation.n()];
 		
 		TCCInequality set = currentSet();
 
@@ -197,15 +255,16 @@ public class SeparationTCCKLFixedSize extends AbstractKLSeparation<AbstractFormu
 				/* If the node in the cycle at a distance 1 or 2 of c */
 				if(i == a || i == b || i == d || i == e){
 //					xiC[i][pos] = worstValue;
+					xiC[i][pos] = 0.0;
 					exchange[i][c] = worstValue;
 					exchange[c][i] = worstValue;
 				}
 				else{
 					
-					xiC[i][pos]  = -vg.getValue(formulation.edgeVar(a,i));
-					xiC[i][pos] +=  vg.getValue(formulation.edgeVar(b,i));
-					xiC[i][pos] +=  vg.getValue(formulation.edgeVar(d,i));
-					xiC[i][pos] -=  vg.getValue(formulation.edgeVar(e,i));
+					xiC[i][pos]  = -edgeValue(a,i);
+					xiC[i][pos] +=  edgeValue(b,i);
+					xiC[i][pos] +=  edgeValue(d,i);
+					xiC[i][pos] -=  edgeValue(e,i);
 					
 				}
 						
@@ -217,7 +276,13 @@ public class SeparationTCCKLFixedSize extends AbstractKLSeparation<AbstractFormu
 
 	@Override
 	public void initializeTransformationArrays() {
-		exchange = new double[formulation.n()][formulation.n()];		
+		
+		/* The array is allocated once and reset at each phase */
+		if(exchange == null)
+			exchange = new double[formulation.n()][formulation.n()];
+		else
+			for(int i = 0 ; i < formulation.n() ; ++i)
+				Arrays.fill(exchange[i], 0.0);
 	}
 	
 	@Override
@@ -317,8 +382,8 @@ public class SeparationTCCKLFixedSize extends AbstractKLSeparation<AbstractFormu
 			if(i != newNode && i != previousNode){
 
 				double value = 
-						- vg.getValue(formulation.edgeVar(i, newNode)) 
-							+ vg.getValue(formulation.edgeVar(i, previousNode));
+						- edgeValue(i, newNode) 
+							+ edgeValue(i, previousNode);
 				
 				xiC[i][(positionInC-2+sizeC)%sizeC] -= value;
 				xiC[i][(positionInC-1+sizeC)%sizeC] += value;
@@ -1,9 +1,8 @@
 package separation;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.Random;
-import java.util.TreeSet;
+import java.util.concurrent.RecursiveTask;
 
 import formulation.AbstractFormulation;
 import ilog.concert.IloException;
@@ -22,6 +21,17 @@ import variable.VariableGetter;
  * An inequality is violated if x_s,t1 + x_s,t2 - x_t1,t2 > 1.
  * The gap is equal to: x_s,t1 + x_s,t2 - x_t1,t2 - 1.
  * 
+ * The MAXCUT most violated inequalities are kept in a TopKCutSelector. The scan also stops
+ *  as soon as the selector is full of inequalities whose gap is at least STRONG_VIOLATION.
+ * Two inequalities with the same gap are ranked according to their support (s, t1, t2),
+ *  so the result does not depend on the order in which they are found.
+ * 
+ * If formulation.p.nbSeparationThread > 1, the pairs (i,j) are scanned in parallel
+ *  in the separation pool of the formulation: the rows i are cut into blocks of ROWS_PER_TASK rows and
+ *  each task scans a block into its own buffer. The buffers are given to the selector
+ *  in the order of the rows. Thus, the result is the same as in the sequential scan,
+ *  whatever the number of threads.
+ * 
  * @author zach
  *
  */
@@ -32,19 +42,20 @@ public class SeparationTriangle extends AbstractSeparation<AbstractFormulation>{
 	boolean triangleIneqReducedForm = false;
 
 	boolean[][] inequalityAdded;
+	
+	/** Minimal gap of a strongly violated inequality (the maximal gap is 1) */
+	static final double STRONG_VIOLATION = 0.5;
+	
+	/** Number of rows i scanned by a single task */
+	static final int ROWS_PER_TASK = 4;
+	
+	int parallelism = 1;
 
-	public TreeSet<GapTriangleInequality> foundIneq = new TreeSet<GapTriangleInequality>(
-			new Comparator<GapTriangleInequality>(){
-
-				@Override
-				public int compare(GapTriangleInequality o1, GapTriangleInequality o2) {
-					int value = o2.gap - o1.gap;
-					if(value == 0)
-						value = 1;
-					return value;
-				}
-			}
-	);
+	/** Most violated inequalities found, the key of an inequality is given by encode() */
+	public TopKCutSelector<Object> foundIneq;
+	
+	/** Number of violated inequalities found in the current separation */
+	int foundNb;
 
 	public SeparationTriangle(AbstractFormulation formulation, VariableGetter vg, int MAXCUT, boolean triangleIneqReducedForm) {
 		super("triangle iterative", formulation, vg);
@@ -52,6 +63,10 @@ public class SeparationTriangle extends AbstractSeparation<AbstractFormulation>{
 		this.MAXCUT = MAXCUT;
 		MAXFOUND = 5*MAXCUT;
 		this.triangleIneqReducedForm = triangleIneqReducedForm;
+		foundIneq = new TopKCutSelector<>(MAXCUT);
+		
+		if(formulation.p != null)
+			this.parallelism = Math.max(1, formulation.p.nbSeparationThread);
 	}
 
 	
@@ -60,20 +75,167 @@ public class SeparationTriangle extends AbstractSeparation<AbstractFormulation>{
 
 		ArrayList<AbstractInequality<? extends AbstractFormulation>> result = new ArrayList<>();
 
-		foundIneq.clear();	
+		foundIneq.clear();
+		foundNb = 0;
+		boolean isSnapshotOwner = takeEdgeSnapshot();
+		try {
+		
+			int rows = formulation.n()-1;
+		
+			/* Number of blocks of rows scanned before the selector is updated */
+			int blocksByWave = parallelism > 1 ? 2*parallelism : 1;
+		
+			boolean isScanOver = false;
+			int iBegin = 0;
+		
+			while(iBegin < rows && !isScanOver){
+			
+				ArrayList<RowsSearchTask> wave = new ArrayList<>();
+			
+				while(wave.size() < blocksByWave && iBegin < rows){
+					int iEnd = Math.min(rows, iBegin + ROWS_PER_TASK);
+					wave.add(new RowsSearchTask(iBegin, iEnd));
+					iBegin = iEnd;
+				}
+			
+				if(parallelism > 1)
+					for(RowsSearchTask task : wave)
+						getPool().execute(task);
+			
+				for(int b = 0 ; b < wave.size() ; ++b){
+				
+					if(isScanOver){
+						/* A block which is already running is waited for, so no task uses the snapshot once it is released */
+						wave.get(b).cancel(false);
+						wave.get(b).quietlyJoin();
+					}
+					else{
+						TriangleBuffer found = parallelism > 1 ? wave.get(b).join() : wave.get(b).invoke();
+						isScanOver = select(found) || isTimeUp();
+					}
+				}
+			}
+		
+			// ========================================================================
+
+	//		int i = 0;
+	//
+	//		Random random = new Random();
+	//
+	//		int[] shuffle = new int[formulation.n()];
+	//		for(int k = 0 ; k < shuffle.length ; ++k)
+	//			shuffle[k] = k;
+	//
+	//		for(int k = 0 ; k < shuffle.length ; ++k){
+	//
+	//			int v = random.nextInt(shuffle.length);
+	//			int v1 = shuffle[k];
+	//			shuffle[k] = shuffle[v];
+	//			shuffle[v] = v1;
+	//
+	//		}
+	//
+	//
+	//
+	//		while(i < formulation.n() && foundIneq.size() < MAXFOUND){
+	//			int j = i+1;
+	//
+	//			while(j < formulation.n()){
+	//
+	//				int k = j+1;
+	//
+	//				while(k < formulation.n() && foundIneq.size() < MAXFOUND){
+	//
+	//					try {
+	//						addIfGapNegative(shuffle[i],shuffle[j],shuffle[k]);
+	//					} catch (IloException e) {
+	//						e.printStackTrace();
+	//					}
+	//					try{
+	//						addIfGapNegative(shuffle[j],shuffle[i],shuffle[k]);
+	//					} catch (IloException e) {
+	//						e.printStackTrace();
+	//					}
+	//					try{
+	//						addIfGapNegative(shuffle[k],shuffle[i],shuffle[j]);
+	//					} catch (IloException e) {
+	//						e.printStackTrace();
+	//					}
+	//
+	//					++k;
+	//				}
+	//
+	//				++j;
+	//			}
+	//
+	//			++i;
+	//		}
+
+			for(long key : foundIneq.sortedKeys())
+				try {
+					result.add(decode(key));
+				} catch (IloException e) {
+					e.printStackTrace();
+				}
+
+			return result;
+		}
+		finally {
+			releaseEdgeSnapshot(isSnapshotOwner);
+		}
+	}
+	
+	
+	/**
+	 * Give the inequalities found in a block of rows to the selector.
+	 * 
+	 * @return True if the scan can stop (i.e. MAXFOUND violated inequalities have been found or
+	 * 	the selector is full of strongly violated inequalities)
+	 */
+	private boolean select(TriangleBuffer found) {
+		
+		for(int c = 0 ; c < found.size ; ++c){
+			foundIneq.offer(found.gap[c], found.key[c]);
+			foundNb++;
+			
+			if(foundNb >= MAXFOUND 
+					|| (foundIneq.isFull() && foundIneq.minViolation() >= STRONG_VIOLATION))
+				return true;
+		}
+		
+		return false;
+	}
+	
+	
+	/**
+	 * Search the violated triangle inequalities x_k,i + x_k,j - x_i,j <= 1 such that i is in [iBegin, iEnd[.
+	 * It only reads the snapshot of the edge values, so several calls can be run concurrently.
+	 * 
+	 * @return the violated inequalities in the order in which they are found
+	 */
+	TriangleBuffer searchRows(int iBegin, int iEnd) {
+		
+		TriangleBuffer buffer = new TriangleBuffer();
+		int n = formulation.n();
 		
 		try {
-			for(int i=0; i < (formulation.n()-1); i++){
-				for(int j=i+1; j < formulation.n(); j++){
-						if(vg.getValue(formulation.edgeVar(i, j))<0.5){
-							for(int k=0; k < formulation.n(); k++){
-								if(k!=i && k!=j){
-									if(vg.getValue(formulation.edgeVar(i, k))>0.5 && vg.getValue(formulation.edgeVar(j, k))>0.5){
-										addIfGapNegative(k,i,j); // Actually, we do not need to call this function .. TODO
-									}
+			for(int i=iBegin; i < iEnd && !isTimeUp(); i++){
+				for(int j=i+1; j < n; j++){
+					double xij = edgeValue(i, j);
+					if(xij<0.5){
+						for(int k=0; k < n; k++){
+							if(k!=i && k!=j){
+								double xik = edgeValue(i, k);
+								double xjk = edgeValue(j, k);
+								if(xik>0.5 && xjk>0.5){
+									double gap = xik + xjk - xij - 1.0;
+									
+									if(gap > eps && (!this.triangleIneqReducedForm || isInReducedForm(k, i, j)))
+										buffer.add(gap, encode(k, i, j));
 								}
 							}
 						}
+					}
 				}
 			}
 		} catch (IloException e) {
@@ -81,80 +243,73 @@ public class SeparationTriangle extends AbstractSeparation<AbstractFormulation>{
 			e.printStackTrace();
 		}
 		
-		// ========================================================================
-
-//		int i = 0;
-//
-//		Random random = new Random();
-//
-//		int[] shuffle = new int[formulation.n()];
-//		for(int k = 0 ; k < shuffle.length ; ++k)
-//			shuffle[k] = k;
-//
-//		for(int k = 0 ; k < shuffle.length ; ++k){
-//
-//			int v = random.nextInt(shuffle.length);
-//			int v1 = shuffle[k];
-//			shuffle[k] = shuffle[v];
-//			shuffle[v] = v1;
-//
-//		}
-//
-//
-//
-//		while(i < formulation.n() && foundIneq.size() < MAXFOUND){
-//			int j = i+1;
-//
-//			while(j < formulation.n()){
-//
-//				int k = j+1;
-//
-//				while(k < formulation.n() && foundIneq.size() < MAXFOUND){
-//
-//					try {
-//						addIfGapNegative(shuffle[i],shuffle[j],shuffle[k]);
-//					} catch (IloException e) {
-//						e.printStackTrace();
-//					}
-//					try{
-//						addIfGapNegative(shuffle[j],shuffle[i],shuffle[k]);
-//					} catch (IloException e) {
-//						e.printStackTrace();
-//					}
-//					try{
-//						addIfGapNegative(shuffle[k],shuffle[i],shuffle[j]);
-//					} catch (IloException e) {
-//						e.printStackTrace();
-//					}
-//
-//					++k;
-//				}
-//
-//				++j;
-//			}
-//
-//			++i;
-//		}
-
-		Iterator<GapTriangleInequality> it = foundIneq.iterator();
-		int nb = 0;
-
-		//while(it.hasNext() && nb < MAXCUT){
-		while(it.hasNext()){
-			result.add(it.next());
-			nb++;
+		return buffer;
+	}
+	
+	/**
+	 * Same definition as Triangle_Inequality.isInReducedForm() (Miyauchi et al.)
+	 */
+	private boolean isInReducedForm(int s, int t1, int t2) throws IloException {
+		return formulation.edgeWeight(s, t1)>0 || formulation.edgeWeight(s, t2)>0;
+	}
+	
+	/**
+	 * Key of the triangle inequality x_s,t1 + x_s,t2 - x_t1,t2 <= 1 (with t1 < t2)
+	 */
+	private long encode(int s, int t1, int t2) {
+		long n = formulation.n();
+		return (s * n + t1) * n + t2;
+	}
+	
+	private GapTriangleInequality decode(long key) throws IloException {
+		long n = formulation.n();
+		int t2 = (int) (key % n);
+		int t1 = (int) ((key / n) % n);
+		int s = (int) (key / n / n);
+		return new GapTriangleInequality(s, t1, t2, this.triangleIneqReducedForm);
+	}
+	
+	
+	/**
+	 * Violated inequalities found in a block of rows (gap and key of each inequality)
+	 */
+	static class TriangleBuffer {
+		
+		int size = 0;
+		double[] gap = new double[16];
+		long[] key = new long[16];
+		
+		void add(double g, long k) {
+			if(size == gap.length){
+				gap = Arrays.copyOf(gap, 2*size);
+				key = Arrays.copyOf(key, 2*size);
+			}
+			gap[size] = g;
+			key[size] = k;
+			size++;
 		}
-
-		return result;
 	}
+	
+	
+	/**
+	 * Scan the rows [iBegin, iEnd[
+	 */
+	@SuppressWarnings("serial")
+	class RowsSearchTask extends RecursiveTask<TriangleBuffer> {
+		
+		int iBegin;
+		int iEnd;
+		
+		RowsSearchTask(int iBegin, int iEnd) {
+			this.iBegin = iBegin;
+			this.iEnd = iEnd;
+		}
 
-	private void addIfGapNegative(int s, int t1, int t2) throws IloException {
-		GapTriangleInequality ineq = new GapTriangleInequality(s, t1, t2, this.triangleIneqReducedForm);
-		if(!this.triangleIneqReducedForm || (this.triangleIneqReducedForm && ineq.isInReducedForm())){
-			if(ineq.gap < -eps){
-				foundIneq.add(ineq);
-			}
+		@Override
+		protected TriangleBuffer compute() {
+			return searchRows(iBegin, iEnd);
 		}
+		
 	}
 
 	/**
@@ -166,11 +321,11 @@ public class SeparationTriangle extends AbstractSeparation<AbstractFormulation>{
 	public class GapTriangleInequality extends Triangle_Inequality{
 		
 		/** Gap between the value of the inequality and it's upper bound (1) */
-		public int gap;
+		public double gap;
 
 		public GapTriangleInequality(int s, int t1, int t2, boolean triangleIneqReducedForm) throws IloException{
 			super(SeparationTriangle.this.formulation, s, t1, t2, triangleIneqReducedForm);
-			gap = (int) (getSlack(vg) * 1000);
+			gap = getSlack(vg);
 		}
 
 	}
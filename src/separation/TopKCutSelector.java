@@ -0,0 +1,207 @@
+package separation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+
+/**
+ * Keep the K most violated cuts among all the cuts offered during a separation.
+ * 
+ * The cuts are stored in a binary min-heap of primitive arrays whose root is the 
+ *  least violated cut kept so far. Offering a cut is thus O(log K) and a cut which
+ *  is not better than the root is rejected in O(1).
+ * 
+ * Each cut is identified by a key (e.g. an encoding of its support or the order in which
+ *  it has been found). Two cuts with the same violation are ranked according to their key
+ *  (the smaller key is the better), so the selection does not depend on the order
+ *  in which equally violated cuts are offered.
+ *  
+ * An optional object can be attached to each cut (e.g. the inequality itself).
+ *
+ * @param <T> type of the objects attached to the cuts
+ */
+public class TopKCutSelector<T> {
+
+	int capacity;
+	int size = 0;
+	
+	/** Number of cuts offered since the last call to clear() */
+	long offeredNb = 0;
+	
+	double[] violation;
+	long[] key;
+	Object[] item;
+	
+	public TopKCutSelector(int capacity) {
+		this.capacity = Math.max(1, capacity);
+		violation = new double[this.capacity];
+		key = new long[this.capacity];
+		item = new Object[this.capacity];
+	}
+	
+	public void clear() {
+		for(int i = 0 ; i < size ; ++i)
+			item[i] = null;
+		size = 0;
+		offeredNb = 0;
+	}
+	
+	
+	/**
+	 * Offer a cut to the selector
+	 * @param v violation of the cut (the greater the better)
+	 * @param k key of the cut
+	 * @param o object attached to the cut (can be null)
+	 * @return True if the cut is kept (for now), false if it is rejected.
+	 */
+	public boolean offer(double v, long k, T o) {
+		
+		offeredNb++;
+		
+		if(size < capacity){
+			violation[size] = v;
+			key[size] = k;
+			item[size] = o;
+			siftUp(size);
+			size++;
+			return true;
+		}
+		
+		/* If the cut is not better than the least violated kept cut */
+		if(!isWorse(0, v, k))
+			return false;
+		
+		violation[0] = v;
+		key[0] = k;
+		item[0] = o;
+		siftDown(0);
+		return true;
+	}
+	
+	public boolean offer(double v, long k) {
+		return offer(v, k, null);
+	}
+	
+	public boolean isFull() {
+		return size == capacity;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public long offeredNb() {
+		return offeredNb;
+	}
+	
+	/**
+	 * Violation of the least violated kept cut
+	 */
+	public double minViolation() {
+		return size == 0 ? Double.NEGATIVE_INFINITY : violation[0];
+	}
+	
+	
+	/**
+	 * Get the positions in the heap of the kept cuts, from the most violated to the least violated one
+	 */
+	int[] sortedPositions() {
+		
+		Integer[] positions = new Integer[size];
+		for(int i = 0 ; i < size ; ++i)
+			positions[i] = i;
+		
+		Arrays.sort(positions, new Comparator<Integer>(){
+
+			@Override
+			public int compare(Integer a, Integer b) {
+				if(violation[a] != violation[b])
+					return violation[a] > violation[b] ? -1 : 1;
+				return Long.compare(key[a], key[b]);
+			}
+		});
+		
+		int[] result = new int[size];
+		for(int i = 0 ; i < size ; ++i)
+			result[i] = positions[i];
+		return result;
+	}
+	
+	
+	/**
+	 * Keys of the kept cuts, from the most violated to the least violated one
+	 */
+	public long[] sortedKeys() {
+		int[] positions = sortedPositions();
+		long[] result = new long[size];
+		for(int i = 0 ; i < size ; ++i)
+			result[i] = key[positions[i]];
+		return result;
+	}
+	
+	
+	/**
+	 * Objects attached to the kept cuts, from the most violated to the least violated one
+	 */
+	@SuppressWarnings("unchecked")
+	public ArrayList<T> sortedItems() {
+		int[] positions = sortedPositions();
+		ArrayList<T> result = new ArrayList<>(size);
+		for(int i = 0 ; i < size ; ++i)
+			result.add((T)item[positions[i]]);
+		return result;
+	}
+	
+	
+	/**
+	 * True if the cut at position 'pos' is less interesting than a cut of violation v and key k
+	 */
+	boolean isWorse(int pos, double v, long k) {
+		return violation[pos] < v || (violation[pos] == v && key[pos] > k);
+	}
+	
+	void siftUp(int pos) {
+		while(pos > 0){
+			int parent = (pos-1)/2;
+			if(!isWorse(pos, violation[parent], key[parent]))
+				break;
+			swap(pos, parent);
+			pos = parent;
+		}
+	}
+	
+	void siftDown(int pos) {
+		while(true){
+			int worst = pos;
+			int left = 2*pos+1;
+			int right = left+1;
+			
+			if(left < size && isWorse(left, violation[worst], key[worst]))
+				worst = left;
+			if(right < size && isWorse(right, violation[worst], key[worst]))
+				worst = right;
+			
+			if(worst == pos)
+				break;
+			
+			swap(pos, worst);
+			pos = worst;
+		}
+	}
+	
+	void swap(int a, int b) {
+		double v = violation[a];
+		violation[a] = violation[b];
+		violation[b] = v;
+		
+		long k = key[a];
+		key[a] = key[b];
+		key[b] = k;
+		
+		Object o = item[a];
+		item[a] = item[b];
+		item[b] = o;
+	}
+	
+}
@@ -31,5 +31,10 @@ public class CallbackVariableGetter extends VariableGetter {
 //		}
 		
 	}
+	
+	@Override
+	public double[] getValues(IloNumVar[] vars) throws UnknownObjectException, IloException {
+		return cb.getValuesPublic(vars);
+	}
 
 }
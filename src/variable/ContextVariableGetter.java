@@ -0,0 +1,41 @@
+package variable;
+
+import cplex.Cplex;
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+import ilog.cplex.IloCplex;
+import ilog.cplex.IloCplex.UnknownObjectException;
+
+/**
+ * Variable getter used in a generic callback (see AbstractGenericCallback).
+ * The values are those of the candidate solution in the candidate context and
+ *  those of the current relaxation in the relaxation context.
+ */
+public class ContextVariableGetter extends VariableGetter {
+
+	IloCplex.Callback.Context context;
+
+	public ContextVariableGetter(Cplex cplex) {
+		super(cplex);
+	}
+
+	/**
+	 * Set the context of the current call of the callback
+	 */
+	public void setContext(IloCplex.Callback.Context context) {
+		this.context = context;
+	}
+
+	@Override
+	public double getValue(IloNumVar var) throws UnknownObjectException, IloException {
+		return getValues(new IloNumVar[]{var})[0];
+	}
+
+	@Override
+	public double[] getValues(IloNumVar[] vars) throws UnknownObjectException, IloException {
+		if(context.inCandidate())
+			return context.getCandidatePoint(vars);
+		return context.getRelaxationPoint(vars);
+	}
+
+}
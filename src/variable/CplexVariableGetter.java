@@ -17,5 +17,10 @@ public class CplexVariableGetter extends VariableGetter {
 	
 	}
 	
+	@Override
+	public double[] getValues(IloNumVar[] vars) throws UnknownObjectException, IloException {		
+		return cplex.iloCplex.getValues(vars);
+	}
+	
 
 }
@@ -0,0 +1,45 @@
+package variable;
+
+import cplex.Cplex;
+import formulation.AbstractFormulation;
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+import ilog.cplex.IloCplex.UnknownObjectException;
+
+/**
+ * Variable getter whose values are a frozen copy of the edge values of a solution.
+ * It never calls cplex, so it can be shared by several separation algorithms run
+ *  concurrently on the same relaxation (see AbstractCuttingPlane.separateConcurrently()).
+ * Its snapshot is always valid: taking or releasing it has no effect.
+ */
+public class SnapshotVariableGetter extends VariableGetter {
+
+	/**
+	 * @param values  edge values indexed by AbstractFormulation.pairIndex(i,j) (copied)
+	 */
+	public SnapshotVariableGetter(Cplex cplex, double[] values) {
+		super(cplex);
+		edgeValues = values.clone();
+		isSnapshotValid = true;
+	}
+
+	@Override
+	public double getValue(IloNumVar var) throws UnknownObjectException, IloException {
+		throw new IloException("Only the values of the edge variables are available in a snapshot");
+	}
+
+	@Override
+	public double[] getValues(IloNumVar[] vars) throws UnknownObjectException, IloException {
+		throw new IloException("Only the values of the edge variables are available in a snapshot");
+	}
+
+	@Override
+	public double[] takeEdgeSnapshot(AbstractFormulation formulation) {
+		return edgeValues;
+	}
+
+	@Override
+	public void releaseEdgeSnapshot() {
+	}
+
+}
@@ -1,6 +1,7 @@
 package variable;
 
 import cplex.Cplex;
+import formulation.AbstractFormulation;
 import ilog.concert.IloException;
 import ilog.concert.IloNumVar;
 import ilog.cplex.IloCplex.UnknownObjectException;
@@ -9,10 +10,68 @@ public abstract class VariableGetter {
 	
 	public Cplex cplex;
 	
+	/**
+	 * Snapshot of the values of the edge variables, indexed by AbstractFormulation.pairIndex(i,j).
+	 * It is only meaningful between takeEdgeSnapshot() and releaseEdgeSnapshot()
+	 */
+	protected double[] edgeValues = null;
+	protected boolean isSnapshotValid = false;
+	
 	public VariableGetter(Cplex cplex) {
 		this.cplex = cplex;
 	}
 	
 	public abstract double getValue(IloNumVar var) throws UnknownObjectException, IloException;
 
+	public abstract double[] getValues(IloNumVar[] vars) throws UnknownObjectException, IloException;
+	
+	
+	/**
+	 * Retrieve the values of all the edge variables of a formulation with a single 
+	 *  bulk call and store them into a flat array indexed by pair.
+	 * The snapshot stays valid until releaseEdgeSnapshot() is called, so the caller 
+	 *  must release it before the values of the variables change (e.g. a new LP solve)
+	 * 
+	 * @param formulation  formulation which owns the edge variables
+	 * @return the values of the edge variables, indexed by formulation.pairIndex(i,j)
+	 */
+	public double[] takeEdgeSnapshot(AbstractFormulation formulation) throws UnknownObjectException, IloException {
+		
+		IloNumVar[] vars = formulation.edgeVarArray();
+		int[] pairIndex = formulation.edgeVarPairIndex();
+		
+		if(edgeValues == null || edgeValues.length != formulation.pairCount())
+			edgeValues = new double[formulation.pairCount()];
+		
+		double[] values = getValues(vars);
+		for(int k = 0 ; k < vars.length ; ++k)
+			edgeValues[pairIndex[k]] = values[k];
+		
+		isSnapshotValid = true;
+		return edgeValues;
+	}
+	
+	public void releaseEdgeSnapshot() {
+		isSnapshotValid = false;
+	}
+	
+	public boolean hasEdgeSnapshot() {
+		return isSnapshotValid;
+	}
+	
+	public double[] getEdgeSnapshot() {
+		return edgeValues;
+	}
+	
+	
+	/**
+	 * Get the value of the variable associated to the edge (ij).
+	 * The snapshot is used if there is a valid one, otherwise the value is asked to cplex.
+	 */
+	public double getEdgeValue(AbstractFormulation formulation, int i, int j) throws UnknownObjectException, IloException {
+		if(isSnapshotValid)
+			return edgeValues[formulation.pairIndex(i, j)];
+		return getValue(formulation.edgeVar(i, j));
+	}
+
 }